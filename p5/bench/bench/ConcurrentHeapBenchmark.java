@@ -0,0 +1,93 @@
+package bench;
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import a4.PriorityQueue;
+import a4.PriorityQueues;
+
+/** Throughput of one queue shared by every benchmark thread.
+ *
+ * Run it at several thread counts with JMH's -t option, e.g.
+ * "ConcurrentHeapBenchmark -t 1" up to "-t 64". The queue parameter
+ * compares ConcurrentHeap with a binary Heap behind one lock, which is what
+ * sharing a queue took before. The queue holds size random priorities;
+ * pollAdd() polls the minimum and adds it back with a new random priority,
+ * and changePriority() reprioritizes a random element.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConcurrentHeapBenchmark {
+	@Param({"10000", "1000000"})
+	int size;
+
+	/** "concurrent" for ConcurrentHeap, "locked" for a synchronized Heap. */
+	@Param({"concurrent", "locked"})
+	String queue;
+
+	PriorityQueue<Integer,Integer> shared;
+	boolean locked;
+
+	/** The random source of one benchmark thread. */
+	@State(Scope.Thread)
+	public static class ThreadState {
+		SplittableRandom r = new SplittableRandom(Thread.currentThread().getId());
+	}
+
+	@Setup(Level.Iteration)
+	public void fill() {
+		locked = queue.equals("locked");
+		shared = locked ? PriorityQueues.binaryHeap(Comparator.<Integer>naturalOrder())
+				: PriorityQueues.concurrentHeap(Comparator.<Integer>naturalOrder());
+		SplittableRandom r = new SplittableRandom(42);
+		for(int i = 0; i < size; i++) {
+			shared.add(i, r.nextInt(size));
+		}
+	}
+
+	@Benchmark
+	public Integer pollAdd(ThreadState t) {
+		int p = t.r.nextInt(size);
+		if(locked) {
+			synchronized(shared) {
+				Integer e = shared.poll();
+				shared.add(e, p);
+				return e;
+			}
+		}
+		Integer e = shared.poll();
+		shared.add(e, p);
+		return e;
+	}
+
+	@Benchmark
+	public void changePriority(ThreadState t) {
+		Integer e = t.r.nextInt(size);
+		int p = t.r.nextInt(size);
+		if(locked) {
+			synchronized(shared) {
+				shared.changePriority(e, p);
+			}
+			return;
+		}
+		shared.changePriority(e, p);
+	}
+}
@@ -0,0 +1,88 @@
+package bench;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import a5.CsrGraph;
+import a5.GraphAlgorithms;
+import a5.Landmarks;
+import a5.Traversal;
+import bench.SyntheticGraph.Shape;
+import bench.SyntheticGraph.Vertex;
+
+/** Benchmarks for GraphAlgorithms on synthetic graphs.
+ *
+ * shortestPath() searches from the first generated node to the last one
+ * (opposite corners on a grid), and bucketedShortestPath() does the same
+ * search with the bound on edge weights, so over a DialQueue.
+ * landmarkShortestPath() answers it over the CsrGraph snapshot by A* with
+ * 8 Landmarks. dfs() traverses everything reachable from the first node.
+ * traversal() does the same over the CsrGraph with a reused Traversal,
+ * counting nodes instead of listing them, so with -prof gc it should show
+ * no allocation. The graph, and the landmarks, are built once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class GraphBenchmark {
+	@Param({"GRID", "RANDOM_SPARSE", "SCALE_FREE"})
+	Shape shape;
+
+	@Param({"10000", "100000", "1000000"})
+	int nodes;
+
+	SyntheticGraph graph;
+	CsrGraph<Vertex> csr;
+	Traversal traversal;
+	Landmarks landmarks;
+
+	@Setup(Level.Trial)
+	public void generate() throws InterruptedException {
+		graph = SyntheticGraph.generate(shape, nodes, 42);
+		csr = CsrGraph.of(graph.source());
+		traversal = new Traversal(csr.nodeCount());
+		landmarks = Landmarks.build(csr, 8, ForkJoinPool.commonPool());
+	}
+
+	@Benchmark
+	public List<Vertex> shortestPath() {
+		return GraphAlgorithms.shortestPath(graph.source(), graph.target());
+	}
+
+	@Benchmark
+	public List<Vertex> bucketedShortestPath() {
+		return GraphAlgorithms.shortestPath(graph.source(), graph.target(), SyntheticGraph.MAX_WEIGHT);
+	}
+
+	@Benchmark
+	public int[] landmarkShortestPath() {
+		return landmarks.shortestPath(csr.id(graph.source()), csr.id(graph.target()));
+	}
+
+	@Benchmark
+	public List<Vertex> dfs() {
+		return GraphAlgorithms.dfs(graph.source());
+	}
+
+	@Benchmark
+	public int traversal() {
+		return traversal.dfs(csr, 0, (node, depth) -> true);
+	}
+}
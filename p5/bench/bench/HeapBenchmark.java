@@ -0,0 +1,186 @@
+package bench;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import a4.PriorityQueue;
+import a4.PriorityQueues;
+
+/** Benchmarks for the PriorityQueue operations at sizes from 1e3 to 1e7.
+ *
+ * build() times adding size elements to an empty queue, so its score is per
+ * whole build. The other benchmarks run one operation against a queue that
+ * is kept at size elements:
+ * <ul>
+ * <li>peek() reads the minimum;</li>
+ * <li>pollAdd() polls the minimum and adds it back, as Dijkstra does;</li>
+ * <li>changePriority() changes the priority of the next element in turn.</li>
+ * </ul>
+ *
+ * The order parameter picks the priorities: RANDOM draws them uniformly,
+ * ASCENDING gives every new priority a larger value than the ones before it
+ * (the monotone pattern of Dijkstra), and ADVERSARIAL gives every new
+ * priority a smaller value, so each add or change sifts all the way to the
+ * root.
+ *
+ * pollAdd() and changePriority() walk a cursor round the elements. Each time
+ * it wraps, a lap counter shifts the priorities they use by step (modulo size
+ * for RANDOM), so no call gives an element the priority it already has.
+ * Because of that shift, priorities are boxed in the call; the cost is the
+ * same for every queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class HeapBenchmark {
+	/** How priorities are generated. */
+	public enum Order {
+		RANDOM, ASCENDING, ADVERSARIAL
+	}
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	int size;
+
+	@Param({"RANDOM", "ASCENDING", "ADVERSARIAL"})
+	Order order;
+
+	/** The queue implementation; see create(). */
+	@Param({"heap", "int", "dary4", "dary8", "pairing"})
+	String queue;
+
+	Integer[] elements; //element i is Integer i
+	Integer[] priorities; //initial priority of element i
+	int[] readds; //priority used by the i-th pollAdd of the first lap
+	int[] changes; //priority used by the i-th changePriority of the first lap
+	int step; //how far a lap shifts the priorities
+	PriorityQueue<Integer,Integer> full;
+	int cursor;
+	int lap;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		Random r = new Random(42);
+		elements = new Integer[size];
+		priorities = new Integer[size];
+		readds = new int[size];
+		changes = new int[size];
+		for(int i = 0; i < size; i++) {
+			elements[i] = i;
+			switch(order) {
+			case RANDOM:
+				priorities[i] = r.nextInt(size);
+				readds[i] = r.nextInt(size);
+				changes[i] = r.nextInt(size);
+				break;
+			case ASCENDING:
+				priorities[i] = i;
+				readds[i] = size + i;
+				changes[i] = 2 * size + i;
+				break;
+			case ADVERSARIAL:
+				priorities[i] = size - i;
+				readds[i] = -i;
+				changes[i] = -size - i;
+				break;
+			}
+		}
+		switch(order) {
+		case RANDOM:
+			step = size / 2 + 1; //nonzero modulo size, and a shifted uniform draw is still uniform
+			break;
+		case ASCENDING:
+			step = size;
+			break;
+		case ADVERSARIAL:
+			step = -size;
+			break;
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void fill() {
+		full = create();
+		for(int i = 0; i < size; i++) {
+			full.add(elements[i], priorities[i]);
+		}
+		cursor = 0;
+		lap = 0;
+	}
+
+	/** Returns the priority at the cursor in base, shifted for the current
+	 * lap, and advances the cursor. */
+	int next(int[] base) {
+		int p = base[cursor] + lap * step;
+		if(order == Order.RANDOM) {
+			p %= size;
+		}
+		cursor++;
+		if(cursor == size) {
+			cursor = 0;
+			lap++;
+		}
+		return p;
+	}
+
+	/** Returns an empty queue of the kind named by the queue parameter. */
+	PriorityQueue<Integer,Integer> create() {
+		switch(queue) {
+		case "heap":
+			return PriorityQueues.binaryHeap(Comparator.<Integer>naturalOrder());
+		case "int":
+			return PriorityQueues.intHeap();
+		case "dary4":
+			return PriorityQueues.dAryHeap(4, Comparator.<Integer>naturalOrder());
+		case "dary8":
+			return PriorityQueues.dAryHeap(8, Comparator.<Integer>naturalOrder());
+		case "pairing":
+			return PriorityQueues.pairingHeap(Comparator.<Integer>naturalOrder());
+		default:
+			throw new IllegalArgumentException(queue);
+		}
+	}
+
+	@Benchmark
+	public PriorityQueue<Integer,Integer> build() {
+		PriorityQueue<Integer,Integer> q = create();
+		for(int i = 0; i < size; i++) {
+			q.add(elements[i], priorities[i]);
+		}
+		return q;
+	}
+
+	@Benchmark
+	public Integer peek() {
+		return full.peek();
+	}
+
+	@Benchmark
+	public Integer pollAdd() {
+		Integer e = full.poll();
+		full.add(e, next(readds));
+		return e;
+	}
+
+	@Benchmark
+	public void changePriority() {
+		Integer e = elements[cursor];
+		full.changePriority(e, next(changes));
+	}
+}
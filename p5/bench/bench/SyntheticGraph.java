@@ -0,0 +1,176 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import graph.LabeledEdge;
+import graph.Node;
+
+/** Synthetic weighted graphs for the benchmarks.
+ *
+ * Vertex and Arc are minimal implementations of graph.Node and
+ * graph.LabeledEdge; every generator is seeded so runs are repeatable.
+ */
+public class SyntheticGraph {
+	/** The largest edge weight any generator makes; weights are in 1..MAX_WEIGHT. */
+	public static final int MAX_WEIGHT = 100;
+
+	/** The shapes of graph the benchmarks can generate. */
+	public enum Shape {
+		/** A square 4-neighbour grid with edges in both directions. */
+		GRID,
+		/** Every node has 4 out-edges to uniformly random nodes. */
+		RANDOM_SPARSE,
+		/** Barabasi-Albert preferential attachment, 3 undirected edges per new node. */
+		SCALE_FREE
+	}
+
+	/** The nodes of the graph, in generation order. */
+	public final List<Vertex> nodes;
+
+	private SyntheticGraph(List<Vertex> nodes) {
+		this.nodes = nodes;
+	}
+
+	/** Returns the node searches start from. */
+	public Vertex source() {
+		return nodes.get(0);
+	}
+
+	/** Returns a node far from source() to search for: the opposite corner
+	 * of a grid, or the last generated node otherwise. */
+	public Vertex target() {
+		return nodes.get(nodes.size() - 1);
+	}
+
+	/** Generates a graph of the given shape with about n nodes and edge
+	 * weights in 1..MAX_WEIGHT.
+	 */
+	public static SyntheticGraph generate(Shape shape, int n, long seed) {
+		Random r = new Random(seed);
+		List<Vertex> nodes = new ArrayList<Vertex>(n);
+		switch(shape) {
+		case GRID:
+			int side = (int) Math.ceil(Math.sqrt(n));
+			for(int i = 0; i < side * side; i++) {
+				nodes.add(new Vertex(i));
+			}
+			for(int y = 0; y < side; y++) {
+				for(int x = 0; x < side; x++) {
+					Vertex v = nodes.get(y * side + x);
+					if(x + 1 < side) {
+						connect(v, nodes.get(y * side + x + 1), 1 + r.nextInt(MAX_WEIGHT));
+					}
+					if(y + 1 < side) {
+						connect(v, nodes.get((y + 1) * side + x), 1 + r.nextInt(MAX_WEIGHT));
+					}
+				}
+			}
+			break;
+		case RANDOM_SPARSE:
+			for(int i = 0; i < n; i++) {
+				nodes.add(new Vertex(i));
+			}
+			for(Vertex v : nodes) {
+				for(int k = 0; k < 4; k++) {
+					Vertex w = nodes.get(r.nextInt(n));
+					if(w != v) {
+						v.link(w, 1 + r.nextInt(MAX_WEIGHT));
+					}
+				}
+			}
+			break;
+		case SCALE_FREE:
+			int m = 3;
+			//every edge endpoint is recorded once, so a uniform pick is degree-proportional
+			int[] endpoints = new int[2 * m * n];
+			int ends = 0;
+			for(int i = 0; i <= m; i++) {
+				nodes.add(new Vertex(i));
+			}
+			for(int i = 0; i <= m; i++) {
+				for(int j = i + 1; j <= m; j++) {
+					connect(nodes.get(i), nodes.get(j), 1 + r.nextInt(MAX_WEIGHT));
+					endpoints[ends++] = i;
+					endpoints[ends++] = j;
+				}
+			}
+			for(int i = m + 1; i < n; i++) {
+				Vertex v = new Vertex(i);
+				nodes.add(v);
+				for(int k = 0; k < m; k++) {
+					int j = endpoints[r.nextInt(ends)];
+					if(!v.out.containsKey(nodes.get(j))) {
+						connect(v, nodes.get(j), 1 + r.nextInt(MAX_WEIGHT));
+						endpoints[ends++] = i;
+						endpoints[ends++] = j;
+					}
+				}
+			}
+			break;
+		}
+		return new SyntheticGraph(nodes);
+	}
+
+	/** Adds edges a->b and b->a with weight w. */
+	private static void connect(Vertex a, Vertex b, int w) {
+		a.link(b, w);
+		b.link(a, w);
+	}
+
+	/** A graph node identified by its generation index. */
+	public static class Vertex implements Node<Vertex,Arc> {
+		final int id;
+		final Map<Vertex,Arc> out = new LinkedHashMap<Vertex,Arc>();
+
+		Vertex(int id) {
+			this.id = id;
+		}
+
+		/** Adds (or replaces) the edge from this to target. */
+		void link(Vertex target, int weight) {
+			out.put(target, new Arc(this, target, weight));
+		}
+
+		@Override
+		public Map<Vertex,? extends Arc> outgoing() {
+			return out;
+		}
+
+		@Override
+		public String toString() {
+			return "v" + id;
+		}
+	}
+
+	/** A directed edge weighted by an Integer label. */
+	public static class Arc implements LabeledEdge<Vertex,Arc,Integer> {
+		final Vertex source;
+		final Vertex target;
+		final Integer weight;
+
+		Arc(Vertex source, Vertex target, int weight) {
+			this.source = source;
+			this.target = target;
+			this.weight = weight;
+		}
+
+		@Override
+		public Vertex source() {
+			return source;
+		}
+
+		@Override
+		public Vertex target() {
+			return target;
+		}
+
+		@Override
+		public Integer label() {
+			return weight;
+		}
+	}
+}
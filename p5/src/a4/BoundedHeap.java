@@ -0,0 +1,324 @@
+package a4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A binary min-heap that holds at most capacity elements, for keeping the
+ * best capacity elements of a stream (top-k).
+ *
+ * The root is the element with the smallest priority, which is the worst of
+ * the ones kept. Once the heap is full, offer compares a new element with
+ * the root: if its priority is not larger, it is rejected; otherwise the
+ * root is evicted, handed to the eviction callback, and the new element
+ * takes its place and sifts down, in O(log capacity) time.
+ *
+ * Elements and priorities are kept in parallel arrays and each element's
+ * slot in an OpenHeapIndex, all sized to capacity up front, so once the heap
+ * is built, offer, poll and changePriority do not allocate.
+ */
+public class BoundedHeap<E,P> implements a4.PriorityQueue<E,P> {
+	private final Comparator<? super P> c;
+	private final BiConsumer<? super E, ? super P> onEvict;
+	private final Object[] elements;
+	private final Object[] priorities;
+	private int size;
+	private final OpenHeapIndex<E> index;
+
+	/** Constructor creates an empty heap with given capacity and comparator
+	 * that drops evicted elements silently.
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1 or above
+	 *                                  2^29.
+	 */
+	public BoundedHeap(int capacity, Comparator<? super P> c) throws IllegalArgumentException {
+		this(capacity, c, (e, p) -> {});
+	}
+
+	/** Constructor creates an empty heap with given capacity and comparator.
+	 *
+	 * @param capacity The most elements the heap holds.
+	 * @param c The comparator given to the heap; smaller priorities are worse.
+	 * @param onEvict Called with each element, and its priority, that offer
+	 *                evicts to make room.
+	 * @throws IllegalArgumentException if capacity is less than 1 or above
+	 *                                  2^29, the most an OpenHeapIndex holds.
+	 */
+	public BoundedHeap(int capacity, Comparator<? super P> c, BiConsumer<? super E, ? super P> onEvict)
+			throws IllegalArgumentException {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		}
+		this.c = c;
+		this.onEvict = onEvict;
+		index = new OpenHeapIndex<E>(capacity); //first, so a bad capacity fails before the arrays are allocated
+		elements = new Object[capacity];
+		priorities = new Object[capacity];
+	}
+
+	/** Returns the most elements this heap holds. */
+	public int capacity() {
+		return elements.length;
+	}
+
+	/** Returns true if the heap holds capacity() elements, so that offer
+	 * must reject or evict. */
+	public boolean isFull() {
+		return size == elements.length;
+	}
+
+	/** Returns the comparator used for ordering priorities. */
+	@Override
+	public Comparator<? super P> comparator() {
+		return c;
+	}
+
+	/** Returns the number of elements in this heap. Runs in O(1) time. */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if the heap contains e. Runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return index.contains(e);
+	}
+
+	/** Removes and returns the element with the smallest priority, the worst
+	 * one kept. Runs in O(log n) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() throws NoSuchElementException {
+		E root = peek();
+		index.remove(root);
+		size--;
+		Object last = elements[size];
+		Object lastPriority = priorities[size];
+		elements[size] = null;
+		priorities[size] = null;
+		if(size > 0) {
+			siftDown(0, last, (P) lastPriority);
+		}
+		return root;
+	}
+
+	/** Returns the element with the smallest priority. Runs in O(1) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() throws NoSuchElementException {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+		return (E) elements[0];
+	}
+
+	/** Returns the smallest priority in the heap, the bar a new element must
+	 * clear once the heap is full. Runs in O(1) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public P peekPriority() throws NoSuchElementException {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+		return (P) priorities[0];
+	}
+
+	/** Offers e with priority p, like offer(e, p), without reporting whether
+	 * it was kept.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals())
+	 */
+	@Override
+	public void add(E e, P p) throws IllegalArgumentException {
+		offer(e, p);
+	}
+
+	/** Adds e with priority p if there is room, or if p is larger than the
+	 * smallest priority in the full heap, whose element is then evicted.
+	 * Runs in O(log n) time.
+	 *
+	 * @return true if e was added, false if it was rejected.
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals())
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean offer(E e, P p) throws IllegalArgumentException {
+		if(index.contains(e)) {
+			throw new IllegalArgumentException();
+		}
+		if(size < elements.length) {
+			size++;
+			siftUp(size - 1, e, p);
+			return true;
+		}
+		if(c.compare(p, (P) priorities[0]) <= 0) {
+			return false; //no better than the worst one kept
+		}
+		E evicted = (E) elements[0];
+		P evictedPriority = (P) priorities[0];
+		index.remove(evicted);
+		siftDown(0, e, p);
+		onEvict.accept(evicted, evictedPriority);
+		return true;
+	}
+
+	/** Changes the priority of e to p. Runs in O(log n) time.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void changePriority(E e, P p) throws NoSuchElementException {
+		int i = index.get(e);
+		if(i < 0) {
+			throw new NoSuchElementException();
+		}
+		if(c.compare(p, (P) priorities[i]) < 0) {
+			siftUp(i, e, p);
+		} else {
+			siftDown(i, e, p);
+		}
+	}
+
+	/** Removes every element and returns them best first, that is from the
+	 * largest priority to the smallest. Runs in O(n log n) time in n, the
+	 * size of the heap, not the length of the stream it was fed. */
+	public List<E> drainBestFirst() {
+		ArrayList<E> result = new ArrayList<E>(size);
+		while(size > 0) {
+			result.add(poll());
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	/** Places e with priority p at slot i or above, shifting larger parents
+	 * down into the hole.
+	 */
+	@SuppressWarnings("unchecked")
+	private void siftUp(int i, Object e, P p) {
+		while(i > 0) {
+			int parent = (i - 1) / 2;
+			if(c.compare((P) priorities[parent], p) <= 0) {
+				break;
+			}
+			set(i, elements[parent], priorities[parent]);
+			i = parent;
+		}
+		set(i, e, p);
+	}
+
+	/** Places e with priority p at slot i or below, shifting smaller children
+	 * up into the hole.
+	 */
+	@SuppressWarnings("unchecked")
+	private void siftDown(int i, Object e, P p) {
+		int half = size / 2; //slots from half on are leaves
+		while(i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if(right < size && c.compare((P) priorities[right], (P) priorities[child]) < 0) {
+				child = right;
+			}
+			if(c.compare(p, (P) priorities[child]) <= 0) {
+				break;
+			}
+			set(i, elements[child], priorities[child]);
+			i = child;
+		}
+		set(i, e, p);
+	}
+
+	/** Stores e with priority p at slot i and records the slot in the index. */
+	private void set(int i, Object e, Object p) {
+		elements[i] = e;
+		priorities[i] = p;
+		index.put(e, i);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Glass box tests for BoundedHeap. */
+	public static class Tests {
+
+		/** Asserts that the heap satisfies its invariants. */
+		@SuppressWarnings("unchecked")
+		private static void assertInvariants(BoundedHeap<?,Integer> h) {
+			assertEquals(h.size, h.index.size());
+			assertTrue(h.size <= h.elements.length);
+			for(int i = 0; i < h.size; i++) {
+				assertEquals(h.index.get(h.elements[i]), i);
+				if(i > 0) {
+					assertTrue((Integer) h.priorities[(i - 1) / 2] <= (Integer) h.priorities[i]);
+				}
+			}
+		}
+
+		@Test
+		public void testOfferAndEvict() {
+			List<String> evicted = new ArrayList<String>();
+			BoundedHeap<String,Integer> h = new BoundedHeap<String,Integer>(3, Comparator.naturalOrder(),
+					(e, p) -> evicted.add(e + p));
+			assertThrows(IllegalArgumentException.class, () -> {new BoundedHeap<String,Integer>(0, Comparator.naturalOrder());});
+			assertThrows(NoSuchElementException.class, () -> {h.peek();});
+			assertTrue(h.offer("Mike", 5));
+			assertTrue(h.offer("Joe", 3));
+			h.add("Carl", 8);
+			assertTrue(h.isFull());
+			assertThrows(IllegalArgumentException.class, () -> {h.offer("Joe", 9);});
+			assertFalse(h.offer("Bob", 2));
+			assertFalse(h.offer("Bob", 3)); //ties with the worst are rejected
+			assertTrue(evicted.isEmpty());
+			assertTrue(h.offer("Grant", 6));
+			assertEquals(evicted, java.util.Arrays.asList("Joe3"));
+			assertFalse(h.contains("Joe"));
+			assertInvariants(h);
+			assertEquals(h.peek(), "Mike");
+			assertEquals(h.peekPriority(), (Integer) 5);
+			h.changePriority("Carl", 1);
+			assertTrue(h.offer("Ron", 7));
+			assertEquals(evicted, java.util.Arrays.asList("Joe3", "Carl1"));
+			assertInvariants(h);
+			assertEquals(h.drainBestFirst(), java.util.Arrays.asList("Ron", "Grant", "Mike"));
+			assertEquals(h.size(), 0);
+		}
+
+		@Test
+		public void testTopK() {
+			java.util.Random r = new java.util.Random(11);
+			int k = 100;
+			int n = 20000;
+			BoundedHeap<Integer,Integer> h = new BoundedHeap<Integer,Integer>(k, Comparator.naturalOrder());
+			int[] priority = new int[n];
+			List<Integer> all = new ArrayList<Integer>();
+			for(int i = 0; i < n; i++) {
+				priority[i] = r.nextInt(1000000);
+				all.add(priority[i]);
+				h.offer(i, priority[i]);
+				if(i % 1000 == 0) {
+					assertInvariants(h);
+				}
+			}
+			all.sort(Comparator.reverseOrder());
+			List<Integer> top = h.drainBestFirst();
+			assertEquals(top.size(), k);
+			for(int i = 0; i < k; i++) {
+				assertEquals(priority[top.get(i)], (int) all.get(i));
+			}
+		}
+	}
+}
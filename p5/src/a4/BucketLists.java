@@ -0,0 +1,114 @@
+package a4;
+
+import java.util.Arrays;
+
+/** Doubly linked lists of (element, priority) entries, one list per bucket,
+ * for the bucket-based queues.
+ *
+ * Entries live in slots of parallel arrays and are linked by slot number,
+ * with freed slots kept on a free list, so linking, unlinking and moving an
+ * entry between buckets do not allocate. Each element's slot is tracked by
+ * an OpenHeapIndex. -1 marks the end of a list.
+ */
+class BucketLists<E> {
+	Object[] elements;
+	int[] priorities;
+	int[] next;
+	int[] prev;
+	int[] bucket; //bucket each slot is linked into
+	final int[] heads; //first slot of each bucket, or -1
+	int size;
+	private int used; //slots ever handed out
+	private int free = -1; //first slot of the free list, linked by next
+	private final OpenHeapIndex<E> index;
+
+	/** Constructor creates empty lists for the given number of buckets, able
+	 * to hold capacity entries before any array needs to grow.
+	 */
+	BucketLists(int buckets, int capacity) {
+		capacity = Math.max(capacity, 1);
+		heads = new int[buckets];
+		Arrays.fill(heads, -1);
+		elements = new Object[capacity];
+		priorities = new int[capacity];
+		next = new int[capacity];
+		prev = new int[capacity];
+		bucket = new int[capacity];
+		index = new OpenHeapIndex<E>(capacity);
+	}
+
+	/** Returns the slot of e, or -1 if e is not in any list. */
+	int slot(Object e) {
+		return index.get(e);
+	}
+
+	/** Links e with priority p into bucket b.
+	 *
+	 * @throws IllegalArgumentException if e is already in a list.
+	 */
+	void insert(E e, int p, int b) throws IllegalArgumentException {
+		if(index.contains(e)) {
+			throw new IllegalArgumentException();
+		}
+		int s = free;
+		if(s >= 0) {
+			free = next[s];
+		} else {
+			if(used == elements.length) {
+				int n = used * 2;
+				elements = Arrays.copyOf(elements, n);
+				priorities = Arrays.copyOf(priorities, n);
+				next = Arrays.copyOf(next, n);
+				prev = Arrays.copyOf(prev, n);
+				bucket = Arrays.copyOf(bucket, n);
+			}
+			s = used++;
+		}
+		elements[s] = e;
+		priorities[s] = p;
+		index.put(e, s);
+		link(s, b);
+		size++;
+	}
+
+	/** Gives slot s priority p and moves it to bucket b. */
+	void move(int s, int p, int b) {
+		unlink(s);
+		priorities[s] = p;
+		link(s, b);
+	}
+
+	/** Unlinks slot s, forgets its element and frees the slot. */
+	void remove(int s) {
+		unlink(s);
+		index.remove(elements[s]);
+		elements[s] = null;
+		next[s] = free;
+		free = s;
+		size--;
+	}
+
+	/** Links slot s at the front of bucket b. */
+	void link(int s, int b) {
+		int h = heads[b];
+		bucket[s] = b;
+		prev[s] = -1;
+		next[s] = h;
+		if(h >= 0) {
+			prev[h] = s;
+		}
+		heads[b] = s;
+	}
+
+	/** Unlinks slot s from its bucket. */
+	void unlink(int s) {
+		if(prev[s] >= 0) {
+			next[prev[s]] = next[s];
+		} else {
+			heads[bucket[s]] = next[s];
+		}
+		if(next[s] >= 0) {
+			prev[next[s]] = prev[s];
+		}
+	}
+}
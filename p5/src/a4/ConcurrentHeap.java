@@ -0,0 +1,237 @@
+package a4;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A thread-safe, lock-free min-priority queue for many producers and
+ * consumers.
+ *
+ * Entries (element, priority, sequence number) are kept in a concurrent
+ * skip list ordered by priority, then by sequence number, and a concurrent
+ * hash map points each element at its current entry. The map is what
+ * decides membership: add claims an element with putIfAbsent, and
+ * changePriority swaps in a new entry with replace before putting it in the
+ * skip list and taking the old one out. An entry the map no longer points
+ * to is stale; poll and peek skip and discard stale entries, so a poll
+ * succeeds only for the thread whose map.remove(e, entry) wins.
+ *
+ * Every operation is atomic, but poll and peek are only weakly ordered with
+ * respect to concurrent writers: an element whose add or changePriority has
+ * not yet returned may not be seen yet. size() counts claimed elements.
+ */
+public class ConcurrentHeap<E,P> implements a4.PriorityQueue<E,P> {
+	private final Comparator<? super P> c;
+	private final ConcurrentSkipListSet<Entry<E,P>> entries;
+	private final ConcurrentHashMap<E,Entry<E,P>> map = new ConcurrentHashMap<E,Entry<E,P>>(); //current entry of each element
+	private final AtomicLong sequence = new AtomicLong(); //breaks ties between equal priorities
+
+	/** Constructor creates an empty heap with given comparator.
+	 *
+	 * @param c The comparator given to the heap.
+	 */
+	public ConcurrentHeap(Comparator<? super P> c) {
+		this.c = c;
+		entries = new ConcurrentSkipListSet<Entry<E,P>>((x, y) -> {
+			int cmp = c.compare(x.priority, y.priority);
+			return cmp != 0 ? cmp : Long.compare(x.seq, y.seq);
+		});
+	}
+
+	/** Returns the comparator used for ordering priorities. */
+	@Override
+	public Comparator<? super P> comparator() {
+		return c;
+	}
+
+	/** Returns the number of elements in this heap. Runs in O(1) expected time. */
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	/** Returns true if the heap contains e. Runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return map.containsKey(e);
+	}
+
+	/** Removes and returns the element with the smallest priority.
+	 * Runs in O(log n) expected time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	public E poll() throws NoSuchElementException {
+		while(true) {
+			Entry<E,P> first = entries.pollFirst();
+			if(first == null) {
+				throw new NoSuchElementException();
+			}
+			if(map.remove(first.element, first)) {
+				return first.element;
+			}
+			//stale: e was polled by another thread or its priority changed
+		}
+	}
+
+	/** Returns the element with the smallest priority.
+	 * Runs in O(1) expected time when there are no stale entries.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	public E peek() throws NoSuchElementException {
+		while(true) {
+			Entry<E,P> first = entries.first(); //throws if empty
+			if(map.get(first.element) == first) {
+				return first.element;
+			}
+			entries.remove(first);
+		}
+	}
+
+	/** Adds element e with priority p. Runs in O(log n) expected time.
+	 *
+	 * @throws IllegalArgumentException if e is already in the heap.
+	 */
+	@Override
+	public void add(E e, P p) throws IllegalArgumentException {
+		Entry<E,P> entry = new Entry<E,P>(e, p, sequence.getAndIncrement());
+		if(map.putIfAbsent(e, entry) != null) {
+			throw new IllegalArgumentException();
+		}
+		entries.add(entry);
+	}
+
+	/** Changes the priority of e to p. Runs in O(log n) expected time.
+	 *
+	 * @throws NoSuchElementException if e is not in the heap.
+	 */
+	@Override
+	public void changePriority(E e, P p) throws NoSuchElementException {
+		Entry<E,P> entry = new Entry<E,P>(e, p, sequence.getAndIncrement());
+		while(true) {
+			Entry<E,P> old = map.get(e);
+			if(old == null) {
+				throw new NoSuchElementException();
+			}
+			if(map.replace(e, old, entry)) {
+				entries.add(entry);
+				entries.remove(old);
+				return;
+			}
+		}
+	}
+
+	/** An element with its priority. Entries are compared by identity, so a
+	 * replaced entry never equals its replacement. */
+	private static class Entry<E,P> {
+		final E element;
+		final P priority;
+		final long seq;
+
+		Entry(E element, P priority, long seq) {
+			this.element = element;
+			this.priority = priority;
+			this.seq = seq;
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for ConcurrentHeap. */
+	public static class Tests {
+
+		@Test
+		public void testPollOrder() {
+			ConcurrentHeap<String,Integer> h = new ConcurrentHeap<String,Integer>(Comparator.naturalOrder());
+			assertThrows(NoSuchElementException.class, () -> {h.poll();});
+			assertThrows(NoSuchElementException.class, () -> {h.peek();});
+			h.add("Mike", 1);
+			h.add("Joe", 3);
+			h.add("Carl", -3);
+			h.add("Bob", 7);
+			h.add("Ron", 2);
+			assertThrows(IllegalArgumentException.class, () -> {h.add("Ron", 5);});
+			assertThrows(NoSuchElementException.class, () -> {h.changePriority("Grant", 5);});
+			h.changePriority("Bob", 0);
+			h.changePriority("Carl", 4);
+			assertEquals(h.size(), 5);
+			assertTrue(h.contains("Carl"));
+			assertEquals(h.peek(), "Bob");
+			assertEquals(h.poll(), "Bob");
+			assertEquals(h.poll(), "Mike");
+			assertEquals(h.poll(), "Ron");
+			assertEquals(h.poll(), "Joe");
+			assertEquals(h.poll(), "Carl");
+			assertEquals(h.size(), 0);
+			assertFalse(h.contains("Carl"));
+		}
+
+		/** Several threads add, reprioritize and poll disjoint and shared
+		 * elements at once; every element added must be polled exactly once. */
+		@Test
+		public void testContention() throws InterruptedException {
+			int threads = 8;
+			int perThread = 20000;
+			ConcurrentHeap<Integer,Integer> h = new ConcurrentHeap<Integer,Integer>(Comparator.naturalOrder());
+			AtomicIntegerArray polled = new AtomicIntegerArray(threads * perThread);
+			List<Thread> workers = new ArrayList<Thread>();
+			List<Throwable> failures = new ArrayList<Throwable>();
+			for(int t = 0; t < threads; t++) {
+				int first = t * perThread;
+				Thread w = new Thread(() -> {
+					java.util.Random r = new java.util.Random(first);
+					for(int i = first; i < first + perThread; i++) {
+						h.add(i, r.nextInt(1000));
+						//reprioritize some element, possibly another thread's
+						int other = r.nextInt(i + 1);
+						try {
+							h.changePriority(other, r.nextInt(1000));
+						} catch(NoSuchElementException e) {
+							//already polled
+						}
+						if(r.nextBoolean()) {
+							try {
+								polled.incrementAndGet(h.poll());
+							} catch(NoSuchElementException e) {
+								//momentarily empty
+							}
+						}
+					}
+				});
+				w.setUncaughtExceptionHandler((thread, e) -> {
+					synchronized(failures) {
+						failures.add(e);
+					}
+				});
+				workers.add(w);
+				w.start();
+			}
+			for(Thread w : workers) {
+				w.join();
+			}
+			assertTrue(failures.isEmpty(), failures.toString());
+
+			int last = Integer.MIN_VALUE;
+			while(h.size() > 0) {
+				Integer e = h.peek();
+				int p = h.map.get(e).priority;
+				assertTrue(last <= p);
+				last = p;
+				assertEquals(h.poll(), e);
+				polled.incrementAndGet(e);
+			}
+			for(int i = 0; i < polled.length(); i++) {
+				assertEquals(polled.get(i), 1, "element " + i);
+			}
+		}
+	}
+}
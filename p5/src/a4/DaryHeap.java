@@ -0,0 +1,256 @@
+package a4;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A d-ary min-heap: every node has up to d children instead of 2.
+ *
+ * A wider node makes the heap shallower (log_d n levels), so add and
+ * changePriority, which only sift up, do fewer steps; poll does more
+ * comparisons per level but the d children sit next to each other in the
+ * array. Elements and priorities are kept in parallel arrays and each
+ * element's slot is tracked by an OpenHeapIndex.
+ */
+public class DaryHeap<E,P> implements a4.PriorityQueue<E,P> {
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private final int d;
+	private final Comparator<? super P> c;
+	private Object[] elements;
+	private Object[] priorities;
+	private int size;
+	private OpenHeapIndex<E> index;
+
+	/** Constructor creates an empty d-ary heap with given comparator.
+	 *
+	 * @param d The number of children per node; must be at least 2.
+	 * @param c The comparator given to the heap.
+	 * @throws IllegalArgumentException if d is less than 2.
+	 */
+	public DaryHeap(int d, Comparator<? super P> c) throws IllegalArgumentException {
+		if(d < 2) {
+			throw new IllegalArgumentException("arity must be at least 2: " + d);
+		}
+		this.d = d;
+		this.c = c;
+		elements = new Object[DEFAULT_CAPACITY];
+		priorities = new Object[DEFAULT_CAPACITY];
+		index = new OpenHeapIndex<E>(DEFAULT_CAPACITY);
+	}
+
+	/** Returns the number of children per node. */
+	public int arity() {
+		return d;
+	}
+
+	/** Returns the comparator used for ordering priorities. */
+	@Override
+	public Comparator<? super P> comparator() {
+		return c;
+	}
+
+	/** Returns the number of elements in this heap. Runs in O(1) time. */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if the heap contains e. Runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return index.contains(e);
+	}
+
+	/** Removes and returns the element with the smallest priority.
+	 * Runs in O(d log_d n) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() throws NoSuchElementException {
+		E root = peek();
+		index.remove(root);
+		size--;
+		Object last = elements[size];
+		Object lastPriority = priorities[size];
+		elements[size] = null;
+		priorities[size] = null;
+		if(size > 0) {
+			siftDown(0, last, (P) lastPriority);
+		}
+		return root;
+	}
+
+	/** Returns the element with the smallest priority. Runs in O(1) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() throws NoSuchElementException {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+		return (E) elements[0];
+	}
+
+	/** Adds the element e with priority p to the heap. Runs in O(log_d n) time.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals())
+	 */
+	@Override
+	public void add(E e, P p) throws IllegalArgumentException {
+		if(index.contains(e)) {
+			throw new IllegalArgumentException();
+		}
+		if(size == elements.length) {
+			elements = Arrays.copyOf(elements, size * 2);
+			priorities = Arrays.copyOf(priorities, size * 2);
+		}
+		size++;
+		siftUp(size - 1, e, p);
+	}
+
+	/** Changes the priority of e to p. Runs in O(log_d n) time if p is
+	 * smaller than the old priority, O(d log_d n) otherwise.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void changePriority(E e, P p) throws NoSuchElementException {
+		int i = index.get(e);
+		if(i < 0) {
+			throw new NoSuchElementException();
+		}
+		if(c.compare(p, (P) priorities[i]) < 0) {
+			siftUp(i, e, p);
+		} else {
+			siftDown(i, e, p);
+		}
+	}
+
+	/** Places e with priority p at slot i or above, shifting larger ancestors
+	 * down into the hole.
+	 */
+	@SuppressWarnings("unchecked")
+	private void siftUp(int i, Object e, P p) {
+		while(i > 0) {
+			int parent = (i - 1) / d;
+			if(c.compare((P) priorities[parent], p) <= 0) {
+				break;
+			}
+			set(i, elements[parent], priorities[parent]);
+			i = parent;
+		}
+		set(i, e, p);
+	}
+
+	/** Places e with priority p at slot i or below, shifting the smallest
+	 * child up into the hole.
+	 */
+	@SuppressWarnings("unchecked")
+	private void siftDown(int i, Object e, P p) {
+		while(true) {
+			int first = d * i + 1;
+			if(first >= size) {
+				break;
+			}
+			int end = Math.min(first + d, size);
+			int child = first;
+			for(int k = first + 1; k < end; k++) {
+				if(c.compare((P) priorities[k], (P) priorities[child]) < 0) {
+					child = k;
+				}
+			}
+			if(c.compare(p, (P) priorities[child]) <= 0) {
+				break;
+			}
+			set(i, elements[child], priorities[child]);
+			i = child;
+		}
+		set(i, e, p);
+	}
+
+	/** Stores e with priority p at slot i and records the slot in the index. */
+	private void set(int i, Object e, Object p) {
+		elements[i] = e;
+		priorities[i] = p;
+		index.put(e, i);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Glass box tests for DaryHeap. */
+	public static class Tests {
+
+		/** Asserts that the heap satisfies its invariants. */
+		@SuppressWarnings("unchecked")
+		private static void assertInvariants(DaryHeap<?,Integer> h) {
+			assertEquals(h.size, h.index.size());
+			for(int i = 0; i < h.size; i++) {
+				assertEquals(h.index.get(h.elements[i]), i);
+				if(i > 0) {
+					int parent = (i - 1) / h.d;
+					assertTrue((Integer) h.priorities[parent] <= (Integer) h.priorities[i]);
+				}
+			}
+		}
+
+		@Test
+		public void testArity() {
+			assertThrows(IllegalArgumentException.class, () -> {new DaryHeap<String,Integer>(1, Comparator.naturalOrder());});
+			assertEquals(new DaryHeap<String,Integer>(4, Comparator.naturalOrder()).arity(), 4);
+		}
+
+		@Test
+		public void testPollOrder() {
+			for(int d : new int[] {2, 4, 8}) {
+				DaryHeap<String,Integer> h = new DaryHeap<String,Integer>(d, Comparator.naturalOrder());
+				assertThrows(NoSuchElementException.class, () -> {h.poll();});
+				h.add("Mike", 1);
+				h.add("Joe", 3);
+				h.add("Carl", -3);
+				h.add("Bob", 7);
+				h.add("Grant", 12);
+				h.add("Ron", 2);
+				assertThrows(IllegalArgumentException.class, () -> {h.add("Ron", 5);});
+				assertInvariants(h);
+				assertEquals(h.peek(), "Carl");
+				assertEquals(h.poll(), "Carl");
+				assertEquals(h.poll(), "Mike");
+				assertEquals(h.poll(), "Ron");
+				assertEquals(h.poll(), "Joe");
+				assertEquals(h.poll(), "Bob");
+				assertEquals(h.poll(), "Grant");
+				assertEquals(h.size(), 0);
+			}
+		}
+
+		@Test
+		public void testChangePriority() {
+			for(int d : new int[] {2, 4, 8}) {
+				DaryHeap<Integer,Integer> h = new DaryHeap<Integer,Integer>(d, Comparator.naturalOrder());
+				for(int i = 0; i < 500; i++) {
+					h.add(i, (i * 7919) % 500);
+				}
+				assertThrows(NoSuchElementException.class, () -> {h.changePriority(500, 0);});
+				for(int i = 0; i < 500; i += 2) {
+					h.changePriority(i, (i % 4 == 0) ? -i : 1000 + i);
+				}
+				assertInvariants(h);
+				int last = Integer.MIN_VALUE;
+				while(h.size() > 0) {
+					int p = (Integer) h.priorities[0];
+					assertTrue(last <= p);
+					last = p;
+					h.poll();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package a4;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A monotone min-queue of int priorities for Dijkstra's algorithm over
+ * integer edge weights in 0..maxWeight (Dial's algorithm).
+ *
+ * Let base be the priority of the element polled last (0 before the first
+ * poll). Every priority in the queue lies in base..base+maxWeight, so a
+ * circular array of maxWeight+1 buckets, one per priority, holds them all:
+ * priority p goes to bucket p % (maxWeight+1). add and changePriority just
+ * link the element into its bucket, and poll walks forward from base to the
+ * first nonempty bucket. Over a whole Dijkstra search the walk covers each
+ * distance once, so with small weights every operation takes O(1) amortized
+ * time.
+ *
+ * The queue is monotone: a priority below base, or above base+maxWeight,
+ * is rejected with an IllegalArgumentException. Dijkstra never makes either,
+ * since it only adds a distance d+w after polling d. While the queue is
+ * empty, an add above base+maxWeight moves base up to its priority.
+ */
+public class DialQueue<E> implements IntPriorityQueue<E> {
+	/** The largest maxWeight a queue accepts. Its bucket array already takes
+	 * 64 MB; with weights this large a RadixHeap is the better queue. */
+	public static final int MAX_WEIGHT = 1 << 24;
+
+	private final int maxWeight;
+	private final BucketLists<E> lists;
+	private int base; //priority of the last element polled
+	private int scan; //no priority in the queue is below this; base <= scan
+
+	/** Constructor creates an empty queue for priorities that are never more
+	 * than maxWeight above the last one polled.
+	 *
+	 * @throws IllegalArgumentException if maxWeight is negative or above
+	 *                                  MAX_WEIGHT.
+	 */
+	public DialQueue(int maxWeight) throws IllegalArgumentException {
+		if(maxWeight < 0) {
+			throw new IllegalArgumentException("negative weight: " + maxWeight);
+		}
+		if(maxWeight > MAX_WEIGHT) {
+			throw new IllegalArgumentException("weight " + maxWeight + " above MAX_WEIGHT " + MAX_WEIGHT);
+		}
+		this.maxWeight = maxWeight;
+		lists = new BucketLists<E>(maxWeight + 1, 16);
+	}
+
+	/** Returns the natural ordering on Integer; smaller priorities come first. */
+	@Override
+	public Comparator<? super Integer> comparator() {
+		return Comparator.naturalOrder();
+	}
+
+	/** Returns the number of elements in this queue. Runs in O(1) time. */
+	@Override
+	public int size() {
+		return lists.size;
+	}
+
+	/** Returns true if the queue contains e. Runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return lists.slot(e) >= 0;
+	}
+
+	/** Removes and returns an element with the smallest priority. Runs in
+	 * O(1) amortized time when priorities grow by at most maxWeight per poll.
+	 *
+	 * @throws NoSuchElementException if the queue is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() throws NoSuchElementException {
+		int s = first();
+		base = scan;
+		E e = (E) lists.elements[s];
+		lists.remove(s);
+		return e;
+	}
+
+	/** Returns an element with the smallest priority. Runs in O(1) amortized time.
+	 *
+	 * @throws NoSuchElementException if the queue is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() throws NoSuchElementException {
+		return (E) lists.elements[first()];
+	}
+
+	/** Returns the smallest priority in the queue. Runs in O(1) amortized time.
+	 *
+	 * @throws NoSuchElementException if the queue is empty.
+	 */
+	@Override
+	public int peekPriority() throws NoSuchElementException {
+		return lists.priorities[first()];
+	}
+
+	/** Adds the element e with priority p to the queue. Runs in O(1) expected time.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals()),
+	 *                                  or if p is outside base..base+maxWeight
+	 */
+	@Override
+	public void add(E e, Integer p) throws IllegalArgumentException {
+		add(e, p.intValue());
+	}
+
+	/** Adds the element e with priority p to the queue without boxing p.
+	 * Runs in O(1) expected time.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals()),
+	 *                                  or if p is outside base..base+maxWeight
+	 */
+	@Override
+	public void add(E e, int p) throws IllegalArgumentException {
+		if(lists.size == 0 && (long) p > (long) base + maxWeight) {
+			base = p;
+			scan = p;
+		}
+		check(p);
+		lists.insert(e, p, bucket(p));
+		scan = Math.min(scan, p);
+	}
+
+	/** Changes the priority of e to p. Runs in O(1) expected time.
+	 *
+	 * @throws NoSuchElementException if the queue does not contain e.
+	 * @throws IllegalArgumentException if p is outside base..base+maxWeight
+	 */
+	@Override
+	public void changePriority(E e, Integer p) throws NoSuchElementException {
+		changePriority(e, p.intValue());
+	}
+
+	/** Changes the priority of e to p without boxing p. Runs in O(1) expected time.
+	 *
+	 * @throws NoSuchElementException if the queue does not contain e.
+	 * @throws IllegalArgumentException if p is outside base..base+maxWeight
+	 */
+	@Override
+	public void changePriority(E e, int p) throws NoSuchElementException {
+		int s = lists.slot(e);
+		if(s < 0) {
+			throw new NoSuchElementException();
+		}
+		check(p);
+		lists.move(s, p, bucket(p));
+		scan = Math.min(scan, p);
+	}
+
+	/** Returns the slot of an element with the smallest priority, moving scan
+	 * up to that priority.
+	 *
+	 * @throws NoSuchElementException if the queue is empty.
+	 */
+	private int first() throws NoSuchElementException {
+		if(lists.size == 0) {
+			throw new NoSuchElementException();
+		}
+		int b = bucket(scan);
+		while(lists.heads[b] < 0) { //progress: every priority is at most base+maxWeight
+			scan++;
+			b = b == maxWeight ? 0 : b + 1;
+		}
+		return lists.heads[b];
+	}
+
+	/** Throws if p is not in base..base+maxWeight. */
+	private void check(int p) throws IllegalArgumentException {
+		if(p < base || (long) p > (long) base + maxWeight) {
+			throw new IllegalArgumentException("priority " + p + " outside " + base + ".." + ((long) base + maxWeight));
+		}
+	}
+
+	/** Returns the bucket of priority p, which must be nonnegative. */
+	private int bucket(int p) {
+		return p % (maxWeight + 1);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for DialQueue. */
+	public static class Tests {
+
+		@Test
+		public void testMonotone() {
+			DialQueue<String> q = new DialQueue<String>(10);
+			assertThrows(NoSuchElementException.class, () -> {q.poll();});
+			assertThrows(IllegalArgumentException.class, () -> {q.add("Mike", -1);});
+			q.add("Mike", 4);
+			q.add("Joe", 7);
+			q.add("Carl", 9);
+			q.add("Bob", 10);
+			assertThrows(IllegalArgumentException.class, () -> {q.add("Bob", 5);});
+			assertThrows(IllegalArgumentException.class, () -> {q.add("Ron", 11);});
+			assertThrows(NoSuchElementException.class, () -> {q.changePriority("Ron", 5);});
+			q.changePriority("Carl", 5);
+			q.changePriority("Joe", 8);
+			assertEquals(q.peekPriority(), 4);
+			assertEquals(q.poll(), "Mike");
+			assertThrows(IllegalArgumentException.class, () -> {q.add("Ron", 3);});
+			assertEquals(q.peek(), "Carl");
+			assertEquals(q.poll(), "Carl");
+			q.add("Ron", 15); //now within 5..15
+			assertThrows(IllegalArgumentException.class, () -> {q.changePriority("Ron", 4);});
+			assertEquals(q.poll(), "Joe");
+			assertEquals(q.poll(), "Bob");
+			assertEquals(q.poll(), "Ron");
+			assertEquals(q.size(), 0);
+			assertFalse(q.contains("Ron"));
+			q.add("Grant", 100); //an empty queue may jump ahead
+			assertEquals(q.poll(), "Grant");
+		}
+		
+		@Test
+		public void testMaxWeight() {
+			assertThrows(IllegalArgumentException.class, () -> {new DialQueue<String>(-1);});
+			assertThrows(IllegalArgumentException.class, () -> {new DialQueue<String>(MAX_WEIGHT + 1);});
+			assertThrows(IllegalArgumentException.class, () -> {new DialQueue<String>(Integer.MAX_VALUE);}); //used to overflow maxWeight + 1
+			DialQueue<String> q = new DialQueue<String>(MAX_WEIGHT);
+			q.add("Mike", MAX_WEIGHT);
+			q.add("Joe", 0);
+			assertThrows(IllegalArgumentException.class, () -> {q.add("Ron", MAX_WEIGHT + 1);});
+			assertEquals(q.poll(), "Joe");
+			assertEquals(q.poll(), "Mike");
+			q.add("Carl", Integer.MAX_VALUE - 1);
+			q.add("Bob", Integer.MAX_VALUE);
+			assertEquals(q.poll(), "Carl");
+			assertEquals(q.poll(), "Bob");
+		}
+
+		/** Runs a random monotone workload against IntPriorityHeap. */
+		@Test
+		public void testAgainstHeap() {
+			java.util.Random r = new java.util.Random(7);
+			DialQueue<Integer> q = new DialQueue<Integer>(50);
+			IntPriorityHeap<Integer> h = new IntPriorityHeap<Integer>();
+			int base = 0;
+			for(int i = 0; i < 20000; i++) {
+				Integer e = r.nextInt(2000);
+				int p = base + r.nextInt(51);
+				if(h.contains(e)) {
+					if(p < h.priority(e)) {
+						q.changePriority(e, p);
+						h.changePriority(e, p);
+					}
+				} else {
+					q.add(e, p);
+					h.add(e, p);
+				}
+				if(h.size() > 0 && r.nextInt(3) == 0) {
+					base = h.peekPriority();
+					assertEquals(q.peekPriority(), base);
+					Integer polled = q.poll();
+					assertEquals(h.priority(polled), base);
+					h.changePriority(polled, Integer.MIN_VALUE);
+					h.poll();
+				}
+				assertEquals(q.size(), h.size());
+			}
+		}
+	}
+}
@@ -0,0 +1,760 @@
+package a4;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A Heap whose contents survive a crash or restart, kept in a directory as
+ * a snapshot plus a write-ahead log.
+ *
+ * Every add, poll and changePriority is applied to an in-memory Heap and
+ * appended as a record to a log buffer. The buffer is written and forced
+ * to disk once it holds groupSize records (group commit), when sync() is
+ * called, and on close(), so a crash loses at most the records since the
+ * last commit; a groupSize of 1 makes every operation durable before it
+ * returns. Each record carries a CRC32, and a torn record at the end of the
+ * log is discarded on recovery.
+ *
+ * The in-memory heap is changed before its record is committed, so if a
+ * commit fails the log is truncated back to the end of the last commit and
+ * the heap is marked failed: from then on operations that change it, sync()
+ * and checkpoint() throw IllegalStateException, and only close() is of use.
+ * Reopening the directory recovers the state as of the last commit.
+ *
+ * checkpoint() writes the whole heap to a new snapshot, in heap array
+ * order, and starts an empty log. Snapshot and log both carry a generation
+ * number, so a log left over from before the last checkpoint is ignored.
+ * Both files are written under temporary names and renamed into place, and
+ * the directory is forced after each rename, so the new snapshot is on disk
+ * before the new log can replace the old one.
+ * Recovery loads the snapshot into a map, replays the log over it (poll
+ * records name the element polled, so replay does not depend on how ties
+ * were broken), and builds the heap with Heap.addAll, which heapifies in
+ * linear time.
+ *
+ * Elements and priorities are written by the given Serializers, which need
+ * not handle null, so neither may be null. A DurableHeap is not thread-safe.
+ */
+public class DurableHeap<E,P> implements a4.PriorityQueue<E,P>, Closeable {
+	/** The first int of a snapshot file ("A5HS" in big-endian bytes). */
+	static final int SNAPSHOT_MAGIC = 0x41354853;
+	/** The first int of a log file ("A5HL" in big-endian bytes). */
+	static final int LOG_MAGIC = 0x4135484C;
+	/** The format version this code writes and reads. */
+	static final int VERSION = 1;
+	/** The size of the log header in bytes: magic, version, generation. */
+	static final int LOG_HEADER_BYTES = 16;
+
+	private static final byte ADD = 1;
+	private static final byte POLL = 2;
+	private static final byte CHANGE = 3;
+
+	private final Path snapshot;
+	private final Path log;
+	private final Serializer<E> elements;
+	private final Serializer<P> priorities;
+	private final int groupSize;
+	private final Heap<E,P> heap;
+	private long generation;
+	private FileChannel channel; //the log, positioned at its end
+
+	private final Buffer record = new Buffer(); //the record being written
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+	private final Buffer pending = new Buffer(); //records not yet committed
+	private final DataOutputStream pendingOut = new DataOutputStream(pending);
+	private final CRC32 crc = new CRC32();
+	private int pendingRecords;
+	private IOException failure; //why a commit failed, or null if none has
+
+	private DurableHeap(Path dir, Comparator<P> c, Serializer<E> elements, Serializer<P> priorities,
+			int groupSize, LinkedHashMap<E,P> contents, long generation, FileChannel channel) {
+		this.snapshot = dir.resolve("snapshot");
+		this.log = dir.resolve("log");
+		this.elements = elements;
+		this.priorities = priorities;
+		this.groupSize = groupSize;
+		this.generation = generation;
+		this.channel = channel;
+		heap = new Heap<E,P>(c, contents.size());
+		heap.addAll(contents);
+	}
+
+	/**
+	 * Return the heap stored in dir, creating dir and an empty heap if there
+	 * is none, after replaying its log.
+	 *
+	 * @param dir        The directory holding the snapshot and log files.
+	 * @param c          The comparator given to the heap.
+	 * @param elements   Writes and reads the elements.
+	 * @param priorities Writes and reads the priorities.
+	 * @param groupSize  The number of operations committed together.
+	 * @throws IllegalArgumentException if groupSize is less than 1.
+	 * @throws IOException if the files cannot be read or written, or the
+	 *                     snapshot is damaged.
+	 */
+	public static <E,P> DurableHeap<E,P> open(Path dir, Comparator<P> c, Serializer<E> elements,
+			Serializer<P> priorities, int groupSize) throws IllegalArgumentException, IOException {
+		if(groupSize < 1) {
+			throw new IllegalArgumentException("group size must be at least 1: " + groupSize);
+		}
+		Files.createDirectories(dir);
+		Path snapshot = dir.resolve("snapshot");
+		Path log = dir.resolve("log");
+		LinkedHashMap<E,P> contents = new LinkedHashMap<E,P>();
+		long generation = Files.exists(snapshot) ? readSnapshot(snapshot, elements, priorities, contents) : 0;
+
+		FileChannel channel = null;
+		if(Files.exists(log)) {
+			long end = replay(log, generation, elements, priorities, contents);
+			if(end >= 0) {
+				channel = FileChannel.open(log, StandardOpenOption.WRITE);
+				channel.truncate(end); //drop a torn record left by a crash
+				channel.position(end);
+			}
+		}
+		if(channel == null) {
+			channel = newLog(log, generation);
+		}
+		return new DurableHeap<E,P>(dir, c, elements, priorities, groupSize, contents, generation, channel);
+	}
+
+	/** Returns the comparator used for ordering priorities. */
+	@Override
+	public Comparator<? super P> comparator() {
+		return heap.comparator();
+	}
+
+	/** Returns the number of elements in this heap. Runs in O(1) time. */
+	@Override
+	public int size() {
+		return heap.size();
+	}
+
+	/** Returns true if the heap contains e. Runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return heap.contains(e);
+	}
+
+	/** Removes and returns the element with the smallest priority, and logs it.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 * @throws UncheckedIOException if a group commit fails.
+	 * @throws IllegalStateException if an earlier commit failed.
+	 */
+	@Override
+	public E poll() throws NoSuchElementException {
+		checkUsable();
+		E e = heap.poll();
+		append(POLL, e, null);
+		return e;
+	}
+
+	/** Returns the element with the smallest priority.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	public E peek() throws NoSuchElementException {
+		return heap.peek();
+	}
+
+	/** Adds the element e with priority p to the heap, and logs it.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals()),
+	 *                                  or p is null
+	 * @throws UncheckedIOException if a group commit fails.
+	 * @throws IllegalStateException if an earlier commit failed.
+	 */
+	@Override
+	public void add(E e, P p) throws IllegalArgumentException {
+		checkUsable();
+		checkPriority(p);
+		heap.add(e, p);
+		append(ADD, e, p);
+	}
+
+	/** Changes the priority of e to p, and logs it.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 * @throws IllegalArgumentException if p is null.
+	 * @throws UncheckedIOException if a group commit fails.
+	 * @throws IllegalStateException if an earlier commit failed.
+	 */
+	@Override
+	public void changePriority(E e, P p) throws NoSuchElementException, IllegalArgumentException {
+		checkUsable();
+		checkPriority(p);
+		heap.changePriority(e, p);
+		append(CHANGE, e, p);
+	}
+
+	/**
+	 * Write every logged operation not yet committed and force it to disk.
+	 * When this returns, they all survive a crash.
+	 *
+	 * @throws IOException if the log cannot be written or forced; the log is
+	 *                     then cut back to the last commit and this heap
+	 *                     marked failed.
+	 * @throws IllegalStateException if an earlier commit failed.
+	 */
+	public void sync() throws IOException, IllegalStateException {
+		checkUsable();
+		if(pending.size() == 0) {
+			return;
+		}
+		long committed = channel.position();
+		try {
+			ByteBuffer buf = ByteBuffer.wrap(pending.bytes(), 0, pending.size());
+			while(buf.hasRemaining()) {
+				channel.write(buf);
+			}
+			channel.force(false);
+		} catch(IOException ex) {
+			failure = ex;
+			try {
+				channel.truncate(committed); //a crash must not replay what this heap reports as failed
+				channel.position(committed);
+			} catch(IOException suppressed) {
+				ex.addSuppressed(suppressed);
+			}
+			throw ex;
+		}
+		pending.reset();
+		pendingRecords = 0;
+	}
+
+	/**
+	 * Write the whole heap to a new snapshot and start an empty log, so
+	 * recovery no longer replays the operations before it. The snapshot is
+	 * written under a temporary name and moved into place.
+	 *
+	 * @throws IllegalStateException if an earlier commit failed.
+	 */
+	public void checkpoint() throws IOException, IllegalStateException {
+		sync();
+		long next = generation + 1;
+		Path tmp = snapshot.resolveSibling("snapshot.tmp");
+		try(FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+			CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+			DataOutputStream out = new DataOutputStream(checked);
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(next);
+			out.writeInt(heap.size());
+			IOException[] failure = new IOException[1];
+			heap.forEach((e, p) -> {
+				if(failure[0] == null) {
+					try {
+						elements.write(e, out);
+						priorities.write(p, out);
+					} catch(IOException ex) {
+						failure[0] = ex;
+					}
+				}
+			});
+			if(failure[0] != null) {
+				throw failure[0];
+			}
+			out.writeInt((int) checked.getChecksum().getValue());
+			out.flush();
+			file.getFD().sync();
+		}
+		Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(snapshot.getParent()); //the new log must never outlive a lost snapshot rename
+		//from here the old log is stale; a crash before the new one is in place leaves it ignored
+		channel.close();
+		channel = newLog(log, next);
+		generation = next;
+	}
+
+	/** Commits every pending operation, unless an earlier commit failed, and
+	 * closes the log. */
+	@Override
+	public void close() throws IOException {
+		try {
+			if(failure == null) {
+				sync();
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	/** Throws IllegalStateException if a commit has failed. */
+	private void checkUsable() {
+		if(failure != null) {
+			throw new IllegalStateException("an earlier commit failed", failure);
+		}
+	}
+
+	/** Throws IllegalArgumentException if p is null; a record must have a
+	 * priority for replay to read. */
+	private static void checkPriority(Object p) {
+		if(p == null) {
+			throw new IllegalArgumentException("null priority");
+		}
+	}
+
+	/** Adds a record of op on e, and p unless op is POLL, to the pending
+	 * records, and commits them if there are groupSize. */
+	private void append(byte op, E e, P p) {
+		try {
+			record.reset();
+			recordOut.writeByte(op);
+			elements.write(e, recordOut);
+			if(op != POLL) {
+				priorities.write(p, recordOut);
+			}
+			crc.reset();
+			crc.update(record.bytes(), 0, record.size());
+			pendingOut.writeInt(record.size());
+			pendingOut.write(record.bytes(), 0, record.size());
+			pendingOut.writeInt((int) crc.getValue());
+			pendingRecords++;
+			if(pendingRecords >= groupSize) {
+				sync();
+			}
+		} catch(IOException ex) {
+			if(failure == null) {
+				failure = ex; //a serializer failed, and the heap already has the change
+			}
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/** Reads the snapshot into contents and returns its generation.
+	 *
+	 * @throws IOException if the snapshot cannot be read or is damaged.
+	 */
+	private static <E,P> long readSnapshot(Path file, Serializer<E> elements, Serializer<P> priorities,
+			LinkedHashMap<E,P> contents) throws IOException {
+		try(InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+			CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+			DataInputStream in = new DataInputStream(checked);
+			if(in.readInt() != SNAPSHOT_MAGIC) {
+				throw new IOException(file + ": not a heap snapshot");
+			}
+			int version = in.readInt();
+			if(version != VERSION) {
+				throw new IOException(file + ": unsupported snapshot version " + version);
+			}
+			long generation = in.readLong();
+			int count = in.readInt();
+			for(int i = 0; i < count; i++) {
+				E e = elements.read(in);
+				contents.put(e, priorities.read(in));
+			}
+			int expected = (int) checked.getChecksum().getValue();
+			if(in.readInt() != expected) {
+				throw new IOException(file + ": snapshot checksum mismatch");
+			}
+			return generation;
+		} catch(EOFException e) {
+			throw new IOException(file + ": truncated snapshot", e);
+		}
+	}
+
+	/** Applies the records of the log to contents and returns the offset
+	 * just past the last whole record, or -1 if the log is from an older
+	 * generation than the snapshot (or has no complete header) and must be
+	 * replaced.
+	 *
+	 * @throws IOException if the log cannot be read, or is newer than the snapshot.
+	 */
+	private static <E,P> long replay(Path file, long generation, Serializer<E> elements,
+			Serializer<P> priorities, LinkedHashMap<E,P> contents) throws IOException {
+		long size = Files.size(file);
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+			if(size < LOG_HEADER_BYTES) {
+				return -1;
+			}
+			if(in.readInt() != LOG_MAGIC) {
+				throw new IOException(file + ": not a heap log");
+			}
+			int version = in.readInt();
+			if(version != VERSION) {
+				throw new IOException(file + ": unsupported log version " + version);
+			}
+			long logGeneration = in.readLong();
+			if(logGeneration < generation) {
+				return -1; //written before the snapshot, which already has its records
+			}
+			if(logGeneration > generation) {
+				throw new IOException(file + ": log generation " + logGeneration + " is newer than snapshot " + generation);
+			}
+
+			long offset = LOG_HEADER_BYTES;
+			CRC32 crc = new CRC32();
+			while(offset + 4 <= size) {
+				int length = in.readInt();
+				if(length < 1 || length > size - offset - 8) {
+					break; //torn: the rest was never fully written
+				}
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				crc.reset();
+				crc.update(bytes, 0, length);
+				if(in.readInt() != (int) crc.getValue()) {
+					break;
+				}
+				DataInputStream r = new DataInputStream(new ByteArrayInputStream(bytes));
+				byte op = r.readByte();
+				E e = elements.read(r);
+				if(op == POLL) {
+					contents.remove(e);
+				} else if(op == ADD || op == CHANGE) {
+					contents.put(e, priorities.read(r));
+				} else {
+					throw new IOException(file + ": unknown log record " + op + " at offset " + offset);
+				}
+				offset += 8 + length;
+			}
+			return offset;
+		}
+	}
+
+	/** Writes an empty log of the given generation, moves it into place and
+	 * returns it open for appending. */
+	private static FileChannel newLog(Path log, long generation) throws IOException {
+		Path tmp = log.resolveSibling("log.tmp");
+		try(FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+			header.putInt(LOG_MAGIC).putInt(VERSION).putLong(generation).flip();
+			while(header.hasRemaining()) {
+				ch.write(header);
+			}
+			ch.force(true);
+		}
+		Files.move(tmp, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(log.getParent());
+		FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE);
+		ch.position(ch.size());
+		return ch;
+	}
+
+	/** Forces the entries of directory dir to disk, so that a file moved into
+	 * it stays there after a crash; forcing the file itself does not. */
+	private static void syncDirectory(Path dir) throws IOException {
+		try(FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+			ch.force(true);
+		}
+	}
+
+	/** A ByteArrayOutputStream whose bytes can be read without copying them. */
+	private static class Buffer extends ByteArrayOutputStream {
+		/** Returns the backing array; the first size() bytes are the content. */
+		byte[] bytes() {
+			return buf;
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for DurableHeap. */
+	public static class Tests {
+
+		/** Returns a new empty directory. */
+		private static Path directory() throws IOException {
+			return Files.createTempDirectory("durable-heap");
+		}
+
+		/** Deletes dir and the files in it. */
+		private static void delete(Path dir) throws IOException {
+			try(java.util.stream.Stream<Path> files = Files.list(dir)) {
+				for(Path f : (Iterable<Path>) files::iterator) {
+					Files.delete(f);
+				}
+			}
+			Files.delete(dir);
+		}
+
+		/** A log channel that writes through to the real one but whose force
+		 * fails, like a disk that loses a write. */
+		private static class FailingForce extends FileChannel {
+			private final FileChannel ch;
+
+			FailingForce(FileChannel ch) {
+				this.ch = ch;
+			}
+
+			@Override
+			public void force(boolean metaData) throws IOException {
+				throw new IOException("injected force failure");
+			}
+
+			@Override
+			public int read(ByteBuffer dst) throws IOException {
+				return ch.read(dst);
+			}
+
+			@Override
+			public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+				return ch.read(dsts, offset, length);
+			}
+
+			@Override
+			public int write(ByteBuffer src) throws IOException {
+				return ch.write(src);
+			}
+
+			@Override
+			public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+				return ch.write(srcs, offset, length);
+			}
+
+			@Override
+			public long position() throws IOException {
+				return ch.position();
+			}
+
+			@Override
+			public FileChannel position(long newPosition) throws IOException {
+				ch.position(newPosition);
+				return this;
+			}
+
+			@Override
+			public long size() throws IOException {
+				return ch.size();
+			}
+
+			@Override
+			public FileChannel truncate(long size) throws IOException {
+				ch.truncate(size);
+				return this;
+			}
+
+			@Override
+			public long transferTo(long position, long count, java.nio.channels.WritableByteChannel target) throws IOException {
+				return ch.transferTo(position, count, target);
+			}
+
+			@Override
+			public long transferFrom(java.nio.channels.ReadableByteChannel src, long position, long count) throws IOException {
+				return ch.transferFrom(src, position, count);
+			}
+
+			@Override
+			public int read(ByteBuffer dst, long position) throws IOException {
+				return ch.read(dst, position);
+			}
+
+			@Override
+			public int write(ByteBuffer src, long position) throws IOException {
+				return ch.write(src, position);
+			}
+
+			@Override
+			public java.nio.MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+				return ch.map(mode, position, size);
+			}
+
+			@Override
+			public java.nio.channels.FileLock lock(long position, long size, boolean shared) throws IOException {
+				return ch.lock(position, size, shared);
+			}
+
+			@Override
+			public java.nio.channels.FileLock tryLock(long position, long size, boolean shared) throws IOException {
+				return ch.tryLock(position, size, shared);
+			}
+
+			@Override
+			protected void implCloseChannel() throws IOException {
+				ch.close();
+			}
+		}
+
+		/** Polls every element of h. */
+		private static <E> List<E> drain(PriorityQueue<E,?> h) {
+			List<E> result = new ArrayList<E>();
+			while(h.size() > 0) {
+				result.add(h.poll());
+			}
+			return result;
+		}
+
+		@Test
+		public void testRecovery() throws IOException {
+			Path dir = directory();
+			DurableHeap<String,Integer> h = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.STRING, Serializer.INTEGER, 4);
+			h.add("Mike", 1);
+			h.add("Joe", 3);
+			h.add("Carl", -3);
+			h.add("Bob", 7);
+			h.add("Grant", 12);
+			assertThrows(IllegalArgumentException.class, () -> {h.add("Bob", 2);});
+			assertEquals(h.poll(), "Carl");
+			h.changePriority("Grant", 0);
+			h.close();
+
+			DurableHeap<String,Integer> back = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.STRING, Serializer.INTEGER, 4);
+			assertEquals(back.size(), 4);
+			assertFalse(back.contains("Carl"));
+			back.checkpoint();
+			back.add("Ron", 2);
+			back.sync();
+			back.close();
+
+			DurableHeap<String,Integer> again = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.STRING, Serializer.INTEGER, 1);
+			assertEquals(drain(again), java.util.Arrays.asList("Grant", "Mike", "Ron", "Joe", "Bob"));
+			again.close();
+			delete(dir);
+		}
+
+		/** A crash may leave a partial record at the end of the log; it must
+		 * be dropped and the log must stay appendable. */
+		@Test
+		public void testTornLog() throws IOException {
+			Path dir = directory();
+			DurableHeap<Integer,Integer> h = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.INTEGER, Serializer.INTEGER, 1);
+			for(int i = 0; i < 10; i++) {
+				h.add(i, 10 - i);
+			}
+			h.close();
+			try(FileChannel ch = FileChannel.open(dir.resolve("log"), StandardOpenOption.WRITE)) {
+				ch.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 9, ADD, 0, 0}), ch.size()); //a torn add
+			}
+
+			DurableHeap<Integer,Integer> back = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.INTEGER, Serializer.INTEGER, 1);
+			assertEquals(back.size(), 10);
+			assertEquals(back.poll(), (Integer) 9);
+			back.close();
+			DurableHeap<Integer,Integer> again = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.INTEGER, Serializer.INTEGER, 1);
+			assertEquals(again.size(), 9);
+			assertEquals(again.peek(), (Integer) 8);
+			again.close();
+			delete(dir);
+		}
+
+		/** A crash after a checkpoint's snapshot is in place, but before its
+		 * new log is, leaves the old log behind; it must be ignored, since the
+		 * snapshot already holds its records. */
+		@Test
+		public void testInterruptedCheckpoint() throws IOException {
+			Path dir = directory();
+			DurableHeap<String,Integer> h = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.STRING, Serializer.INTEGER, 1);
+			h.add("Mike", 1);
+			h.add("Joe", 3);
+			assertEquals(h.poll(), "Mike");
+			byte[] oldLog = Files.readAllBytes(dir.resolve("log"));
+			h.checkpoint();
+			h.close();
+			Files.write(dir.resolve("log"), oldLog);
+
+			DurableHeap<String,Integer> back = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.STRING, Serializer.INTEGER, 1);
+			assertEquals(drain(back), java.util.Arrays.asList("Joe"));
+			back.close();
+			assertEquals(Files.size(dir.resolve("log")), LOG_HEADER_BYTES + 4 + 1 + 4 + 3 + 4); //a fresh log plus the poll
+			delete(dir);
+		}
+
+		/** A null priority is rejected before it reaches the heap or the log,
+		 * which could not replay it. */
+		@Test
+		public void testNullPriority() throws IOException {
+			Path dir = directory();
+			DurableHeap<String,Integer> h = DurableHeap.open(dir, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()),
+					Serializer.STRING, Serializer.INTEGER, 1);
+			h.add("Mike", 1);
+			assertThrows(IllegalArgumentException.class, () -> {h.add("Joe", null);});
+			assertThrows(IllegalArgumentException.class, () -> {h.changePriority("Mike", null);});
+			assertFalse(h.contains("Joe"));
+			h.changePriority("Mike", 2);
+			h.close();
+
+			DurableHeap<String,Integer> back = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.STRING, Serializer.INTEGER, 1);
+			assertEquals(back.size(), 1);
+			assertEquals(back.peek(), "Mike");
+			back.close();
+			delete(dir);
+		}
+
+		/** A failed commit leaves the log as of the last good commit, and the
+		 * heap, which already holds the lost operations, refuses more. */
+		@Test
+		public void testFailedCommit() throws IOException {
+			Path dir = directory();
+			DurableHeap<String,Integer> h = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.STRING, Serializer.INTEGER, 2);
+			h.add("Mike", 1);
+			h.add("Joe", 3);
+			long committed = Files.size(dir.resolve("log"));
+			h.channel = new FailingForce(h.channel);
+			h.add("Carl", -3);
+			UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> {h.add("Bob", 7);});
+			assertEquals(e.getCause().getMessage(), "injected force failure");
+			assertEquals(Files.size(dir.resolve("log")), committed);
+			assertTrue(h.contains("Bob")); //in memory, but never committed
+			assertThrows(IllegalStateException.class, () -> {h.add("Grant", 12);});
+			assertThrows(IllegalStateException.class, () -> {h.poll();});
+			assertThrows(IllegalStateException.class, () -> {h.changePriority("Joe", 0);});
+			assertThrows(IllegalStateException.class, () -> {h.sync();});
+			assertThrows(IllegalStateException.class, () -> {h.checkpoint();});
+			h.close();
+			assertEquals(Files.size(dir.resolve("log")), committed);
+
+			DurableHeap<String,Integer> back = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.STRING, Serializer.INTEGER, 1);
+			assertEquals(drain(back), java.util.Arrays.asList("Mike", "Joe"));
+			back.close();
+			delete(dir);
+		}
+
+		/** Operations still pending when the process dies are lost, but
+		 * everything before the last commit survives. */
+		@Test
+		public void testGroupCommit() throws IOException {
+			Path dir = directory();
+			DurableHeap<Integer,Integer> h = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.INTEGER, Serializer.INTEGER, 100);
+			for(int i = 0; i < 250; i++) {
+				h.add(i, i);
+			}
+			h.channel.close(); //die without committing the last 50
+
+			DurableHeap<Integer,Integer> back = DurableHeap.open(dir, Comparator.naturalOrder(),
+					Serializer.INTEGER, Serializer.INTEGER, 100);
+			assertEquals(back.size(), 200);
+			assertEquals(back.peek(), (Integer) 0);
+			back.close();
+			delete(dir);
+		}
+	}
+}
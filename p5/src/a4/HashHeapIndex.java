@@ -0,0 +1,31 @@
+package a4;
+
+import java.util.HashMap;
+
+/** A HeapIndex backed by a HashMap from element to boxed slot. This is what
+ * Heap used before the index became pluggable; it accepts a null element. */
+class HashHeapIndex<E> implements HeapIndex<E> {
+	private final HashMap<E,Integer> map;
+
+	/** Constructor creates an empty index able to hold expected elements
+	 * without rehashing. */
+	HashHeapIndex(int expected) {
+		map = new HashMap<E,Integer>((int) Math.min((expected * 4L) / 3 + 1, Integer.MAX_VALUE)); //default load factor is 3/4
+	}
+
+	@Override
+	public int get(Object e) {
+		Integer i = map.get(e);
+		return i == null ? -1 : i;
+	}
+
+	@Override
+	public void put(E e, int slot) {
+		map.put(e, slot);
+	}
+
+	@Override
+	public void remove(Object e) {
+		map.remove(e);
+	}
+}
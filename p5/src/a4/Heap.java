@@ -1,26 +1,75 @@
 package a4;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.lang.Math;
-import java.util.HashMap;
+import java.util.function.BiConsumer;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 
 
 public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 	private Comparator<P> c;
-	private ArrayList<Node> a = new ArrayList<Node>(); //creating ArrayList to store nodes of the heap
-	private HashMap<E,Integer> map = new HashMap<E, Integer>(); //creating HashMap to get index of nodes in the heap
+	private ArrayList<Node> a; //creating ArrayList to store nodes of the heap
+	private HeapIndex<E> map; //gets the index of each element's node in the heap
+	private HeapStats stats; //counts operations, or null when not instrumented
 	
 	
-	/** Constructor creates an empty heap with given comparator. 
+	/** Constructor creates an empty heap with given comparator. The index
+	 * is HeapIndex.hash, a HashMap as before the index became pluggable, so
+	 * a null element is allowed.
 	 * 
 	 * @param c The comparator given to the heap.
 	 */
 	public Heap(Comparator<P> c) {
+		this(c, 10, HeapIndex.hash(10));
+	}
+	
+	/** Constructor creates an empty heap with given comparator, with room for
+	 * capacity elements before the ArrayList or the index has to grow. The
+	 * index is HeapIndex.open, so elements must not be null.
+	 * 
+	 * @param c The comparator given to the heap.
+	 * @param capacity The number of elements to presize for.
+	 * @throws IllegalArgumentException if capacity is negative or above the
+	 *                                  2^29 elements HeapIndex.open holds.
+	 */
+	public Heap(Comparator<P> c, int capacity) throws IllegalArgumentException {
+		this(c, capacity, HeapIndex.open(Math.max(capacity, 0)));
+	}
+	
+	/** Constructor creates an empty heap with given comparator that finds
+	 * its elements with the given index, e.g. HeapIndex.intrusive().
+	 * 
+	 * @param c The comparator given to the heap.
+	 * @param capacity The number of elements to presize the ArrayList for.
+	 * @param index An empty index, used by no other heap.
+	 * @throws IllegalArgumentException if capacity is negative.
+	 */
+	public Heap(Comparator<P> c, int capacity, HeapIndex<E> index) throws IllegalArgumentException {
+		if(capacity < 0) {
+			throw new IllegalArgumentException("negative capacity: " + capacity);
+		}
 		this.c = c;
+		a = new ArrayList<Node>(capacity);
+		map = index;
+	}
+
+	/** Starts counting this heap's operations in stats, or stops counting if
+	 * stats is null. The counters are added to, not reset.
+	 * 
+	 * @param stats The counters to add to, or null.
+	 */
+	public void setStats(HeapStats stats) {
+		this.stats = stats;
+	}
+	
+	/** Returns the counters set by setStats, or null if there are none. */
+	public HeapStats stats() {
+		return stats;
 	}
 
 	/** Returns the comparator used for ordering priorities. */
@@ -35,7 +84,13 @@ public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 		return a.size();
 	}
 	
-	/** Returns the index of a Node. Uses the HashMap to get index in constant time.
+	/** Returns true if the heap contains e. Uses the index, so runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return map.get(e) >= 0;
+	}
+	
+	/** Returns the index of a Node. Uses the index to get it in constant time.
 	 * 
 	 * @param n The given Node.
 	 * @return The index of the specified Node in the ArrayLists.
@@ -44,143 +99,75 @@ public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 		return map.get(n.data);
 	}
 	
-	/** Swaps two nodes, as well as the indexes of their elements in the HashMap 
+	/** Swaps two nodes, as well as the indexes of their elements in the index 
 	 * Order of the nodes does not matter.
 	 * @param n1 The first given node.
 	 * @param n2 The second given node.
 	 */
 	private void swap(Node n1, Node n2) {
-		Node tmp = n1;
-		a.set(index(n1), n2);
-		a.set(index(n2), tmp);
-		int tmpindex = index(n1);
-		map.replace(n1.data, index(n2));
-		map.replace(n2.data, tmpindex);
+		int i1 = index(n1);
+		int i2 = index(n2);
+		place(n2, i1);
+		place(n1, i2);
+	}
+	
+	/** Stores node n at index i of the ArrayList and records i in the index.
+	 * 
+	 * @param n The given node.
+	 * @param i The index n now occupies.
+	 */
+	private void place(Node n, int i) {
+		a.set(i, n);
+		map.put(n.data, i);
 	}
 
 	
 	/** Gets the parent of a node n in the partitioned array as if it were in a tree.
+	 * The parent of index i is at index (i-1)/2.
 	 * 
 	 * @param n The given Node.
 	 * @return the parent of the given node, or null if the node is a root.
 	 */
 	public Node getParent(Node n) {
+		int i = index(n);
+		
 		//returns null if the node is the root
-		if(index(n) == 0) {
+		if(i == 0) {
 			return null;
 		}
-		
-		//rest of the cases
-		int childLayer; // the number of steps from root to get to the node
-		int childPos; // the position from left to right of a node at its layer
-		int parentLayer;
-		int parentPos;
-		
-		//getting child layer and position
-		childLayer = (int) (Math.log10(index(n)+1)/Math.log10(2));
-		childPos = index(n) - (int) Math.pow(2, childLayer) + 1;
-		
-		//getting parent layer and position
-		parentLayer = childLayer - 1;
-		parentPos = childPos/2;
-		
-		//getting index of parent from its layer and position
-		return a.get((int) Math.pow(2, parentLayer) + parentPos -  1);
+		return a.get((i - 1) / 2);
 	}
 		
 	/** Gets the left child of a Node n in the partitioned array as if it were in a tree.
+	 * The left child of index i is at index 2i+1.
 	 * 
 	 * @param n The given node.
-	 * @return the left child of the node, or null if the Node is the only node,
-	 * a leaf, or previous node(s)'s child is the last node.
+	 * @return the left child of the node, or null if the node has no left child.
 	 */
 	public Node getLeft(Node n) {
-		int parentLayer; // the number of steps from root to get to the node
-		int parentPos; // the position from left to right of a node at its layer
-		int leftLayer;
-		int leftPos;
-		
-		//getting parent layer and position
-		parentLayer = (int) (Math.log10(index(n)+1)/Math.log10(2)); //log2 of index rounded down
-		if (parentLayer == 0) {
-			parentPos = 0;
-			}
-		else {
-			parentPos = index(n) - (int) Math.pow(2, parentLayer) + 1;
-			}
-		
-		//returns null if the node is the only node in heap
-		if (this.size() == 1) {
-			return null;
-		}
+		int left = 2 * index(n) + 1;
 		
-		//returns null if the node is a leaf
-		else if(parentLayer == (int)(Math.log10(a.size())/Math.log10(2))) { //layer of last index
+		//returns null if the left child would be past the last node
+		if(left >= a.size()) {
 			return null;
 		}
-		
-		//returns null if the node is not a leaf but its previous node(s)'s left
-		//left or right child is the last node.
-		else if (index(getParent(a.get(a.size()-1))) <= index(n) - 1) {
-			return null;
-		}
-		
-		//rest of the cases
-		else {
-			leftLayer = parentLayer + 1;
-			leftPos = parentPos * 2;
-		
-			//getting index of left child from its layer and position
-			return a.get((int) Math.pow(2, (leftLayer)) + leftPos - 1);
-		}
+		return a.get(left);
 	}
 	
 	/** Gets the right child of a node n in the partitioned array as if it were in a tree.
+	 * The right child of index i is at index 2i+2.
 	 *
 	 * @param n The given node.
-	 * @return the right child of the node, or null if the node is the only node,
-	 * a leaf, or previous node(s)'s child is the last node.
+	 * @return the right child of the node, or null if the node has no right child.
 	 */
 	public Node getRight(Node n) {
-		int parentLayer; // the number of steps from root to get to the node
-		int parentPos; // the position from left to right of a node at its layer
-		int rightLayer;
-		int rightPos;
-			
-		//getting parent layer and position
-		parentLayer = (int) (Math.log10(index(n)+1)/Math.log10(2)); //log2 of index rounded down
-		parentPos = index(n) - (int) Math.pow(2, parentLayer) + 1;
-		
-		//returns null if the node is the only node in heap
-		if (this.size() == 1) {
-			return null;
-		}
-		
-		//returns null if the node is a leaf
-		else if (parentLayer == (int) (Math.log10(a.size())/Math.log10(2))) { //layer of last index
-			return null;
-		}
-		
-		//returns null if the node is not a leaf but its previous node(s)'s left
-		//left or right child is the last node
-		else if (index(getParent(a.get(a.size()-1))) <= index(n) - 1) {
-			return null;
-		}
+		int right = 2 * index(n) + 2;
 		
-		//returns null if the node's left child is the last node in heap
-		else if (index(getLeft(n)) == a.size() - 1) {
+		//returns null if the right child would be past the last node
+		if(right >= a.size()) {
 			return null;
 		}
-		
-		//rest of the cases
-		//getting right child layer and position
-		else {
-			rightLayer = parentLayer + 1;
-			rightPos = parentPos*2 + 1;
-		
-			//getting index of right child from its layer and position
-			return a.get((int) Math.pow(2, rightLayer) + rightPos - 1);
-			}
+		return a.get(right);
 	}
 	
 	/**
@@ -199,23 +186,17 @@ public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 		//stores the element of the root node to return at the end of the function
 		E root = a.get(0).data;
 		
-		//case if the root is the only item in the heap (swapping not needed)
-		if(size() == 1) {
-			map.remove(a.get(a.size()-1).data); //remove the root from the HashMap
-			a.remove(0); //remove the root from the Heap
-			return root;
-		}
-		
-		//rest of the cases
-		
-		//replace root with last node in the heap
-		swap(a.get(0), a.get(a.size()-1));
-		map.remove(a.get(a.size()-1).data); //remove the last node from the HashMap
-		a.remove(a.size()-1); //remove the last node from the Heap
+		//remove the last node; it replaces the root unless the root was the last node
+		Node last = a.remove(a.size()-1);
+		map.remove(root);
 		
-		Node n = a.get(0);
-		
-		fixInvariant(n); //reorders heap to fix invariants
+		if(a.size() > 0) {
+			place(last, 0);
+			siftDown(0); //reorders heap to fix invariants
+		}
+		if(stats != null) {
+			stats.polls++;
+		}
 		
 		return root;
 		
@@ -250,15 +231,19 @@ public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 	@Override
 	public void add(E e, P p) throws IllegalArgumentException {
 		//case if element e is already in the heap
-		if(map.containsKey(e)) {
+		if(map.get(e) >= 0) {
 			throw new IllegalArgumentException();
 		}
 		
-		//creates new node with element e to add to the heap, also adds it to the HashMap
+		//creates new node with element e to add to the heap, also adds it to the index
 		Node n = new Node(e, p, a.size());	
-		a.add(n); //adds the new node to the heap, already added to HashMap when the node was created
+		a.add(n); //adds the new node to the heap, already added to the index when the node was created
+		if(stats != null) {
+			stats.adds++;
+			stats.peakSize = Math.max(stats.peakSize, a.size());
+		}
 		
-		fixInvariant(n); //reorders heap to fix invariants
+		siftUp(a.size()-1); //a new leaf can only be out of place with its ancestors
 	}
 
 	/**
@@ -271,84 +256,177 @@ public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 	@Override
 	public void changePriority(E e, P p) throws NoSuchElementException {
 		//case if heap does not contain e
-		if(!map.containsKey(e)) {
+		int i = map.get(e);
+		if(i < 0) {
 			throw new NoSuchElementException();
 		}
 		
 		//rest of the cases
-		a.get(map.get(e)).priority = p; //change the priority of the node with specified element
+		Node n = a.get(i);
+		P old = n.priority;
+		n.priority = p; //change the priority of the node with specified element
+		if(stats != null) {
+			stats.changes++;
+		}
 		
-		fixInvariant(a.get(map.get(e))); //reorders heap to fix invariants
+		//a node whose priority went down can only move up, and vice versa
+		if(c.compare(p, old) < 0) {
+			siftUp(i);
+		} else {
+			siftDown(i);
+		}
 	}
 	
-	/** Reestablishes the heap invariant using a specified node.
+	/**
+	 * Adds every element of m with its priority. If at least as many elements
+	 * are added as the heap already holds, the whole array is rebuilt with
+	 * Floyd's heapify, which runs in O(n) time instead of the O(n log n) of
+	 * separate adds; otherwise each new element is sifted up.
 	 * 
-	 * @param n The given node.
+	 * @param m The elements to add, mapped to their priorities.
+	 * @throws IllegalArgumentException if the heap already contains a key of m;
+	 *                                  then nothing is added.
 	 */
-	private void fixInvariant(Node n) {
-		int parentDif;
-		int leftDif;
-		int rightDif;
+	public void addAll(Map<? extends E, ? extends P> m) throws IllegalArgumentException {
+		for(E e : m.keySet()) {
+			if(map.get(e) >= 0) {
+				throw new IllegalArgumentException();
+			}
+		}
 		
-		boolean invariant = false;
-		//variable representing if the heap properties are satisfied
+		int old = a.size();
+		a.ensureCapacity(old + m.size());
+		for(Map.Entry<? extends E, ? extends P> entry : m.entrySet()) {
+			a.add(new Node(entry.getKey(), entry.getValue(), a.size()));
+		}
+		if(stats != null) {
+			stats.adds += m.size();
+			stats.peakSize = Math.max(stats.peakSize, a.size());
+		}
 		
-		//loop runs until heap invariants are satisfied
-		while (invariant != true) {
-			
-			//handling null cases
-			if (getParent(n) == null) {
-				parentDif = -1;
-			} else {
-				parentDif = c.compare(getParent(n).priority, n.priority);
+		if(m.size() >= old) {
+			//every index from size/2 on is a leaf, so heapify the rest bottom-up
+			for(int i = a.size() / 2 - 1; i >= 0; i--) {
+				siftDown(i);
 			}
-			if (getLeft(n) == null) {
-				leftDif = Integer.MAX_VALUE;
-			} else {
-				leftDif = c.compare(getLeft(n).priority, n.priority);
+		} else {
+			for(int i = old; i < a.size(); i++) {
+				siftUp(i);
 			}
-			if (getRight(n) == null) {
-				rightDif = Integer.MAX_VALUE;
-			} else {
-				rightDif = c.compare(getRight(n).priority, n.priority);
+		}
+	}
+	
+	/**
+	 * Removes and returns up to k elements with the smallest priorities, in
+	 * order. Returns fewer than k only if the heap runs out. Runs in
+	 * O(k log n) time.
+	 * 
+	 * @param k The most elements to remove.
+	 * @throws IllegalArgumentException if k is negative.
+	 */
+	public List<E> pollBatch(int k) throws IllegalArgumentException {
+		ArrayList<E> batch = new ArrayList<E>(Math.min(Math.max(k, 0), a.size()));
+		drainTo(batch, k);
+		return batch;
+	}
+	
+	/**
+	 * Removes every element and adds them to sink in priority order.
+	 * 
+	 * @param sink The collection to add the elements to.
+	 * @return The number of elements moved.
+	 */
+	public int drainTo(Collection<? super E> sink) {
+		return drainTo(sink, a.size());
+	}
+	
+	/**
+	 * Removes up to max elements with the smallest priorities and adds them
+	 * to sink in priority order. Runs in O(max log n) time.
+	 * 
+	 * @param sink The collection to add the elements to.
+	 * @param max The most elements to move.
+	 * @return The number of elements moved.
+	 * @throws IllegalArgumentException if max is negative.
+	 */
+	public int drainTo(Collection<? super E> sink, int max) throws IllegalArgumentException {
+		if(max < 0) {
+			throw new IllegalArgumentException("negative count: " + max);
+		}
+		int moved = 0;
+		while(moved < max && a.size() > 0) {
+			sink.add(poll());
+			moved++;
+		}
+		return moved;
+	}
+	
+	/** Calls action with every element and its priority, in the order of the
+	 * heap array, so that adding them to an empty heap in this order needs no
+	 * moves. The heap must not be changed while this runs.
+	 * 
+	 * @param action Receives each element and its priority.
+	 */
+	public void forEach(BiConsumer<? super E, ? super P> action) {
+		for(Node n : a) {
+			action.accept(n.data, n.priority);
+		}
+	}
+	
+	/** Moves the node at index i up the heap until its parent is no larger.
+	 * Larger ancestors are shifted down into the hole instead of swapped, so
+	 * each level costs one comparison and one index update.
+	 * 
+	 * @param i The index of the node to move.
+	 */
+	private void siftUp(int i) {
+		Node n = a.get(i);
+		int levels = 0;
+		while(i > 0) {
+			int parent = (i - 1) / 2;
+			Node p = a.get(parent);
+			if(c.compare(p.priority, n.priority) <= 0) {
+				break;
 			}
-		
-			
-			//case if parent is larger and n should swap up
-			if (parentDif > 0) {
-				swap(getParent(n), n); //progress: n goes up the heap
+			place(p, i); //progress: the hole goes up the heap
+			i = parent;
+			levels++;
+		}
+		place(n, i);
+		if(stats != null) {
+			stats.sift(levels);
+		}
+	}
+	
+	/** Moves the node at index i down the heap until neither child is smaller.
+	 * Smaller children are shifted up into the hole instead of swapped.
+	 * 
+	 * @param i The index of the node to move.
+	 */
+	private void siftDown(int i) {
+		Node n = a.get(i);
+		int size = a.size();
+		int half = size / 2; //indexes from half on are leaves
+		int levels = 0;
+		while(i < half) {
+			int child = 2 * i + 1;
+			Node smaller = a.get(child);
+			int right = child + 1;
+			if(right < size && c.compare(a.get(right).priority, smaller.priority) < 0) {
+				child = right;
+				smaller = a.get(right);
 			}
-			
-			//cases if children are smaller and n should swap down
-			else if (leftDif < 0 || rightDif < 0) {
-				
-				//if both a left and right child exist
-				if(getLeft(n) != null && getRight(n) !=null) {
-					if (c.compare(getLeft(n).priority, getRight(n).priority) < 0) {
-						swap(getLeft(n), n); //progress: n goes down the heap
-					}
-					else {
-						swap(getRight(n), n); //progress: n goes down the heap
-					}
-				}
-				
-				//if at least 1 child is null
-				else if (leftDif < rightDif) {
-					swap(getLeft(n), n); //progress: n goes down the heap
-				}
-				else {
-					swap(getRight(n), n); //progress: n goes down the heap
-				}
-			}//if left is null, right is definitely null (heap is a full tree)
-			
-			//if n is in a position that satisfies the heap invariant
-			else {
-				invariant = true;
+			if(c.compare(n.priority, smaller.priority) <= 0) {
+				break;
 			}
+			place(smaller, i); //progress: the hole goes down the heap
+			i = child;
+			levels++;
+		}
+		place(n, i);
+		if(stats != null) {
+			stats.sift(levels);
 		}
-	
-		
-		
 	}
 	
 	/** Returns the node at contains the specified element and its priority.
@@ -358,10 +436,11 @@ public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 	 */
 	public Node get(E e) throws NoSuchElementException {
 		//case if element e isn't in the heap
-		if(!map.containsKey(e)) {
+		int i = map.get(e);
+		if(i < 0) {
 			throw new NoSuchElementException();
 		}
-		return a.get(map.get(e));
+		return a.get(i);
 	}
 	
 	
@@ -377,7 +456,7 @@ public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 		public Node(E data, P priority, int index) {
 			this.data = data;
 			this.priority = priority;                              
-			map.put(this.data, index); //updates the HashMap when creating a Node
+			map.put(this.data, index); //updates the index when creating a Node
 		}
 	}
 
@@ -632,6 +711,145 @@ public class Heap<E,P> implements a4.PriorityQueue<E,P>{
 			
 			AssertInvariants(Heap);
 		}
+		
+		@Test
+		public void testBulk() {
+			Comparator<Integer> c = new IntegerComparator();
+			assertThrows(IllegalArgumentException.class, () -> {new Heap<Integer,Integer>(c, -1);});
+			Heap<Integer,Integer> Heap = new Heap<Integer,Integer>(c, 1000);
+			java.util.LinkedHashMap<Integer,Integer> jobs = new java.util.LinkedHashMap<Integer,Integer>();
+			for(int i = 0; i < 1000; i++) {
+				jobs.put(i, (i * 7919) % 1000);
+			}
+			Heap.addAll(jobs); //heapify path
+			AssertInvariants(Heap);
+			
+			java.util.LinkedHashMap<Integer,Integer> more = new java.util.LinkedHashMap<Integer,Integer>();
+			for(int i = 1000; i < 1100; i++) {
+				more.put(i, -i);
+			}
+			Heap.addAll(more); //sift-up path
+			AssertInvariants(Heap);
+			more.put(5, 5);
+			assertThrows(IllegalArgumentException.class, () -> {Heap.addAll(more);});
+			assertEquals(Heap.size(), 1100);
+			
+			List<Integer> batch = Heap.pollBatch(100);
+			assertEquals(batch.size(), 100);
+			for(int k = 0; k < 100; k++) {
+				assertEquals(batch.get(k), 1099 - k);
+			}
+			assertThrows(IllegalArgumentException.class, () -> {Heap.pollBatch(-1);});
+			ArrayList<Integer> rest = new ArrayList<Integer>();
+			assertEquals(Heap.drainTo(rest, 10), 10);
+			assertEquals(Heap.drainTo(rest), 990);
+			assertEquals(Heap.size(), 0);
+			for(int k = 0; k < rest.size(); k++) {
+				assertEquals(jobs.get(rest.get(k)), k);
+			}
+			assertTrue(Heap.pollBatch(3).isEmpty());
+		}
+		
+		@Test
+		public void testStats() {
+			Comparator<Integer> c = new IntegerComparator();
+			Heap<Integer,Integer> Heap = new Heap<Integer,Integer>(c);
+			assertNull(Heap.stats());
+			HeapStats stats = new HeapStats();
+			Heap.setStats(stats);
+			for(int i = 0; i < 15; i++) {
+				Heap.add(i, 100 - i); //every add sifts to the root
+			}
+			assertEquals(stats.adds(), 15);
+			assertEquals(stats.peakSize(), 15);
+			assertEquals(stats.deepestSift(), 3);
+			Heap.changePriority(0, -1);
+			Heap.poll();
+			Heap.poll();
+			assertEquals(stats.changePriorities(), 1);
+			assertEquals(stats.polls(), 2);
+			assertEquals(stats.sifts(), 15 + 1 + 2);
+			Heap.setStats(null);
+			Heap.poll();
+			assertEquals(stats.polls(), 2);
+			stats.reset();
+			assertEquals(stats.moves(), 0);
+		}
+		
+		/** An element that keeps its own heap slot. */
+		private static class Job implements HeapIndexed {
+			private int slot = -1;
+			
+			@Override
+			public int heapIndex() {
+				return slot;
+			}
+			
+			@Override
+			public void setHeapIndex(int i) {
+				slot = i;
+			}
+		}
+		
+		@Test
+		public void testIndexStrategies() {
+			Comparator<Integer> c = new IntegerComparator();
+			Heap<Integer,Integer> hashed = new Heap<Integer,Integer>(c, 0, HeapIndex.<Integer>hash(0));
+			Heap<Integer,Integer> open = new Heap<Integer,Integer>(c, 0, HeapIndex.<Integer>open(0));
+			for(Heap<Integer,Integer> Heap : java.util.Arrays.asList(hashed, open)) {
+				for(int i = 0; i < 50; i++) {
+					Heap.add(i, (i * 37) % 50);
+				}
+				assertThrows(IllegalArgumentException.class, () -> {Heap.add(7, 1);});
+				Heap.changePriority(49, -1);
+				AssertInvariants(Heap);
+				assertEquals(Heap.poll(), (Integer) 49);
+				assertFalse(Heap.contains(49));
+				assertThrows(NoSuchElementException.class, () -> {Heap.changePriority(49, 1);});
+			}
+			
+			Heap<Job,Integer> jobs = new Heap<Job,Integer>(c, 0, HeapIndex.<Job>intrusive());
+			Job[] j = new Job[20];
+			for(int i = 0; i < j.length; i++) {
+				j[i] = new Job();
+				jobs.add(j[i], 20 - i);
+			}
+			AssertInvariants(jobs);
+			assertTrue(jobs.contains(j[3]));
+			assertEquals(jobs.a.get(j[3].heapIndex()).data, j[3]);
+			jobs.changePriority(j[3], 0);
+			assertEquals(j[3].heapIndex(), 0);
+			assertEquals(jobs.poll(), j[3]);
+			assertEquals(j[3].heapIndex(), -1);
+			assertFalse(jobs.contains(j[3]));
+			assertEquals(jobs.poll(), j[19]);
+			AssertInvariants(jobs);
+		}
+		
+		/** Heap(Comparator) kept the HashMap index, so null is still an element. */
+		@Test
+		public void testNullElement() {
+			Heap<Integer,Integer> h = new Heap<Integer,Integer>(new IntegerComparator());
+			h.add(null, 5);
+			h.add(1, 3);
+			assertTrue(h.contains(null));
+			h.changePriority(null, 1);
+			assertEquals(h.poll(), null);
+			assertFalse(h.contains(null));
+			assertEquals(h.poll(), (Integer) 1);
+			assertThrows(NullPointerException.class, () -> {new Heap<Integer,Integer>(new IntegerComparator(), 10).add(null, 5);});
+		}
+		
+		@Test
+		public void testIndexCapacityLimit() {
+			Comparator<Integer> c = new IntegerComparator();
+			//sizing for these used to double the table past 2^30 and loop forever
+			assertThrows(IllegalArgumentException.class, () -> {HeapIndex.<Integer>open(600_000_000);});
+			assertThrows(IllegalArgumentException.class, () -> {HeapIndex.<Integer>open(Integer.MAX_VALUE);});
+			assertThrows(IllegalArgumentException.class, () -> {new Heap<Integer,Integer>(c, 600_000_000);});
+			assertThrows(IllegalArgumentException.class, () -> {new IntPriorityHeap<Integer>(600_000_000);});
+			assertThrows(IllegalArgumentException.class, () -> {new BoundedHeap<Integer,Integer>(600_000_000, c);});
+		}
 	} 
 }
 
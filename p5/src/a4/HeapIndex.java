@@ -0,0 +1,44 @@
+package a4;
+
+/** Finds the slot of each element in a heap array.
+ *
+ * Heap calls put every time a node moves during a sift, so put is the
+ * operation to make cheap. Three strategies are provided:
+ * <ul>
+ * <li>hash(): a java.util.HashMap from element to boxed slot;</li>
+ * <li>open(): an open-addressing table of elements and int slots in two
+ *     parallel arrays, with no boxing and no entry objects;</li>
+ * <li>intrusive(): no table at all; each element implements HeapIndexed
+ *     and stores its own slot, so a move is one field write.</li>
+ * </ul>
+ */
+public interface HeapIndex<E> {
+	/** Return the slot recorded for e, or -1 if e is not in the heap. */
+	public int get(Object e);
+
+	/** Record slot as the slot of e, adding e if it is not already present. */
+	public void put(E e, int slot);
+
+	/** Forget e. Does nothing if e is not present. */
+	public void remove(Object e);
+
+	/** Return an index backed by a HashMap sized for expected elements. */
+	public static <E> HeapIndex<E> hash(int expected) {
+		return new HashHeapIndex<E>(expected);
+	}
+
+	/** Return an open-addressing index sized for expected elements.
+	 * Elements must not be null, and the index holds at most 2^29 of them.
+	 *
+	 * @throws IllegalArgumentException if expected is above 2^29.
+	 */
+	public static <E> HeapIndex<E> open(int expected) throws IllegalArgumentException {
+		return new OpenHeapIndex<E>(expected);
+	}
+
+	/** Return an index that keeps each element's slot in the element itself.
+	 * An element can then be in only one such heap at a time. */
+	public static <E extends HeapIndexed> HeapIndex<E> intrusive() {
+		return new IntrusiveHeapIndex<E>();
+	}
+}
@@ -0,0 +1,16 @@
+package a4;
+
+/** An element that stores its own slot in a heap, for HeapIndex.intrusive().
+ *
+ * A typical implementation is an int field that starts at -1 with a getter
+ * and a setter. The element must not be in more than one intrusively
+ * indexed heap at a time, since it has room for only one slot.
+ */
+public interface HeapIndexed {
+	/** Return the slot last given to setHeapIndex, or -1 if the element is
+	 * in no heap; -1 before setHeapIndex is first called. */
+	public int heapIndex();
+
+	/** Record i as this element's slot; -1 means it has left the heap. */
+	public void setHeapIndex(int i);
+}
@@ -0,0 +1,132 @@
+package a4;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/** Counters describing the operations on a Heap.
+ *
+ * Attach an instance with Heap.setStats to start counting; a Heap with no
+ * stats (the default) only pays one null check per operation. Like Heap,
+ * counting is not synchronized, so other threads, such as a JMX client
+ * after register(), may read slightly stale totals.
+ */
+public class HeapStats implements HeapStatsMXBean {
+	long adds;
+	long polls;
+	long changes;
+	long sifts; //siftUp and siftDown calls
+	long moves; //levels moved by all sifts; each is what a swap used to be
+	int deepestSift;
+	int peakSize;
+
+	/** Return the number of add calls. */
+	public long adds() {
+		return adds;
+	}
+
+	/** Return the number of poll calls that removed an element. */
+	public long polls() {
+		return polls;
+	}
+
+	/** Return the number of changePriority calls that changed an element. */
+	public long changePriorities() {
+		return changes;
+	}
+
+	/** Return the number of times an element was sifted up or down. */
+	public long sifts() {
+		return sifts;
+	}
+
+	/** Return the total number of levels elements were sifted by. */
+	public long moves() {
+		return moves;
+	}
+
+	/** Return the most levels a single sift moved an element. */
+	public int deepestSift() {
+		return deepestSift;
+	}
+
+	/** Return the largest size the heap reached. */
+	public int peakSize() {
+		return peakSize;
+	}
+
+	/** Notes a sift that moved an element the given number of levels. */
+	void sift(int levels) {
+		sifts++;
+		moves += levels;
+		if(levels > deepestSift) {
+			deepestSift = levels;
+		}
+	}
+
+	/** Set every counter back to zero. */
+	@Override
+	public void reset() {
+		adds = 0;
+		polls = 0;
+		changes = 0;
+		sifts = 0;
+		moves = 0;
+		deepestSift = 0;
+		peakSize = 0;
+	}
+
+	/**
+	 * Register this with the platform MBean server under name, e.g.
+	 * "a4:type=HeapStats,name=jobs", and return the name.
+	 *
+	 * @throws JMException if name is malformed or already registered.
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName on = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+		return on;
+	}
+
+	@Override
+	public long getAdds() {
+		return adds;
+	}
+
+	@Override
+	public long getPolls() {
+		return polls;
+	}
+
+	@Override
+	public long getChangePriorities() {
+		return changes;
+	}
+
+	@Override
+	public long getSifts() {
+		return sifts;
+	}
+
+	@Override
+	public long getMoves() {
+		return moves;
+	}
+
+	@Override
+	public int getDeepestSift() {
+		return deepestSift;
+	}
+
+	@Override
+	public int getPeakSize() {
+		return peakSize;
+	}
+
+	@Override
+	public String toString() {
+		return "adds=" + adds + " polls=" + polls + " changes=" + changes + " sifts=" + sifts
+				+ " moves=" + moves + " deepest=" + deepestSift + " peak=" + peakSize;
+	}
+}
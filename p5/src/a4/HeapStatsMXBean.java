@@ -0,0 +1,20 @@
+package a4;
+
+/** The management interface of HeapStats, for monitoring it over JMX. */
+public interface HeapStatsMXBean {
+	long getAdds();
+
+	long getPolls();
+
+	long getChangePriorities();
+
+	long getSifts();
+
+	long getMoves();
+
+	int getDeepestSift();
+
+	int getPeakSize();
+
+	void reset();
+}
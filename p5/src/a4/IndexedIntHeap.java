@@ -0,0 +1,238 @@
+package a4;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A binary min-heap of int ids in [0, capacity) with int priorities.
+ *
+ * Because elements are small ints, the slot of each id is kept in a plain
+ * int[] indexed by id instead of a hash map, and nothing is ever boxed or
+ * allocated after construction. This is the frontier for searches over
+ * graphs whose nodes are numbered, such as a5.CsrGraph.
+ *
+ * Like PriorityQueue, each id can be in the heap at most once.
+ */
+public class IndexedIntHeap {
+	private final int[] heap; //ids by slot
+	private final int[] priority; //priorities by id
+	private final int[] slot; //slot by id, or -1 if the id is not in the heap
+	private int size;
+
+	/** Constructor creates an empty heap for ids in [0, capacity).
+	 *
+	 * @param capacity One more than the largest id that will be added.
+	 */
+	public IndexedIntHeap(int capacity) {
+		heap = new int[capacity];
+		priority = new int[capacity];
+		slot = new int[capacity];
+		Arrays.fill(slot, -1);
+	}
+
+	/** Returns one more than the largest id this heap can hold. */
+	public int capacity() {
+		return slot.length;
+	}
+
+	/** Returns the number of ids in this heap. Runs in O(1) time. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if id is in this heap. Runs in O(1) time. */
+	public boolean contains(int id) {
+		return slot[id] >= 0;
+	}
+
+	/** Returns the priority of id.
+	 *
+	 * @throws NoSuchElementException if id is not in this heap.
+	 */
+	public int priority(int id) throws NoSuchElementException {
+		if(slot[id] < 0) {
+			throw new NoSuchElementException();
+		}
+		return priority[id];
+	}
+
+	/** Removes and returns the id with the smallest priority. Runs in O(log n) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	public int poll() throws NoSuchElementException {
+		int root = peek();
+		slot[root] = -1;
+		size--;
+		if(size > 0) {
+			siftDown(0, heap[size]);
+		}
+		return root;
+	}
+
+	/** Returns the id with the smallest priority. Runs in O(1) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	public int peek() throws NoSuchElementException {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+		return heap[0];
+	}
+
+	/** Returns the smallest priority in the heap. Runs in O(1) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	public int peekPriority() throws NoSuchElementException {
+		return priority[peek()];
+	}
+
+	/** Adds id with priority p. Runs in O(log n) time.
+	 *
+	 * @throws IllegalArgumentException if id is already in this heap.
+	 */
+	public void add(int id, int p) throws IllegalArgumentException {
+		if(slot[id] >= 0) {
+			throw new IllegalArgumentException();
+		}
+		priority[id] = p;
+		size++;
+		siftUp(size - 1, id);
+	}
+
+	/** Changes the priority of id to p. Runs in O(log n) time.
+	 *
+	 * @throws NoSuchElementException if id is not in this heap.
+	 */
+	public void changePriority(int id, int p) throws NoSuchElementException {
+		int i = slot[id];
+		if(i < 0) {
+			throw new NoSuchElementException();
+		}
+		int old = priority[id];
+		priority[id] = p;
+		if(p < old) {
+			siftUp(i, id);
+		} else {
+			siftDown(i, id);
+		}
+	}
+
+	/** Removes every id. Runs in O(n) time in the number of ids removed. */
+	public void clear() {
+		for(int i = 0; i < size; i++) {
+			slot[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/** Places id at slot i or above, shifting larger ancestors down. */
+	private void siftUp(int i, int id) {
+		int p = priority[id];
+		while(i > 0) {
+			int parent = (i - 1) / 2;
+			int above = heap[parent];
+			if(priority[above] <= p) {
+				break;
+			}
+			heap[i] = above;
+			slot[above] = i;
+			i = parent;
+		}
+		heap[i] = id;
+		slot[id] = i;
+	}
+
+	/** Places id at slot i or below, shifting smaller children up. */
+	private void siftDown(int i, int id) {
+		int p = priority[id];
+		int half = size / 2; //slots from half on are leaves
+		while(i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if(right < size && priority[heap[right]] < priority[heap[child]]) {
+				child = right;
+			}
+			int below = heap[child];
+			if(p <= priority[below]) {
+				break;
+			}
+			heap[i] = below;
+			slot[below] = i;
+			i = child;
+		}
+		heap[i] = id;
+		slot[id] = i;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Glass box tests for IndexedIntHeap. */
+	public static class Tests {
+
+		/** Asserts that the heap satisfies its invariants. */
+		private static void assertInvariants(IndexedIntHeap h) {
+			int present = 0;
+			for(int id = 0; id < h.capacity(); id++) {
+				if(h.slot[id] >= 0) {
+					present++;
+					assertEquals(h.heap[h.slot[id]], id);
+				}
+			}
+			assertEquals(present, h.size);
+			for(int i = 1; i < h.size; i++) {
+				assertTrue(h.priority[h.heap[(i - 1) / 2]] <= h.priority[h.heap[i]]);
+			}
+		}
+
+		@Test
+		public void testAddPoll() {
+			IndexedIntHeap h = new IndexedIntHeap(10);
+			assertThrows(NoSuchElementException.class, () -> {h.poll();});
+			h.add(3, 7);
+			h.add(1, -2);
+			h.add(7, 5);
+			h.add(0, 9);
+			assertThrows(IllegalArgumentException.class, () -> {h.add(7, 1);});
+			assertInvariants(h);
+			assertTrue(h.contains(7));
+			assertFalse(h.contains(2));
+			assertEquals(h.peekPriority(), -2);
+			assertEquals(h.poll(), 1);
+			assertEquals(h.poll(), 7);
+			assertEquals(h.poll(), 3);
+			assertEquals(h.poll(), 0);
+			assertEquals(h.size(), 0);
+		}
+
+		@Test
+		public void testChangePriorityAndClear() {
+			IndexedIntHeap h = new IndexedIntHeap(500);
+			for(int i = 0; i < 500; i++) {
+				h.add(i, (i * 7919) % 500);
+			}
+			assertThrows(NoSuchElementException.class, () -> {
+				IndexedIntHeap g = new IndexedIntHeap(2);
+				g.changePriority(1, 0);
+			});
+			for(int i = 0; i < 500; i += 3) {
+				h.changePriority(i, (i % 2 == 0) ? -i : 1000 + i);
+			}
+			assertInvariants(h);
+			int last = Integer.MIN_VALUE;
+			for(int k = 0; k < 250; k++) {
+				int p = h.peekPriority();
+				assertTrue(last <= p);
+				last = p;
+				h.poll();
+			}
+			h.clear();
+			assertInvariants(h);
+			assertEquals(h.size(), 0);
+			h.add(5, 1);
+			assertEquals(h.poll(), 5);
+		}
+	}
+}
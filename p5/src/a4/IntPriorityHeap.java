@@ -0,0 +1,306 @@
+package a4;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A binary min-heap whose priorities are primitive ints.
+ *
+ * Elements are kept in an Object[] and their priorities in a parallel int[],
+ * and each element's slot is tracked by an OpenHeapIndex. Apart from growing
+ * the arrays, add(E, int), changePriority(E, int) and poll() do not allocate:
+ * there are no node objects and no boxed priorities.
+ *
+ * The methods taking an Integer priority are provided to satisfy
+ * PriorityQueue; they unbox and call the int versions. When E is Integer, pass
+ * the element as an Integer (not an int) so the call is not ambiguous.
+ */
+public class IntPriorityHeap<E> implements IntPriorityQueue<E> {
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private Object[] elements;
+	private int[] priorities;
+	private int size;
+	private OpenHeapIndex<E> index;
+
+	/** Constructor creates an empty heap. */
+	public IntPriorityHeap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/** Constructor creates an empty heap that can hold capacity elements
+	 * before any of its arrays need to grow.
+	 *
+	 * @param capacity The number of elements to presize for.
+	 * @throws IllegalArgumentException if capacity is more than an
+	 *                                  OpenHeapIndex can hold.
+	 */
+	public IntPriorityHeap(int capacity) throws IllegalArgumentException {
+		capacity = Math.max(capacity, 1);
+		index = new OpenHeapIndex<E>(capacity); //first, so a bad capacity fails before the arrays are allocated
+		elements = new Object[capacity];
+		priorities = new int[capacity];
+	}
+
+	/** Returns the natural ordering on Integer; smaller priorities come first. */
+	@Override
+	public Comparator<? super Integer> comparator() {
+		return Comparator.naturalOrder();
+	}
+
+	/** Returns the number of elements in this heap. Runs in O(1) time. */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if the heap contains e. Runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return index.contains(e);
+	}
+
+	/** Removes and returns the element with the smallest priority.
+	 * Runs in O(log n) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	public E poll() throws NoSuchElementException {
+		E root = peek();
+		index.remove(root);
+		size--;
+		if(size > 0) {
+			//move the last element into the root's place and let it sink
+			Object last = elements[size];
+			int lastPriority = priorities[size];
+			elements[size] = null;
+			siftDown(0, last, lastPriority);
+		} else {
+			elements[0] = null;
+		}
+		return root;
+	}
+
+	/** Returns the element with the smallest priority. Runs in O(1) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() throws NoSuchElementException {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+		return (E) elements[0];
+	}
+
+	/** Returns the smallest priority in the heap. Runs in O(1) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	public int peekPriority() throws NoSuchElementException {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+		return priorities[0];
+	}
+
+	/** Returns the priority of e. Runs in O(1) expected time.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 */
+	public int priority(E e) throws NoSuchElementException {
+		int i = index.get(e);
+		if(i < 0) {
+			throw new NoSuchElementException();
+		}
+		return priorities[i];
+	}
+
+	/** Adds the element e with priority p to the heap. Runs in O(log n) time.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals())
+	 */
+	@Override
+	public void add(E e, Integer p) throws IllegalArgumentException {
+		add(e, p.intValue());
+	}
+
+	/** Adds the element e with priority p to the heap without boxing p.
+	 * Runs in O(log n) time.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals())
+	 */
+	@Override
+	public void add(E e, int p) throws IllegalArgumentException {
+		if(index.contains(e)) {
+			throw new IllegalArgumentException();
+		}
+		if(size == elements.length) {
+			elements = Arrays.copyOf(elements, size * 2);
+			priorities = Arrays.copyOf(priorities, size * 2);
+		}
+		size++;
+		siftUp(size - 1, e, p);
+	}
+
+	/** Changes the priority of e to p. Runs in O(log n) time.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 */
+	@Override
+	public void changePriority(E e, Integer p) throws NoSuchElementException {
+		changePriority(e, p.intValue());
+	}
+
+	/** Changes the priority of e to p without boxing p. Runs in O(log n) time.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 */
+	@Override
+	public void changePriority(E e, int p) throws NoSuchElementException {
+		int i = index.get(e);
+		if(i < 0) {
+			throw new NoSuchElementException();
+		}
+		if(p < priorities[i]) {
+			siftUp(i, e, p);
+		} else {
+			siftDown(i, e, p);
+		}
+	}
+
+	/** Places e with priority p at slot i or above, shifting larger ancestors
+	 * down into the hole.
+	 */
+	private void siftUp(int i, Object e, int p) {
+		while(i > 0) {
+			int parent = (i - 1) / 2;
+			if(priorities[parent] <= p) {
+				break;
+			}
+			set(i, elements[parent], priorities[parent]);
+			i = parent;
+		}
+		set(i, e, p);
+	}
+
+	/** Places e with priority p at slot i or below, shifting smaller children
+	 * up into the hole.
+	 */
+	private void siftDown(int i, Object e, int p) {
+		int half = size / 2; //slots from half on are leaves
+		while(i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if(right < size && priorities[right] < priorities[child]) {
+				child = right;
+			}
+			if(p <= priorities[child]) {
+				break;
+			}
+			set(i, elements[child], priorities[child]);
+			i = child;
+		}
+		set(i, e, p);
+	}
+
+	/** Stores e with priority p at slot i and records the slot in the index. */
+	private void set(int i, Object e, int p) {
+		elements[i] = e;
+		priorities[i] = p;
+		index.put(e, i);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Glass box tests for IntPriorityHeap. */
+	public static class Tests {
+
+		/** Asserts that the heap satisfies its invariants. */
+		private static void assertInvariants(IntPriorityHeap<?> h) {
+			assertEquals(h.size, h.index.size());
+			for(int i = 0; i < h.size; i++) {
+				assertEquals(h.index.get(h.elements[i]), i);
+				if(i > 0) {
+					assertTrue(h.priorities[(i - 1) / 2] <= h.priorities[i]);
+				}
+			}
+		}
+
+		@Test
+		public void testAddPeekPoll() {
+			IntPriorityHeap<String> h = new IntPriorityHeap<String>(2);
+			assertThrows(NoSuchElementException.class, () -> {h.poll();});
+			assertThrows(NoSuchElementException.class, () -> {h.peek();});
+			h.add("Mike", 1);
+			h.add("Joe", 3);
+			h.add("Carl", -3);
+			h.add("Bob", 7);
+			h.add("Grant", 12);
+			assertThrows(IllegalArgumentException.class, () -> {h.add("Bob", 2);});
+			assertInvariants(h);
+			assertEquals(h.peek(), "Carl");
+			assertEquals(h.peekPriority(), -3);
+			assertTrue(h.contains("Carl"));
+			assertEquals(h.poll(), "Carl");
+			assertFalse(h.contains("Carl"));
+			assertEquals(h.poll(), "Mike");
+			assertEquals(h.poll(), "Joe");
+			assertInvariants(h);
+			assertEquals(h.size(), 2);
+			assertEquals(h.poll(), "Bob");
+			assertEquals(h.poll(), "Grant");
+			assertEquals(h.size(), 0);
+		}
+
+		@Test
+		public void testChangePriority() {
+			IntPriorityHeap<String> h = new IntPriorityHeap<String>();
+			h.add("Mike", 1);
+			h.add("Joe", 3);
+			h.add("Carl", -3);
+			h.add("Bob", 7);
+			h.add("Grant", 12);
+			assertThrows(NoSuchElementException.class, () -> {h.changePriority("Luke", 7);});
+			h.changePriority("Grant", -5);
+			assertEquals(h.peek(), "Grant");
+			h.changePriority("Grant", 20);
+			h.changePriority("Carl", Integer.valueOf(4));
+			assertEquals(h.priority("Carl"), 4);
+			assertInvariants(h);
+			assertEquals(h.poll(), "Mike");
+			assertEquals(h.poll(), "Joe");
+			assertEquals(h.poll(), "Carl");
+			assertEquals(h.poll(), "Bob");
+			assertEquals(h.poll(), "Grant");
+		}
+
+		@Test
+		public void testManyElements() {
+			IntPriorityHeap<Integer> h = new IntPriorityHeap<Integer>();
+			for(int i = 0; i < 1000; i++) {
+				h.add(Integer.valueOf(i), (i * 7919) % 1000);
+			}
+			for(int i = 0; i < 1000; i += 3) {
+				h.changePriority(Integer.valueOf(i), -i);
+			}
+			assertInvariants(h);
+			int last = Integer.MIN_VALUE;
+			while(h.size() > 0) {
+				int p = h.peekPriority();
+				assertTrue(last <= p);
+				last = p;
+				h.poll();
+				if(h.size() % 97 == 0) {
+					assertInvariants(h);
+				}
+			}
+		}
+	}
+}
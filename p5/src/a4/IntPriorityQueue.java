@@ -0,0 +1,33 @@
+package a4;
+
+import java.util.NoSuchElementException;
+
+/** A PriorityQueue with int priorities in natural order whose priorities can
+ * be given and read without boxing.
+ *
+ * The methods taking an Integer priority unbox and call the int versions.
+ */
+public interface IntPriorityQueue<E> extends PriorityQueue<E,Integer> {
+
+	/**
+	 * Return the smallest priority in this.
+	 *
+	 * @throws NoSuchElementException if this is empty.
+	 */
+	public int peekPriority() throws NoSuchElementException;
+
+	/**
+	 * Add the element e with priority p to this without boxing p.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals())
+	 */
+	public void add(E e, int p) throws IllegalArgumentException;
+
+	/**
+	 * Change the priority associated with e to p without boxing p.
+	 *
+	 * @throws NoSuchElementException if this does not contain e.
+	 */
+	public void changePriority(E e, int p) throws NoSuchElementException;
+}
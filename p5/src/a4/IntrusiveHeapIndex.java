@@ -0,0 +1,21 @@
+package a4;
+
+/** A HeapIndex that keeps each element's slot in the element itself, so
+ * finding or moving an element never hashes. */
+class IntrusiveHeapIndex<E extends HeapIndexed> implements HeapIndex<E> {
+
+	@Override
+	public int get(Object e) {
+		return ((HeapIndexed) e).heapIndex();
+	}
+
+	@Override
+	public void put(E e, int slot) {
+		e.setHeapIndex(slot);
+	}
+
+	@Override
+	public void remove(Object e) {
+		((HeapIndexed) e).setHeapIndex(-1);
+	}
+}
@@ -0,0 +1,151 @@
+package a4;
+
+/** An open-addressing map from heap elements to their int slot in the heap
+ * array. Keys and slots live in two parallel arrays, so lookups and updates
+ * neither box the slot nor allocate an entry object; only growing the table
+ * allocates.
+ *
+ * Collisions are resolved by linear probing, and removal shifts later
+ * entries of the probe run back instead of leaving tombstones. The table
+ * stops at MAX_CAPACITY slots, so it holds at most MAX_ELEMENTS elements.
+ */
+class OpenHeapIndex<E> implements HeapIndex<E> {
+	private static final int MIN_CAPACITY = 16;
+	/** The largest table; doubling it again would overflow an int. */
+	static final int MAX_CAPACITY = 1 << 30;
+	/** The most elements the largest table holds at load factor 1/2. */
+	static final int MAX_ELEMENTS = MAX_CAPACITY / 2;
+
+	private Object[] keys; //null marks an empty slot
+	private int[] slots;
+	private int size;
+
+	/** Constructor creates an empty index able to hold expected elements
+	 * without growing.
+	 *
+	 * @param expected The number of elements to size the table for.
+	 * @throws IllegalArgumentException if expected is above MAX_ELEMENTS.
+	 */
+	OpenHeapIndex(int expected) throws IllegalArgumentException {
+		if(expected > MAX_ELEMENTS) {
+			throw new IllegalArgumentException("an index holds at most " + MAX_ELEMENTS + " elements: " + expected);
+		}
+		int capacity = MIN_CAPACITY;
+		while(capacity < expected * 2) { //keep the load factor at or below 1/2
+			capacity <<= 1;
+		}
+		keys = new Object[capacity];
+		slots = new int[capacity];
+	}
+
+	/** Returns the number of elements in this index. */
+	int size() {
+		return size;
+	}
+
+	/** Returns the slot recorded for e, or -1 if e is not in this index. */
+	@Override
+	public int get(Object e) {
+		int mask = keys.length - 1;
+		for(int i = hash(e) & mask; keys[i] != null; i = (i + 1) & mask) {
+			if(keys[i].equals(e)) {
+				return slots[i];
+			}
+		}
+		return -1;
+	}
+
+	/** Returns true if e is in this index. */
+	boolean contains(Object e) {
+		return get(e) >= 0;
+	}
+
+	/** Records slot as the slot of e, adding e if it is not already present.
+	 *
+	 * @param e The element; must not be null.
+	 * @param slot The slot of e in the heap array.
+	 * @throws IllegalStateException if e is new and the index already holds
+	 *                               MAX_ELEMENTS elements.
+	 */
+	@Override
+	public void put(Object e, int slot) throws IllegalStateException {
+		int mask = keys.length - 1;
+		int i = hash(e) & mask;
+		while(keys[i] != null) {
+			if(keys[i].equals(e)) {
+				slots[i] = slot;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		if(size == MAX_ELEMENTS) {
+			throw new IllegalStateException("an index holds at most " + MAX_ELEMENTS + " elements");
+		}
+		keys[i] = e;
+		slots[i] = slot;
+		size++;
+		if(size * 2 > keys.length) {
+			grow();
+		}
+	}
+
+	/** Removes e from this index. Does nothing if e is not present. */
+	@Override
+	public void remove(Object e) {
+		int mask = keys.length - 1;
+		int i = hash(e) & mask;
+		while(keys[i] != null && !keys[i].equals(e)) {
+			i = (i + 1) & mask;
+		}
+		if(keys[i] == null) {
+			return;
+		}
+
+		//shift back every later entry of the run whose home slot is not in (i, j]
+		int j = i;
+		while(true) {
+			j = (j + 1) & mask;
+			if(keys[j] == null) {
+				break;
+			}
+			int home = hash(keys[j]) & mask;
+			boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+			if(!between) {
+				keys[i] = keys[j];
+				slots[i] = slots[j];
+				i = j;
+			}
+		}
+		keys[i] = null;
+		size--;
+	}
+
+	/** Removes every element from this index, keeping the table. */
+	void clear() {
+		java.util.Arrays.fill(keys, null);
+		size = 0;
+	}
+
+	/** Doubles the table and reinserts every element. put never lets size
+	 * pass MAX_ELEMENTS, so this is never called on a MAX_CAPACITY table. */
+	private void grow() {
+		Object[] oldKeys = keys;
+		int[] oldSlots = slots;
+		keys = new Object[oldKeys.length * 2];
+		slots = new int[oldKeys.length * 2];
+		size = 0;
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				put(oldKeys[i], oldSlots[i]);
+			}
+		}
+	}
+
+	/** Spreads the bits of e's hash code so that linear probing on the low
+	 * bits does not cluster on weak hash codes.
+	 */
+	private static int hash(Object e) {
+		int h = e.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,292 @@
+package a4;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A pairing min-heap.
+ *
+ * The heap is a tree of nodes in which every node's priority is no larger
+ * than its children's. add and a decreasing changePriority just cut a
+ * subtree and link it with the root, which takes O(1) time; the work is
+ * deferred to poll, which merges the root's children pairwise in O(log n)
+ * amortized time. An increasing changePriority removes the node and adds it
+ * back.
+ *
+ * Each node keeps its leftmost child, its next sibling and "prev", which is
+ * its previous sibling or, for a leftmost child, its parent.
+ */
+public class PairingHeap<E,P> implements a4.PriorityQueue<E,P> {
+	private final Comparator<? super P> c;
+	private Node root;
+	private HashMap<E,Node> map = new HashMap<E,Node>(); //creating HashMap to find the node of an element
+	private ArrayList<Node> pairs = new ArrayList<Node>(); //scratch list reused by mergePairs
+
+	/** Constructor creates an empty pairing heap with given comparator.
+	 *
+	 * @param c The comparator given to the heap.
+	 */
+	public PairingHeap(Comparator<? super P> c) {
+		this.c = c;
+	}
+
+	/** Returns the comparator used for ordering priorities. */
+	@Override
+	public Comparator<? super P> comparator() {
+		return c;
+	}
+
+	/** Returns the number of elements in this heap. Runs in O(1) time. */
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	/** Returns true if the heap contains e. Runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return map.containsKey(e);
+	}
+
+	/** Removes and returns the element with the smallest priority.
+	 * Runs in O(log n) amortized time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	public E poll() throws NoSuchElementException {
+		E e = peek();
+		map.remove(e);
+		root = mergePairs(root.child);
+		if(root != null) {
+			root.prev = null;
+		}
+		return e;
+	}
+
+	/** Returns the element with the smallest priority. Runs in O(1) time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	public E peek() throws NoSuchElementException {
+		if(root == null) {
+			throw new NoSuchElementException();
+		}
+		return root.data;
+	}
+
+	/** Adds the element e with priority p to the heap. Runs in O(1) time.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals())
+	 */
+	@Override
+	public void add(E e, P p) throws IllegalArgumentException {
+		if(map.containsKey(e)) {
+			throw new IllegalArgumentException();
+		}
+		Node n = new Node(e, p);
+		map.put(e, n);
+		root = link(root, n);
+	}
+
+	/** Changes the priority of e to p. Runs in O(1) time if p is smaller than
+	 * the old priority and O(log n) amortized time otherwise.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 */
+	@Override
+	public void changePriority(E e, P p) throws NoSuchElementException {
+		Node n = map.get(e);
+		if(n == null) {
+			throw new NoSuchElementException();
+		}
+		boolean decrease = c.compare(p, n.priority) < 0;
+		n.priority = p;
+		if(n == root) {
+			//only an increase can break the invariant at the root
+			if(!decrease) {
+				root = mergePairs(n.child);
+				n.child = null;
+				if(root != null) {
+					root.prev = null;
+				}
+				root = link(root, n);
+			}
+			return;
+		}
+		cut(n);
+		if(!decrease) {
+			//n's children may now be smaller than n; detach them as their own heap
+			Node rest = mergePairs(n.child);
+			n.child = null;
+			if(rest != null) {
+				rest.prev = null;
+				root = link(root, rest);
+			}
+		}
+		root = link(root, n);
+	}
+
+	/** Detaches the subtree rooted at n (which is not the root) from its parent. */
+	private void cut(Node n) {
+		if(n.prev.child == n) {
+			n.prev.child = n.next; //n is a leftmost child
+		} else {
+			n.prev.next = n.next;
+		}
+		if(n.next != null) {
+			n.next.prev = n.prev;
+		}
+		n.prev = null;
+		n.next = null;
+	}
+
+	/** Links two detached trees and returns the root of the result: the root
+	 * with the larger priority becomes the leftmost child of the other.
+	 */
+	private Node link(Node a, Node b) {
+		if(a == null) {
+			return b;
+		}
+		if(b == null) {
+			return a;
+		}
+		if(c.compare(b.priority, a.priority) < 0) {
+			Node tmp = a;
+			a = b;
+			b = tmp;
+		}
+		b.next = a.child;
+		if(a.child != null) {
+			a.child.prev = b;
+		}
+		b.prev = a;
+		a.child = b;
+		a.next = null;
+		return a;
+	}
+
+	/** Merges a list of sibling trees into one: links them in pairs from left
+	 * to right, then links the results from right to left.
+	 *
+	 * @param first The leftmost tree of the sibling list, or null.
+	 * @return the root of the merged tree, or null if the list was empty.
+	 */
+	private Node mergePairs(Node first) {
+		pairs.clear();
+		Node n = first;
+		while(n != null) {
+			Node a = n;
+			Node b = a.next;
+			n = (b == null) ? null : b.next;
+			a.prev = null;
+			a.next = null;
+			if(b != null) {
+				b.prev = null;
+				b.next = null;
+			}
+			pairs.add(link(a, b));
+		}
+		Node result = null;
+		for(int i = pairs.size() - 1; i >= 0; i--) {
+			result = link(pairs.get(i), result);
+		}
+		pairs.clear();
+		return result;
+	}
+
+	/** Node class: holds an element, its priority and its tree links. */
+	private class Node {
+		E data;
+		P priority;
+		Node child; //leftmost child
+		Node next; //next sibling
+		Node prev; //previous sibling, or parent if this is a leftmost child
+
+		public Node(E data, P priority) {
+			this.data = data;
+			this.priority = priority;
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Glass box tests for PairingHeap. */
+	public static class Tests {
+
+		/** Asserts that every node is no smaller than its parent and that the
+		 * links and the HashMap are consistent. */
+		private static void assertInvariants(PairingHeap<?,Integer> h) {
+			int count = (h.root == null) ? 0 : check(h, h.root);
+			assertEquals(count, h.size());
+			if(h.root != null) {
+				assertNull(h.root.prev);
+				assertNull(h.root.next);
+			}
+		}
+
+		/** Checks the subtree rooted at n and returns its size. */
+		private static int check(PairingHeap<?,Integer> h, PairingHeap<?,Integer>.Node n) {
+			assertSame(h.map.get(n.data), n);
+			int count = 1;
+			PairingHeap<?,Integer>.Node prev = n;
+			for(PairingHeap<?,Integer>.Node ch = n.child; ch != null; ch = ch.next) {
+				assertSame(ch.prev, prev);
+				assertTrue(n.priority <= ch.priority);
+				count += check(h, ch);
+				prev = ch;
+			}
+			return count;
+		}
+
+		@Test
+		public void testPollOrder() {
+			PairingHeap<String,Integer> h = new PairingHeap<String,Integer>(Comparator.naturalOrder());
+			assertThrows(NoSuchElementException.class, () -> {h.poll();});
+			h.add("Mike", 1);
+			h.add("Joe", 3);
+			h.add("Carl", -3);
+			h.add("Bob", 7);
+			h.add("Grant", 12);
+			assertThrows(IllegalArgumentException.class, () -> {h.add("Joe", 5);});
+			assertInvariants(h);
+			assertEquals(h.peek(), "Carl");
+			assertEquals(h.poll(), "Carl");
+			assertInvariants(h);
+			assertEquals(h.poll(), "Mike");
+			assertEquals(h.poll(), "Joe");
+			assertEquals(h.poll(), "Bob");
+			assertEquals(h.poll(), "Grant");
+			assertEquals(h.size(), 0);
+		}
+
+		@Test
+		public void testChangePriority() {
+			PairingHeap<Integer,Integer> h = new PairingHeap<Integer,Integer>(Comparator.naturalOrder());
+			for(int i = 0; i < 500; i++) {
+				h.add(i, (i * 7919) % 500);
+			}
+			h.poll(); //build some structure below the root
+			assertThrows(NoSuchElementException.class, () -> {h.changePriority(1000, 0);});
+			for(int i = 1; i < 500; i += 2) {
+				h.changePriority(i, (i % 4 == 1) ? -i : 1000 + i);
+				if(i % 50 == 1) {
+					assertInvariants(h);
+				}
+			}
+			h.changePriority(h.peek(), 5000);
+			assertInvariants(h);
+			int last = Integer.MIN_VALUE;
+			while(h.size() > 0) {
+				int p = h.root.priority;
+				assertTrue(last <= p);
+				last = p;
+				h.poll();
+			}
+		}
+	}
+}
@@ -23,6 +23,12 @@ public interface PriorityQueue<E, P> {
 	/** Return the number of elements in this.  Runs in O(1) time. */
 	public int size();
 	
+	/**
+	 * Return true if this contains an element equal to e (according to
+	 * .equals()).  Runs in O(1) expected time.
+	 */
+	public boolean contains(E e);
+	
 	/**
 	 * Remove and return the largest element of this, according to comparator()
 	 * Runs in O(log n) time.
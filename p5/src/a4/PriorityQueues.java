@@ -0,0 +1,69 @@
+package a4;
+
+import java.util.Comparator;
+
+/** Factory methods for the PriorityQueue implementations in this package.
+ *
+ * All of them are min-queues: poll() returns the element whose priority is
+ * smallest according to the comparator. Callers that need a fresh queue per
+ * run can pass a method reference or lambda, for example
+ * {@code () -> PriorityQueues.dAryHeap(4, Comparator.naturalOrder())}.
+ */
+public class PriorityQueues {
+	private PriorityQueues() {
+	}
+
+	/** Returns an empty binary Heap ordered by c. */
+	public static <E,P> PriorityQueue<E,P> binaryHeap(Comparator<P> c) {
+		return new Heap<E,P>(c);
+	}
+
+	/** Returns an empty d-ary heap ordered by c.
+	 *
+	 * @throws IllegalArgumentException if d is less than 2.
+	 */
+	public static <E,P> PriorityQueue<E,P> dAryHeap(int d, Comparator<? super P> c) {
+		return new DaryHeap<E,P>(d, c);
+	}
+
+	/** Returns an empty pairing heap ordered by c. */
+	public static <E,P> PriorityQueue<E,P> pairingHeap(Comparator<? super P> c) {
+		return new PairingHeap<E,P>(c);
+	}
+
+	/** Returns an empty binary heap with unboxed int priorities in natural order. */
+	public static <E> PriorityQueue<E,Integer> intHeap() {
+		return new IntPriorityHeap<E>();
+	}
+
+	/** Returns an empty monotone bucket queue for priorities that never
+	 * exceed the last one polled by more than maxWeight (see DialQueue).
+	 *
+	 * @throws IllegalArgumentException if maxWeight is negative or above
+	 *                                  DialQueue.MAX_WEIGHT.
+	 */
+	public static <E> IntPriorityQueue<E> dialQueue(int maxWeight) {
+		return new DialQueue<E>(maxWeight);
+	}
+
+	/** Returns an empty monotone radix heap for nonnegative priorities that
+	 * never go below the last one polled (see RadixHeap).
+	 */
+	public static <E> IntPriorityQueue<E> radixHeap() {
+		return new RadixHeap<E>();
+	}
+
+	/** Returns an empty heap ordered by c that keeps only the capacity
+	 * elements with the largest priorities (see BoundedHeap).
+	 *
+	 * @throws IllegalArgumentException if capacity is less than 1.
+	 */
+	public static <E,P> PriorityQueue<E,P> boundedHeap(int capacity, Comparator<? super P> c) {
+		return new BoundedHeap<E,P>(capacity, c);
+	}
+
+	/** Returns an empty thread-safe heap ordered by c, for sharing between threads. */
+	public static <E,P> PriorityQueue<E,P> concurrentHeap(Comparator<? super P> c) {
+		return new ConcurrentHeap<E,P>(c);
+	}
+}
@@ -0,0 +1,251 @@
+package a4;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A monotone min-queue of nonnegative int priorities (a radix heap).
+ *
+ * Let last be the priority of the element polled last (0 before the first
+ * poll). Bucket 0 holds the elements whose priority equals last, and bucket
+ * i > 0 those whose priority first differs from last in bit i-1, counting
+ * from the least significant. When bucket 0 runs empty, poll finds the
+ * smallest priority m in the first nonempty bucket, makes it last, and
+ * spreads that bucket over the buckets below it. An element only ever moves
+ * to lower buckets, so over its life in the queue it is moved O(log C)
+ * times, where C is the largest difference between a priority and last.
+ * add and changePriority take O(1) time.
+ *
+ * Unlike DialQueue this needs no bound on the edge weights, and it takes
+ * 32 buckets whatever the weights are. The queue is monotone: a priority
+ * below last is rejected with an IllegalArgumentException, which Dijkstra
+ * over nonnegative weights never makes.
+ */
+public class RadixHeap<E> implements IntPriorityQueue<E> {
+	private static final int BUCKETS = 32;
+
+	private final BucketLists<E> lists = new BucketLists<E>(BUCKETS, 16);
+	private int last; //priority of the last element polled
+
+	/** Returns the natural ordering on Integer; smaller priorities come first. */
+	@Override
+	public Comparator<? super Integer> comparator() {
+		return Comparator.naturalOrder();
+	}
+
+	/** Returns the number of elements in this heap. Runs in O(1) time. */
+	@Override
+	public int size() {
+		return lists.size;
+	}
+
+	/** Returns true if the heap contains e. Runs in O(1) expected time. */
+	@Override
+	public boolean contains(E e) {
+		return lists.slot(e) >= 0;
+	}
+
+	/** Removes and returns an element with the smallest priority. Runs in
+	 * O(log C) amortized time.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() throws NoSuchElementException {
+		if(lists.heads[0] < 0) {
+			redistribute();
+		}
+		int s = lists.heads[0];
+		E e = (E) lists.elements[s];
+		lists.remove(s);
+		return e;
+	}
+
+	/** Returns an element with the smallest priority. Runs in time linear in
+	 * the size of the first nonempty bucket.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() throws NoSuchElementException {
+		return (E) lists.elements[smallest()];
+	}
+
+	/** Returns the smallest priority in the heap. Runs in time linear in the
+	 * size of the first nonempty bucket.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	@Override
+	public int peekPriority() throws NoSuchElementException {
+		return lists.priorities[smallest()];
+	}
+
+	/** Adds the element e with priority p to the heap. Runs in O(1) expected time.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals()),
+	 *                                  or if p is below the last priority polled
+	 */
+	@Override
+	public void add(E e, Integer p) throws IllegalArgumentException {
+		add(e, p.intValue());
+	}
+
+	/** Adds the element e with priority p to the heap without boxing p.
+	 * Runs in O(1) expected time.
+	 *
+	 * @throws IllegalArgumentException if this already contains an element that
+	 *                                  is equal to e (according to .equals()),
+	 *                                  or if p is below the last priority polled
+	 */
+	@Override
+	public void add(E e, int p) throws IllegalArgumentException {
+		check(p);
+		lists.insert(e, p, bucket(p));
+	}
+
+	/** Changes the priority of e to p. Runs in O(1) expected time.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 * @throws IllegalArgumentException if p is below the last priority polled
+	 */
+	@Override
+	public void changePriority(E e, Integer p) throws NoSuchElementException {
+		changePriority(e, p.intValue());
+	}
+
+	/** Changes the priority of e to p without boxing p. Runs in O(1) expected time.
+	 *
+	 * @throws NoSuchElementException if the heap does not contain e.
+	 * @throws IllegalArgumentException if p is below the last priority polled
+	 */
+	@Override
+	public void changePriority(E e, int p) throws NoSuchElementException {
+		int s = lists.slot(e);
+		if(s < 0) {
+			throw new NoSuchElementException();
+		}
+		check(p);
+		lists.move(s, p, bucket(p));
+	}
+
+	/** Makes the smallest priority last and spreads its bucket out, so that
+	 * bucket 0 is nonempty.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	private void redistribute() throws NoSuchElementException {
+		int s = smallest();
+		int b = lists.bucket[s];
+		last = lists.priorities[s];
+		int x = lists.heads[b];
+		lists.heads[b] = -1;
+		while(x >= 0) { //every element of b now differs from last in a lower bit
+			int following = lists.next[x];
+			lists.link(x, bucket(lists.priorities[x]));
+			x = following;
+		}
+	}
+
+	/** Returns the slot of an element with the smallest priority.
+	 *
+	 * @throws NoSuchElementException if the heap is empty.
+	 */
+	private int smallest() throws NoSuchElementException {
+		if(lists.size == 0) {
+			throw new NoSuchElementException();
+		}
+		int b = 0;
+		while(lists.heads[b] < 0) {
+			b++;
+		}
+		int best = lists.heads[b];
+		if(b > 0) { //bucket 0 holds only last; the others are unordered
+			for(int x = lists.next[best]; x >= 0; x = lists.next[x]) {
+				if(lists.priorities[x] < lists.priorities[best]) {
+					best = x;
+				}
+			}
+		}
+		return best;
+	}
+
+	/** Throws if p is below last. */
+	private void check(int p) throws IllegalArgumentException {
+		if(p < last) {
+			throw new IllegalArgumentException("priority " + p + " below " + last);
+		}
+	}
+
+	/** Returns the bucket of priority p, which must be at least last. */
+	private int bucket(int p) {
+		return 32 - Integer.numberOfLeadingZeros(p ^ last);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for RadixHeap. */
+	public static class Tests {
+
+		@Test
+		public void testMonotone() {
+			RadixHeap<String> h = new RadixHeap<String>();
+			assertThrows(NoSuchElementException.class, () -> {h.poll();});
+			assertThrows(NoSuchElementException.class, () -> {h.peek();});
+			assertThrows(IllegalArgumentException.class, () -> {h.add("Mike", -1);});
+			h.add("Mike", 4);
+			h.add("Joe", 7);
+			h.add("Carl", 1000000);
+			h.add("Bob", 14);
+			assertThrows(IllegalArgumentException.class, () -> {h.add("Bob", 5);});
+			assertThrows(NoSuchElementException.class, () -> {h.changePriority("Ron", 5);});
+			h.changePriority("Carl", 5);
+			h.changePriority("Joe", 12);
+			assertEquals(h.peekPriority(), 4);
+			assertEquals(h.poll(), "Mike");
+			assertThrows(IllegalArgumentException.class, () -> {h.add("Ron", 3);});
+			assertEquals(h.peek(), "Carl");
+			assertEquals(h.poll(), "Carl");
+			h.add("Ron", Integer.MAX_VALUE);
+			assertEquals(h.poll(), "Joe");
+			assertEquals(h.poll(), "Bob");
+			assertEquals(h.poll(), "Ron");
+			assertEquals(h.size(), 0);
+			assertFalse(h.contains("Ron"));
+		}
+
+		/** Runs a random monotone workload against IntPriorityHeap. */
+		@Test
+		public void testAgainstHeap() {
+			java.util.Random r = new java.util.Random(7);
+			RadixHeap<Integer> q = new RadixHeap<Integer>();
+			IntPriorityHeap<Integer> h = new IntPriorityHeap<Integer>();
+			int base = 0;
+			for(int i = 0; i < 20000; i++) {
+				Integer e = r.nextInt(2000);
+				int p = base + r.nextInt(1 << r.nextInt(20));
+				if(h.contains(e)) {
+					if(p < h.priority(e)) {
+						q.changePriority(e, p);
+						h.changePriority(e, p);
+					}
+				} else {
+					q.add(e, p);
+					h.add(e, p);
+				}
+				if(h.size() > 0 && r.nextInt(3) == 0) {
+					base = h.peekPriority();
+					assertEquals(q.peekPriority(), base);
+					Integer polled = q.poll();
+					assertEquals(h.priority(polled), base);
+					h.changePriority(polled, Integer.MIN_VALUE);
+					h.poll();
+				}
+				assertEquals(q.size(), h.size());
+			}
+		}
+	}
+}
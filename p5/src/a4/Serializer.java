@@ -0,0 +1,78 @@
+package a4;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/** Writes values of type T to a binary stream and reads them back, for
+ * DurableHeap's snapshot and log. read must consume exactly the bytes write
+ * produced.
+ */
+public interface Serializer<T> {
+	/** Write value to out. */
+	public void write(T value, DataOutput out) throws IOException;
+
+	/** Read a value written by write from in. */
+	public T read(DataInput in) throws IOException;
+
+	/** Writes an Integer as 4 bytes. */
+	public static final Serializer<Integer> INTEGER = new Serializer<Integer>() {
+		@Override
+		public void write(Integer value, DataOutput out) throws IOException {
+			out.writeInt(value);
+		}
+
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return in.readInt();
+		}
+	};
+
+	/** Writes a Long as 8 bytes. */
+	public static final Serializer<Long> LONG = new Serializer<Long>() {
+		@Override
+		public void write(Long value, DataOutput out) throws IOException {
+			out.writeLong(value);
+		}
+
+		@Override
+		public Long read(DataInput in) throws IOException {
+			return in.readLong();
+		}
+	};
+
+	/** Writes a Double as 8 bytes. */
+	public static final Serializer<Double> DOUBLE = new Serializer<Double>() {
+		@Override
+		public void write(Double value, DataOutput out) throws IOException {
+			out.writeDouble(value);
+		}
+
+		@Override
+		public Double read(DataInput in) throws IOException {
+			return in.readDouble();
+		}
+	};
+
+	/** Writes a String as its length in bytes followed by its UTF-8 bytes. */
+	public static final Serializer<String> STRING = new Serializer<String>() {
+		@Override
+		public void write(String value, DataOutput out) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		@Override
+		public String read(DataInput in) throws IOException {
+			int length = in.readInt();
+			if(length < 0) {
+				throw new IOException("negative string length: " + length);
+			}
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+}
@@ -0,0 +1,378 @@
+package a5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import a4.IndexedIntHeap;
+
+/** Answers batches of shortest-path queries over an IntGraph in parallel.
+ *
+ * Queries that share a source are answered by one Dijkstra search, which
+ * stops as soon as all of that source's targets are settled. The searches
+ * for different sources run as separate tasks on the executor given to the
+ * constructor, e.g. a ForkJoinPool sized to the machine.
+ *
+ * Each running task borrows a Scratch (distance, backpointer and stamp
+ * arrays plus a frontier heap, all sized to the graph) from a shared pool
+ * and returns it when done, so after warm-up a batch allocates only its
+ * results, however many searches it runs.
+ */
+public class BatchShortestPaths {
+	/** The distance reported for a target that its source cannot reach. */
+	public static final int UNREACHABLE = -1;
+
+	private final IntGraph g;
+	private final ExecutorService executor;
+	private final ConcurrentLinkedQueue<Scratch> scratches = new ConcurrentLinkedQueue<Scratch>();
+
+	/** Constructor creates a query engine for g.
+	 *
+	 * @param g        The graph to search; must not change while in use.
+	 * @param executor Runs one task per distinct source in a batch.
+	 */
+	public BatchShortestPaths(IntGraph g, ExecutorService executor) {
+		this.g = g;
+		this.executor = executor;
+	}
+
+	/**
+	 * Return the distance matrix from every source to every target:
+	 * result[i][j] is the length of a minimal path from sources[i] to
+	 * targets[j], or UNREACHABLE. A source listed more than once is searched
+	 * once; each of its rows is a separate array.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the searches.
+	 */
+	public int[][] distances(int[] sources, int[] targets) throws InterruptedException {
+		int[][] result = new int[sources.length][];
+		long[] bySource = bySource(sources);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		int from = 0;
+		while(from < bySource.length) {
+			int source = (int) (bySource[from] >>> 32);
+			int to = groupEnd(bySource, from);
+			final int first = from;
+			final int last = to;
+			tasks.add(() -> {
+				int[] distances = new int[targets.length];
+				Scratch s = borrow();
+				try {
+					s.search(g, source, targets);
+					for(int j = 0; j < targets.length; j++) {
+						distances[j] = s.distance(targets[j]);
+					}
+				} finally {
+					scratches.add(s);
+				}
+				result[(int) bySource[first]] = distances;
+				for(int k = first + 1; k < last; k++) {
+					result[(int) bySource[k]] = distances.clone();
+				}
+				return null;
+			});
+			from = to;
+		}
+		run(tasks);
+		return result;
+	}
+
+	/**
+	 * Return the length of a minimal path for every (source, target) pair, or
+	 * UNREACHABLE: result[k] answers pairs[k][0] to pairs[k][1].
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the searches.
+	 */
+	public int[] distances(int[][] pairs) throws InterruptedException {
+		int[] result = new int[pairs.length];
+		solve(pairs, result, null);
+		return result;
+	}
+
+	/**
+	 * Return the node ids of a minimal path for every (source, target) pair:
+	 * result[k] goes from pairs[k][0] to pairs[k][1], and is empty if there is
+	 * no path.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the searches.
+	 */
+	public int[][] paths(int[][] pairs) throws InterruptedException {
+		int[][] result = new int[pairs.length][];
+		solve(pairs, new int[pairs.length], result);
+		return result;
+	}
+
+	/** Answers pairs with one search per distinct source, filling distances
+	 * and, unless it is null, paths. */
+	private void solve(int[][] pairs, int[] distances, int[][] paths) throws InterruptedException {
+		int[] sources = new int[pairs.length];
+		for(int k = 0; k < pairs.length; k++) {
+			sources[k] = pairs[k][0];
+		}
+		long[] bySource = bySource(sources);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		int from = 0;
+		while(from < bySource.length) {
+			int source = (int) (bySource[from] >>> 32);
+			int to = groupEnd(bySource, from);
+			final int first = from;
+			final int last = to;
+			tasks.add(() -> {
+				int[] targets = new int[last - first];
+				for(int k = first; k < last; k++) {
+					targets[k - first] = pairs[(int) bySource[k]][1];
+				}
+				Scratch s = borrow();
+				try {
+					s.search(g, source, targets);
+					for(int k = first; k < last; k++) {
+						int pair = (int) bySource[k];
+						distances[pair] = s.distance(pairs[pair][1]);
+						if(paths != null) {
+							paths[pair] = s.path(pairs[pair][1]);
+						}
+					}
+				} finally {
+					scratches.add(s);
+				}
+				return null;
+			});
+			from = to;
+		}
+		run(tasks);
+	}
+
+	/** Returns each index i of sources packed as sources[i] << 32 | i, sorted,
+	 * so that the indexes of each source are contiguous. */
+	private static long[] bySource(int[] sources) {
+		long[] bySource = new long[sources.length];
+		for(int i = 0; i < sources.length; i++) {
+			bySource[i] = ((long) sources[i] << 32) | i;
+		}
+		Arrays.sort(bySource);
+		return bySource;
+	}
+
+	/** Returns one past the last entry of bySource with the same source as
+	 * bySource[from]. */
+	private static int groupEnd(long[] bySource, int from) {
+		int source = (int) (bySource[from] >>> 32);
+		int to = from;
+		while(to < bySource.length && (int) (bySource[to] >>> 32) == source) {
+			to++;
+		}
+		return to;
+	}
+
+	/** Runs tasks on the executor and waits for all of them, rethrowing the
+	 * first failure. */
+	private void run(List<Callable<Void>> tasks) throws InterruptedException {
+		for(Future<Void> f : executor.invokeAll(tasks)) {
+			try {
+				f.get();
+			} catch(ExecutionException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if(cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	/** Returns a free Scratch, creating one if none is free. */
+	private Scratch borrow() {
+		Scratch s = scratches.poll();
+		return s != null ? s : new Scratch(g.nodeCount());
+	}
+
+	/** The reusable state of one Dijkstra search over an IntGraph.
+	 *
+	 * Instead of clearing its arrays between searches, a Scratch stamps every
+	 * node it touches with the current search's number; an entry whose stamp
+	 * is older is treated as empty.
+	 */
+	static class Scratch {
+		private final int[] distance;
+		private final int[] parent;
+		private final int[] stamp; //search number that last touched each node
+		private final int[] wanted; //search number for which each node is a pending target
+		private final IndexedIntHeap f;
+		private int search;
+
+		Scratch(int n) {
+			distance = new int[n];
+			parent = new int[n];
+			stamp = new int[n];
+			wanted = new int[n];
+			f = new IndexedIntHeap(n);
+		}
+
+		/** Runs Dijkstra from source until every target is settled or
+		 * nothing more is reachable. */
+		void search(IntGraph g, int source, int[] targets) {
+			search++;
+			f.clear();
+			int pending = 0;
+			for(int t : targets) {
+				if(wanted[t] != search) {
+					wanted[t] = search;
+					pending++;
+				}
+			}
+
+			stamp[source] = search;
+			distance[source] = 0;
+			parent[source] = -1;
+			f.add(source, 0);
+			while(f.size() != 0 && pending > 0) {
+				int from = f.poll(); //progress: from becomes settled
+				if(wanted[from] == search) {
+					pending--;
+				}
+				for(int e = g.begin(from); e < g.end(from); e++) {
+					int to = g.target(e);
+					int d = distance[from] + g.weight(e);
+					if(stamp[to] != search) {
+						stamp[to] = search;
+						distance[to] = d;
+						parent[to] = from;
+						f.add(to, d);
+					} else if(d < distance[to] && f.contains(to)) {
+						distance[to] = d;
+						parent[to] = from;
+						f.changePriority(to, d);
+					}
+				}
+			}
+		}
+
+		/** Returns the distance the last search found to t, or UNREACHABLE. */
+		int distance(int t) {
+			return stamp[t] == search && !f.contains(t) ? distance[t] : UNREACHABLE;
+		}
+
+		/** Returns the node ids of the path the last search found to t, or an
+		 * empty array if it did not reach t. */
+		int[] path(int t) {
+			if(distance(t) == UNREACHABLE) {
+				return new int[0];
+			}
+			return GraphAlgorithms.path(parent, t);
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for BatchShortestPaths against GraphAlgorithms.shortestPath. */
+	public static class Tests {
+
+		/** Runs every task on the calling thread and counts them. */
+		static class Inline extends AbstractExecutorService {
+			int tasks;
+
+			@Override
+			public void execute(Runnable r) {
+				tasks++;
+				r.run();
+			}
+
+			@Override
+			public void shutdown() {
+			}
+
+			@Override
+			public List<Runnable> shutdownNow() {
+				return new ArrayList<Runnable>();
+			}
+
+			@Override
+			public boolean isShutdown() {
+				return false;
+			}
+
+			@Override
+			public boolean isTerminated() {
+				return false;
+			}
+
+			@Override
+			public boolean awaitTermination(long timeout, TimeUnit unit) {
+				return true;
+			}
+		}
+
+		@Test
+		public void testPairs() throws InterruptedException {
+			Random r = new Random(73);
+			Inline executor = new Inline();
+			for(int trial = 0; trial < 30; trial++) {
+				IntGraph g = TestGraphs.random(r, 30, 9);
+				int n = g.nodeCount();
+				BatchShortestPaths batch = new BatchShortestPaths(g, executor);
+				int[][] pairs = new int[3 * n][];
+				for(int k = 0; k < pairs.length; k++) {
+					pairs[k] = new int[] {r.nextInt(Math.min(n, 4)), r.nextInt(n)}; //few sources, so they repeat
+				}
+				int[] distances = batch.distances(pairs);
+				int[][] paths = batch.paths(pairs);
+				for(int k = 0; k < pairs.length; k++) {
+					int expected = TestGraphs.distance(g, pairs[k][0], pairs[k][1]);
+					assertEquals(distances[k], expected, pairs[k][0] + " to " + pairs[k][1]);
+					assertEquals(TestGraphs.length(g, paths[k]), expected);
+					if(expected != UNREACHABLE) {
+						assertEquals(paths[k][0], pairs[k][0]);
+						assertEquals(paths[k][paths[k].length - 1], pairs[k][1]);
+					}
+				}
+			}
+		}
+
+		@Test
+		public void testMatrix() throws InterruptedException {
+			Random r = new Random(79);
+			Inline executor = new Inline();
+			boolean unreachable = false;
+			for(int trial = 0; trial < 30; trial++) {
+				IntGraph g = TestGraphs.random(r, 30, 9);
+				int n = g.nodeCount();
+				BatchShortestPaths batch = new BatchShortestPaths(g, executor);
+				int[] sources = new int[1 + r.nextInt(8)];
+				for(int i = 0; i < sources.length; i++) {
+					sources[i] = r.nextInt(Math.min(n, 3));
+				}
+				int[] targets = new int[r.nextInt(2 * n)];
+				for(int j = 0; j < targets.length; j++) {
+					targets[j] = r.nextInt(n);
+				}
+				executor.tasks = 0;
+				int[][] d = batch.distances(sources, targets);
+				assertEquals(executor.tasks, Arrays.stream(sources).distinct().count(), "one search per source");
+				for(int i = 0; i < sources.length; i++) {
+					for(int j = 0; j < targets.length; j++) {
+						int expected = TestGraphs.distance(g, sources[i], targets[j]);
+						unreachable |= expected == UNREACHABLE;
+						assertEquals(d[i][j], expected, sources[i] + " to " + targets[j]);
+					}
+					for(int k = 0; k < i; k++) {
+						assertNotSame(d[i], d[k]);
+					}
+				}
+			}
+			assertTrue(unreachable);
+			assertEquals(new BatchShortestPaths(TestGraphs.random(r, 5, 9), executor).distances(new int[0], new int[] {0}).length, 0);
+		}
+	}
+}
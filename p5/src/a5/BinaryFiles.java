@@ -0,0 +1,205 @@
+package a5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Writes and reads the little-endian binary files of this package: graph
+ * files, hierarchy files and landmark files.
+ *
+ * Each starts with a header whose first two ints are a magic number and a
+ * format version. write() replaces a file atomically and durably: the
+ * content goes to a temporary file beside it, which is forced, moved over
+ * the old file and then made permanent by forcing the directory; on
+ * failure the temporary file is deleted and the old file left as it was.
+ */
+final class BinaryFiles {
+	private static final int BUFFER_BYTES = 1 << 20;
+
+	private BinaryFiles() {
+	}
+
+	/** Writes the content of a file through an Output. */
+	interface Content {
+		public void writeTo(Output out) throws IOException;
+	}
+
+	/** Buffers little-endian ints and longs on their way to a channel. */
+	static final class Output {
+		private final FileChannel ch;
+		private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+		private Output(FileChannel ch) {
+			this.ch = ch;
+		}
+
+		/** Appends i. */
+		void putInt(int i) throws IOException {
+			if(buf.remaining() < 4) {
+				flush();
+			}
+			buf.putInt(i);
+		}
+
+		/** Appends the given ints, e.g. a header or a whole array. */
+		void putInts(int... ints) throws IOException {
+			for(int i : ints) {
+				putInt(i);
+			}
+		}
+
+		/** Appends l. */
+		void putLong(long l) throws IOException {
+			if(buf.remaining() < 8) {
+				flush();
+			}
+			buf.putLong(l);
+		}
+
+		/** Writes out everything buffered. */
+		private void flush() throws IOException {
+			buf.flip();
+			while(buf.hasRemaining()) {
+				ch.write(buf);
+			}
+			buf.clear();
+		}
+	}
+
+	/**
+	 * Replace file with what content writes, so that readers see either the
+	 * old file or the whole new one, and a crash after this returns keeps
+	 * the new one.
+	 *
+	 * @throws IOException if the file cannot be written; content's own
+	 *                     exceptions are rethrown. Either way file is
+	 *                     unchanged and no temporary file is left.
+	 */
+	static void write(Path file, Content content) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try(FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				Output out = new Output(ch);
+				content.writeTo(out);
+				out.flush();
+				ch.force(true);
+			}
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(IOException | RuntimeException e) {
+			try {
+				Files.deleteIfExists(tmp);
+			} catch(IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+		syncDirectory(file.toAbsolutePath().getParent());
+	}
+
+	/** Forces the entries of directory dir to disk, so that a file moved into
+	 * it stays there after a crash; forcing the file itself does not. */
+	private static void syncDirectory(Path dir) throws IOException {
+		try(FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+			ch.force(true);
+		}
+	}
+
+	/**
+	 * Return the whole of ch, the open channel of file, as little-endian
+	 * ints, after checking that it starts with a header of headerBytes whose
+	 * first ints are magic and version. kind names the format in messages,
+	 * e.g. "hierarchy".
+	 *
+	 * @throws IOException if file is shorter than the header, or has the
+	 *                     wrong magic number or version.
+	 */
+	static IntBuffer map(FileChannel ch, Path file, int magic, int version, int headerBytes, String kind)
+			throws IOException {
+		if(ch.size() < headerBytes) {
+			throw new IOException(file + ": too short for a " + kind + " file");
+		}
+		IntBuffer ints = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size())
+				.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		if(ints.get(0) != magic) {
+			throw new IOException(file + ": not a " + kind + " file");
+		}
+		if(ints.get(1) != version) {
+			throw new IOException(file + ": unsupported " + kind + " file version " + ints.get(1));
+		}
+		return ints;
+	}
+
+	/** Returns the next count ints of buf. */
+	static int[] read(IntBuffer buf, int count) {
+		int[] a = new int[count];
+		buf.get(a);
+		return a;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for BinaryFiles. */
+	public static class Tests {
+
+		/** Returns the ints in file, after opening it with map. */
+		private static int[] readAll(Path file) throws IOException {
+			try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+				IntBuffer ints = map(ch, file, 7, 1, 8, "test");
+				return read(ints, ints.remaining());
+			}
+		}
+
+		@Test
+		public void testWrite() throws IOException {
+			Path dir = Files.createTempDirectory("binary-files");
+			Path file = dir.resolve("f");
+			int[] big = new int[BUFFER_BYTES / 4 + 3]; //more than one buffer
+			for(int i = 0; i < big.length; i++) {
+				big[i] = i;
+			}
+			write(file, out -> {out.putInts(7, 1); out.putInts(big);});
+			int[] ints = readAll(file);
+			assertEquals(ints.length, big.length + 2);
+			assertEquals(ints[ints.length - 1], big.length - 1);
+
+			write(file, out -> {out.putInts(7, 1); out.putLong(-2L);});
+			assertArrayEquals(readAll(file), new int[] {7, 1, -2, -1});
+			assertFalse(Files.exists(dir.resolve("f.tmp")));
+			Files.delete(file);
+			Files.delete(dir);
+		}
+
+		/** A failed write leaves the old file and no temporary file. */
+		@Test
+		public void testFailedWrite() throws IOException {
+			Path dir = Files.createTempDirectory("binary-files");
+			Path file = dir.resolve("f");
+			write(file, out -> {out.putInts(7, 1, 42);});
+			assertThrows(IllegalStateException.class, () -> {
+				write(file, out -> {out.putInts(7, 1, 43); throw new IllegalStateException();});
+			});
+			assertThrows(IOException.class, () -> {
+				write(file, out -> {out.putInts(7, 1, 44); throw new IOException();});
+			});
+			assertFalse(Files.exists(dir.resolve("f.tmp")));
+			assertArrayEquals(readAll(file), new int[] {7, 1, 42});
+
+			write(file, out -> {out.putInts(8, 1);});
+			assertThrows(IOException.class, () -> {readAll(file);});
+			write(file, out -> {out.putInts(7, 2);});
+			assertThrows(IOException.class, () -> {readAll(file);});
+			write(file, out -> {out.putInts(7);});
+			assertThrows(IOException.class, () -> {readAll(file);});
+			Files.delete(file);
+			Files.delete(dir);
+		}
+	}
+}
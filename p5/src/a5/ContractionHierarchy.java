@@ -0,0 +1,673 @@
+package a5;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import a4.Heap;
+import a4.IndexedIntHeap;
+
+/** A contraction hierarchy: an IntGraph preprocessed so that point-to-point
+ * shortest-path queries search only a few hundred nodes.
+ *
+ * Preprocessing contracts the nodes one at a time, least important first.
+ * Contracting v removes it from the graph and, for every pair of remaining
+ * neighbours u->v->x whose shortest path goes through v, adds a shortcut
+ * edge u->x that remembers v. Whether such a path exists is decided by a
+ * bounded witness search from u that avoids v. The order comes from an
+ * a4.Heap keyed by importance (the number of shortcuts contracting a node
+ * would add, minus the edges it would remove, plus its neighbours already
+ * contracted), updated lazily: a polled node whose importance has grown is
+ * put back.
+ *
+ * A node's rank is its position in that order. Every shortest path then
+ * climbs in rank and comes down again, so a query runs Dijkstra forward
+ * from the source over edges to higher-ranked nodes and backward from the
+ * target over edges from higher-ranked nodes, and joins the searches at
+ * the top. Shortcuts on the path are unpacked into the original edges, so
+ * results have the same lengths as GraphAlgorithms.shortestPath(g, s, t)
+ * (where several paths are minimal the two may pick different ones).
+ *
+ * Road networks and grids contract well: a few shortcuts per node, and
+ * queries that settle a tiny fraction of what Dijkstra does. Graphs with no
+ * such hierarchy, like random expanders, end with a dense core of
+ * shortcuts and take much longer to preprocess.
+ *
+ * A hierarchy can be saved and loaded, so preprocessing runs once per
+ * graph. Queries are thread-safe; each borrows pooled search state, as in
+ * BatchShortestPaths.
+ */
+public final class ContractionHierarchy {
+	/** The distance reported when there is no path. */
+	public static final int UNREACHABLE = BatchShortestPaths.UNREACHABLE;
+
+	/** The first int of every hierarchy file ("A5CH" in little-endian bytes). */
+	static final int MAGIC = 0x48433541;
+	/** The format version this code writes and reads. */
+	static final int VERSION = 1;
+	/** The size of the header in bytes. */
+	static final int HEADER_BYTES = 32;
+
+	/** Witness searches stop after settling this many nodes when contracting
+	 * (a search cut short only adds a shortcut that was not needed) and when
+	 * estimating importance (where a bad estimate only costs order quality). */
+	private static final int WITNESS_LIMIT = 500;
+	private static final int ESTIMATE_LIMIT = 15;
+
+	private final int[] rank; //contraction order of each node
+	private final int[] outOffsets; //upward edges u->x are outOffsets[u]..outOffsets[u+1]-1
+	private final int[] outTargets;
+	private final int[] outWeights;
+	private final int[] outMids; //the contracted node a shortcut skips, or -1 for an original edge
+	private final int[] inOffsets; //upward edges x->u, stored at u
+	private final int[] inSources;
+	private final int[] inWeights;
+	private final int[] inMids;
+	private final ConcurrentLinkedQueue<Query> queries = new ConcurrentLinkedQueue<Query>();
+
+	private ContractionHierarchy(int[] rank, int[] outOffsets, int[] outTargets, int[] outWeights, int[] outMids,
+			int[] inOffsets, int[] inSources, int[] inWeights, int[] inMids) {
+		this.rank = rank;
+		this.outOffsets = outOffsets;
+		this.outTargets = outTargets;
+		this.outWeights = outWeights;
+		this.outMids = outMids;
+		this.inOffsets = inOffsets;
+		this.inSources = inSources;
+		this.inWeights = inWeights;
+		this.inMids = inMids;
+	}
+
+	/** Return a hierarchy for g. Parallel edges keep the lightest; self-loops
+	 * are dropped. */
+	public static ContractionHierarchy build(IntGraph g) {
+		int n = g.nodeCount();
+		Edges[] out = new Edges[n];
+		Edges[] in = new Edges[n];
+		for(int u = 0; u < n; u++) {
+			out[u] = new Edges();
+			in[u] = new Edges();
+		}
+		for(int u = 0; u < n; u++) {
+			for(int e = g.begin(u); e < g.end(u); e++) {
+				int v = g.target(e);
+				if(v != u) {
+					out[u].lower(v, g.weight(e), -1);
+					in[v].lower(u, g.weight(e), -1);
+				}
+			}
+		}
+
+		Contractor c = new Contractor(out, in);
+		int[] importance = new int[n];
+		HashMap<Integer, Integer> initial = new HashMap<Integer, Integer>(n * 4 / 3 + 1);
+		for(int v = 0; v < n; v++) {
+			importance[v] = c.importance(v);
+			initial.put(v, importance[v]);
+		}
+		Heap<Integer, Integer> order = new Heap<Integer, Integer>(Comparator.<Integer>naturalOrder(), n);
+		order.addAll(initial);
+
+		int[] rank = new int[n];
+		int next = 0;
+		while(order.size() != 0) {
+			int v = order.poll();
+			importance[v] = c.importance(v);
+			if(order.size() != 0 && importance[v] > importance[order.peek()]) {
+				order.add(v, importance[v]); //its neighbours changed; try again later
+				continue;
+			}
+			c.contract(v);
+			rank[v] = next++; //progress: v's edges now only lead to higher ranks
+		}
+
+		//what is left at each node is its upward edges
+		int[] outOffsets = offsets(out);
+		int[] inOffsets = offsets(in);
+		int[][] outArrays = flatten(out, outOffsets[n]);
+		int[][] inArrays = flatten(in, inOffsets[n]);
+		return new ContractionHierarchy(rank, outOffsets, outArrays[0], outArrays[1], outArrays[2],
+				inOffsets, inArrays[0], inArrays[1], inArrays[2]);
+	}
+
+	/** Return the number of nodes. */
+	public int nodeCount() {
+		return rank.length;
+	}
+
+	/** Return the position of node u in the contraction order. */
+	public int rank(int u) {
+		return rank[u];
+	}
+
+	/** Return the number of upward edges, original and shortcut. */
+	public int edgeCount() {
+		return outTargets.length + inSources.length;
+	}
+
+	/** Return the length of a minimal path from s to t, or UNREACHABLE. */
+	public int distance(int s, int t) {
+		Query q = borrow();
+		try {
+			return q.search(s, t);
+		} finally {
+			queries.add(q);
+		}
+	}
+
+	/** Return the node ids of a minimal path from s to t, with every shortcut
+	 * unpacked, or an empty array if there is none. */
+	public int[] path(int s, int t) {
+		Query q = borrow();
+		try {
+			if(q.search(s, t) == UNREACHABLE) {
+				return new int[0];
+			}
+			return q.path();
+		} finally {
+			queries.add(q);
+		}
+	}
+
+	/**
+	 * Write this hierarchy to file, replacing it atomically and durably as
+	 * BinaryFiles.write does.
+	 */
+	public void save(Path file) throws IOException {
+		BinaryFiles.write(file, out -> {
+			out.putInts(MAGIC, VERSION, rank.length, outTargets.length, inSources.length, 0, 0, 0);
+			for(int[] a : new int[][] {rank, outOffsets, outTargets, outWeights, outMids,
+					inOffsets, inSources, inWeights, inMids}) {
+				out.putInts(a);
+			}
+		});
+	}
+
+	/**
+	 * Read a hierarchy written by save.
+	 *
+	 * @throws IOException if the file cannot be read, is not a hierarchy
+	 *                     file, has an unsupported version or is truncated.
+	 */
+	public static ContractionHierarchy load(Path file) throws IOException {
+		try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			IntBuffer ints = BinaryFiles.map(ch, file, MAGIC, VERSION, HEADER_BYTES, "hierarchy");
+			int n = ints.get(2);
+			int outs = ints.get(3);
+			int ins = ints.get(4);
+			long expected = HEADER_BYTES + 4L * (n + 2L * (n + 1) + 3L * outs + 3L * ins);
+			if(n < 0 || outs < 0 || ins < 0 || ch.size() < expected) {
+				throw new IOException(file + ": truncated hierarchy file");
+			}
+			ints.position(HEADER_BYTES / 4);
+			int[] rank = BinaryFiles.read(ints, n);
+			int[] outOffsets = BinaryFiles.read(ints, n + 1);
+			int[] outTargets = BinaryFiles.read(ints, outs);
+			int[] outWeights = BinaryFiles.read(ints, outs);
+			int[] outMids = BinaryFiles.read(ints, outs);
+			int[] inOffsets = BinaryFiles.read(ints, n + 1);
+			int[] inSources = BinaryFiles.read(ints, ins);
+			int[] inWeights = BinaryFiles.read(ints, ins);
+			int[] inMids = BinaryFiles.read(ints, ins);
+			return new ContractionHierarchy(rank, outOffsets, outTargets, outWeights, outMids,
+					inOffsets, inSources, inWeights, inMids);
+		}
+	}
+
+	/** Returns the CSR offsets of the given edge lists. */
+	private static int[] offsets(Edges[] lists) {
+		int[] offsets = new int[lists.length + 1];
+		for(int u = 0; u < lists.length; u++) {
+			offsets[u + 1] = offsets[u] + lists[u].size;
+		}
+		return offsets;
+	}
+
+	/** Returns the nodes, weights and mids of the given edge lists, each
+	 * concatenated into one array of length m. */
+	private static int[][] flatten(Edges[] lists, int m) {
+		int[][] result = new int[3][m];
+		int e = 0;
+		for(Edges list : lists) {
+			System.arraycopy(list.nodes, 0, result[0], e, list.size);
+			System.arraycopy(list.weights, 0, result[1], e, list.size);
+			System.arraycopy(list.mids, 0, result[2], e, list.size);
+			e += list.size;
+		}
+		return result;
+	}
+
+	/** Returns a free Query, creating one if none is free. */
+	private Query borrow() {
+		Query q = queries.poll();
+		return q != null ? q : new Query(rank.length);
+	}
+
+	/** Returns the upward edge u->x stored at u, or -1. */
+	private int outEdge(int u, int x) {
+		for(int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+			if(outTargets[e] == x) {
+				return e;
+			}
+		}
+		return -1;
+	}
+
+	/** Returns the upward edge x->u stored at u, or -1. */
+	private int inEdge(int u, int x) {
+		for(int e = inOffsets[u]; e < inOffsets[u + 1]; e++) {
+			if(inSources[e] == x) {
+				return e;
+			}
+		}
+		return -1;
+	}
+
+	/** A growable list of edges to (or from) distinct nodes. */
+	private static class Edges {
+		int[] nodes = new int[4];
+		int[] weights = new int[4];
+		int[] mids = new int[4];
+		int size;
+
+		/** Returns the index of the edge to v, or -1. */
+		int find(int v) {
+			for(int i = 0; i < size; i++) {
+				if(nodes[i] == v) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/** Adds the edge to v, or lowers the existing one to weight w. */
+		void lower(int v, int w, int mid) {
+			int i = find(v);
+			if(i >= 0) {
+				if(w < weights[i]) {
+					weights[i] = w;
+					mids[i] = mid;
+				}
+				return;
+			}
+			if(size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+				mids = Arrays.copyOf(mids, size * 2);
+			}
+			nodes[size] = v;
+			weights[size] = w;
+			mids[size] = mid;
+			size++;
+		}
+
+		/** Removes the edge to v, if any. */
+		void remove(int v) {
+			int i = find(v);
+			if(i >= 0) {
+				size--;
+				nodes[i] = nodes[size];
+				weights[i] = weights[size];
+				mids[i] = mids[size];
+			}
+		}
+	}
+
+	/** The graph during preprocessing: out[u] and in[u] hold the edges
+	 * between u and the nodes not yet contracted. */
+	private static class Contractor {
+		private final Edges[] out;
+		private final Edges[] in;
+		private final int[] contractedNeighbours;
+		private final int[] distance;
+		private final int[] stamp; //witness search number that last reached each node
+		private final int[] wanted; //witness search number for which each node is a target
+		private final IndexedIntHeap f;
+		private int search;
+
+		Contractor(Edges[] out, Edges[] in) {
+			this.out = out;
+			this.in = in;
+			int n = out.length;
+			contractedNeighbours = new int[n];
+			distance = new int[n];
+			stamp = new int[n];
+			wanted = new int[n];
+			f = new IndexedIntHeap(n);
+		}
+
+		/** Returns how much contracting v now would grow the graph, plus a
+		 * penalty for neighbours already contracted. */
+		int importance(int v) {
+			return shortcuts(v, false) - in[v].size - out[v].size + contractedNeighbours[v];
+		}
+
+		/** Contracts v: adds its shortcuts and unlinks it from its neighbours,
+		 * leaving out[v] and in[v] as its upward edges. */
+		void contract(int v) {
+			shortcuts(v, true);
+			for(int i = 0; i < in[v].size; i++) {
+				out[in[v].nodes[i]].remove(v);
+				contractedNeighbours[in[v].nodes[i]]++;
+			}
+			for(int i = 0; i < out[v].size; i++) {
+				in[out[v].nodes[i]].remove(v);
+				contractedNeighbours[out[v].nodes[i]]++;
+			}
+		}
+
+		/** Returns the number of shortcuts contracting v needs, adding them
+		 * if add is true. */
+		private int shortcuts(int v, boolean add) {
+			Edges into = in[v];
+			Edges from = out[v];
+			if(into.size == 0 || from.size == 0) {
+				return 0;
+			}
+			int maxOut = 0;
+			for(int j = 0; j < from.size; j++) {
+				maxOut = Math.max(maxOut, from.weights[j]);
+			}
+			int count = 0;
+			for(int i = 0; i < into.size; i++) {
+				int u = into.nodes[i];
+				int w1 = into.weights[i];
+				witness(u, v, from, w1 + maxOut, add ? WITNESS_LIMIT : ESTIMATE_LIMIT);
+				for(int j = 0; j < from.size; j++) {
+					int x = from.nodes[j];
+					int via = w1 + from.weights[j];
+					if(x == u || (stamp[x] == search && distance[x] <= via)) {
+						continue; //a path avoiding v is as short
+					}
+					count++;
+					if(add) {
+						out[u].lower(x, via, v);
+						in[x].lower(u, via, v);
+					}
+				}
+			}
+			return count;
+		}
+
+		/** Runs Dijkstra from source over the remaining graph without skip,
+		 * until every node of targets is settled, the distance passes limit
+		 * or maxSettled nodes are settled. */
+		private void witness(int source, int skip, Edges targets, int limit, int maxSettled) {
+			search++;
+			f.clear();
+			int pending = 0;
+			for(int j = 0; j < targets.size; j++) {
+				if(wanted[targets.nodes[j]] != search) {
+					wanted[targets.nodes[j]] = search;
+					pending++;
+				}
+			}
+			stamp[source] = search;
+			distance[source] = 0;
+			f.add(source, 0);
+			int settled = 0;
+			while(f.size() != 0 && pending > 0 && f.peekPriority() <= limit && settled < maxSettled) {
+				int u = f.poll();
+				settled++;
+				if(wanted[u] == search) {
+					pending--;
+				}
+				Edges edges = out[u];
+				for(int i = 0; i < edges.size; i++) {
+					int x = edges.nodes[i];
+					if(x == skip) {
+						continue;
+					}
+					int d = distance[u] + edges.weights[i];
+					if(stamp[x] != search) {
+						stamp[x] = search;
+						distance[x] = d;
+						f.add(x, d);
+					} else if(d < distance[x] && f.contains(x)) {
+						distance[x] = d;
+						f.changePriority(x, d);
+					}
+				}
+			}
+		}
+	}
+
+	/** The reusable state of one bidirectional upward query. Entries are
+	 * valid only if stamped with the current query number. */
+	private class Query {
+		private final int[] forward; //distance from s
+		private final int[] backward; //distance to t
+		private final int[] forwardEdge; //upward edge into each node from s, or -1
+		private final int[] backwardEdge; //upward edge out of each node towards t, or -1
+		private final int[] forwardStamp;
+		private final int[] backwardStamp;
+		private final IndexedIntHeap ff;
+		private final IndexedIntHeap fb;
+		private int query;
+		private int meet;
+		private int s;
+		private int t;
+
+		Query(int n) {
+			forward = new int[n];
+			backward = new int[n];
+			forwardEdge = new int[n];
+			backwardEdge = new int[n];
+			forwardStamp = new int[n];
+			backwardStamp = new int[n];
+			ff = new IndexedIntHeap(n);
+			fb = new IndexedIntHeap(n);
+		}
+
+		/** Returns the distance from s to t, or UNREACHABLE, remembering the
+		 * meeting node for path(). */
+		int search(int s, int t) {
+			this.s = s;
+			this.t = t;
+			query++;
+			ff.clear();
+			fb.clear();
+			forwardStamp[s] = query;
+			forward[s] = 0;
+			forwardEdge[s] = -1;
+			ff.add(s, 0);
+			backwardStamp[t] = query;
+			backward[t] = 0;
+			backwardEdge[t] = -1;
+			fb.add(t, 0);
+			int best = Integer.MAX_VALUE;
+			meet = -1;
+
+			while(true) {
+				//a direction whose nearest node is no closer than best is done
+				boolean goForward = ff.size() != 0 && ff.peekPriority() < best;
+				boolean goBackward = fb.size() != 0 && fb.peekPriority() < best;
+				if(!goForward && !goBackward) {
+					break;
+				}
+				if(goForward && (!goBackward || ff.peekPriority() <= fb.peekPriority())) {
+					int u = ff.poll();
+					if(backwardStamp[u] == query && forward[u] + backward[u] < best) {
+						best = forward[u] + backward[u];
+						meet = u;
+					}
+					for(int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+						relax(forward, forwardEdge, forwardStamp, ff, outTargets[e], forward[u] + outWeights[e], e);
+					}
+				} else {
+					int u = fb.poll();
+					if(forwardStamp[u] == query && forward[u] + backward[u] < best) {
+						best = forward[u] + backward[u];
+						meet = u;
+					}
+					for(int e = inOffsets[u]; e < inOffsets[u + 1]; e++) {
+						relax(backward, backwardEdge, backwardStamp, fb, inSources[e], backward[u] + inWeights[e], e);
+					}
+				}
+			}
+			return meet < 0 ? UNREACHABLE : best;
+		}
+
+		/** Offers x distance d by edge e in one direction's arrays. */
+		private void relax(int[] dist, int[] edge, int[] stamp, IndexedIntHeap f, int x, int d, int e) {
+			if(stamp[x] != query) {
+				stamp[x] = query;
+				dist[x] = d;
+				edge[x] = e;
+				f.add(x, d);
+			} else if(d < dist[x] && f.contains(x)) {
+				dist[x] = d;
+				edge[x] = e;
+				f.changePriority(x, d);
+			}
+		}
+
+		/** Returns the unpacked path the last search found through meet. */
+		int[] path() {
+			IntList nodes = new IntList();
+			//forward edges, from meet back to s, then reversed
+			IntList up = new IntList();
+			for(int u = meet; u != s; u = forwardSource(forwardEdge[u])) {
+				up.add(forwardEdge[u]);
+			}
+			nodes.add(s);
+			for(int k = up.size - 1; k >= 0; k--) {
+				int e = up.items[k];
+				unpack(forwardSource(e), outTargets[e], outMids[e], nodes);
+			}
+			for(int u = meet; u != t; u = inOwner(backwardEdge[u])) {
+				int e = backwardEdge[u];
+				unpack(u, inOwner(e), inMids[e], nodes);
+			}
+			return Arrays.copyOf(nodes.items, nodes.size);
+		}
+
+		/** Returns the node an out edge starts from. */
+		private int forwardSource(int e) {
+			return owner(outOffsets, e);
+		}
+
+		/** Returns the node an in edge is stored at, which is where it ends. */
+		private int inOwner(int e) {
+			return owner(inOffsets, e);
+		}
+
+		/** Appends the original nodes after a on the edge a->b skipping mid
+		 * (-1 for an original edge) to nodes. */
+		private void unpack(int a, int b, int mid, IntList nodes) {
+			IntList stack = new IntList(); //pending (a, b, mid) triples, last on top
+			stack.add(a);
+			stack.add(b);
+			stack.add(mid);
+			while(stack.size > 0) {
+				int m = stack.items[--stack.size];
+				int y = stack.items[--stack.size];
+				int x = stack.items[--stack.size];
+				if(m < 0) {
+					nodes.add(y);
+					continue;
+				}
+				//m was contracted before x and y, so x->m is stored at m as an
+				//in edge and m->y as an out edge; push m->y first to do it last
+				int second = outEdge(m, y);
+				stack.add(m);
+				stack.add(y);
+				stack.add(outMids[second]);
+				int first = inEdge(m, x);
+				stack.add(x);
+				stack.add(m);
+				stack.add(inMids[first]);
+			}
+		}
+	}
+
+	/** Returns the node whose edges, per offsets, include edge e. */
+	private static int owner(int[] offsets, int e) {
+		int u = Arrays.binarySearch(offsets, e);
+		if(u < 0) {
+			return -u - 2;
+		}
+		while(offsets[u + 1] == e) { //skip nodes with no edges
+			u++;
+		}
+		return u;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for ContractionHierarchy against GraphAlgorithms.shortestPath. */
+	public static class Tests {
+
+		/** Asserts that h answers every pair of g like shortestPath does. */
+		private static void assertAllPairs(ContractionHierarchy h, IntGraph g) {
+			TestGraphs.assertAllPairs(g, h::distance, h::path);
+		}
+
+		/** Returns the number of shortcuts in h. */
+		private static int shortcuts(ContractionHierarchy h) {
+			int count = 0;
+			for(int[] mids : new int[][] {h.outMids, h.inMids}) {
+				for(int mid : mids) {
+					if(mid >= 0) {
+						count++;
+					}
+				}
+			}
+			return count;
+		}
+
+		@Test
+		public void testRandomGraphs() {
+			Random r = new Random(29);
+			for(int trial = 0; trial < 60; trial++) {
+				IntGraph g = TestGraphs.random(r, 40, 9);
+				assertAllPairs(ContractionHierarchy.build(g), g);
+			}
+		}
+
+		/** Grids need shortcuts, so their paths must be unpacked. */
+		@Test
+		public void testGrid() {
+			Random r = new Random(31);
+			for(int trial = 0; trial < 5; trial++) {
+				IntGraph g = TestGraphs.grid(r, 9, trial == 0 ? 0 : 20);
+				ContractionHierarchy h = ContractionHierarchy.build(g);
+				assertTrue(shortcuts(h) > 0);
+				assertAllPairs(h, g);
+				assertAllPairs(ContractionHierarchy.build(TestGraphs.scattered(g)), g);
+			}
+		}
+
+		@Test
+		public void testSaveLoad() throws IOException {
+			IntGraph g = TestGraphs.grid(new Random(37), 7, 15);
+			ContractionHierarchy h = ContractionHierarchy.build(g);
+			Path dir = Files.createTempDirectory("hierarchy");
+			Path file = dir.resolve("h");
+			h.save(file);
+			ContractionHierarchy loaded = ContractionHierarchy.load(file);
+			assertEquals(loaded.nodeCount(), h.nodeCount());
+			assertEquals(loaded.edgeCount(), h.edgeCount());
+			for(int u = 0; u < g.nodeCount(); u++) {
+				assertEquals(loaded.rank(u), h.rank(u));
+			}
+			assertAllPairs(loaded, g);
+
+			Files.write(file, Arrays.copyOf(Files.readAllBytes(file), 100));
+			assertThrows(IOException.class, () -> {ContractionHierarchy.load(file);});
+			Files.write(file, new byte[HEADER_BYTES]);
+			assertThrows(IOException.class, () -> {ContractionHierarchy.load(file);});
+			Files.delete(file);
+			Files.delete(dir);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package a5;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import a5.PathCache.Tests.Stop;
+import graph.LabeledEdge;
+import graph.Node;
+
+/** A frozen, read-only copy of a weighted graph in compressed sparse row
+ * form.
+ *
+ * Nodes are numbered 0..nodeCount()-1. The edges out of node u are numbered
+ * begin(u)..end(u)-1, and edge e goes to target(e) with weight weight(e).
+ * All of this lives in three int arrays, so traversing an edge is two array
+ * reads instead of a hash map iteration and an edge object per neighbour.
+ *
+ * A snapshot does not see later changes to the graph it was built from.
+ */
+public final class CsrGraph<N> implements IntGraph {
+	private final Object[] nodes; //node by id
+	private final HashMap<N, Integer> ids; //id by node
+	private final int[] offsets; //edges of u are offsets[u]..offsets[u+1]-1
+	private final int[] targets; //target id by edge
+	private final int[] weights; //weight by edge
+
+	private CsrGraph(Object[] nodes, HashMap<N, Integer> ids, int[] offsets, int[] targets, int[] weights) {
+		this.nodes = nodes;
+		this.ids = ids;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	/**
+	 * Return a snapshot of every node reachable from root and the edges
+	 * between them. root gets id 0; the others are numbered in breadth-first
+	 * order.
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	CsrGraph<N> of(N root) {
+		ArrayList<N> order = new ArrayList<N>();
+		HashMap<N, Integer> ids = new HashMap<N, Integer>();
+		order.add(root);
+		ids.put(root, 0);
+		int edges = 0;
+		for(int i = 0; i < order.size(); i++) { //order doubles as the BFS queue
+			Map<N, ? extends E> out = order.get(i).outgoing();
+			edges += out.size();
+			for(N to : out.keySet()) {
+				if(!ids.containsKey(to)) {
+					ids.put(to, order.size());
+					order.add(to);
+				}
+			}
+		}
+
+		int[] offsets = new int[order.size() + 1];
+		int[] targets = new int[edges];
+		int[] weights = new int[edges];
+		int e = 0;
+		for(int u = 0; u < order.size(); u++) {
+			offsets[u] = e;
+			for(Map.Entry<N, ? extends E> edge : order.get(u).outgoing().entrySet()) {
+				targets[e] = ids.get(edge.getKey());
+				weights[e] = edge.getValue().label();
+				e++;
+			}
+		}
+		offsets[order.size()] = e;
+		return new CsrGraph<N>(order.toArray(), ids, offsets, targets, weights);
+	}
+
+	/** Return the number of nodes. */
+	@Override
+	public int nodeCount() {
+		return offsets.length - 1;
+	}
+
+	/** Return the number of edges. */
+	@Override
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/** Return the id of n, or -1 if n is not in this snapshot. */
+	public int id(N n) {
+		Integer id = ids.get(n);
+		return id == null ? -1 : id;
+	}
+
+	/** Return the node with the given id. */
+	@SuppressWarnings("unchecked")
+	public N node(int id) {
+		return (N) nodes[id];
+	}
+
+	/** Return the nodes with the given ids, in order. */
+	public List<N> nodes(int[] ids) {
+		ArrayList<N> result = new ArrayList<N>(ids.length);
+		for(int id : ids) {
+			result.add(node(id));
+		}
+		return result;
+	}
+
+	/** Return the first edge out of node u. */
+	@Override
+	public int begin(int u) {
+		return offsets[u];
+	}
+
+	/** Return one past the last edge out of node u. */
+	@Override
+	public int end(int u) {
+		return offsets[u + 1];
+	}
+
+	/** Return the id of the node edge e goes to. */
+	@Override
+	public int target(int e) {
+		return targets[e];
+	}
+
+	/** Return the weight of edge e. */
+	@Override
+	public int weight(int e) {
+		return weights[e];
+	}
+
+	@Override
+	public String toString() {
+		return "CsrGraph[nodes=" + nodeCount() + ", edges=" + edgeCount() + "]";
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for CsrGraph and the int-id searches against the Node searches
+	 * on the same graph. */
+	public static class Tests {
+
+		@Test
+		public void testSnapshot() {
+			Stop[] s = GraphAlgorithms.Tests.small();
+			CsrGraph<Stop> g = CsrGraph.of(s[0]);
+			assertEquals(g.nodeCount(), 5);
+			assertEquals(g.edgeCount(), 7);
+			assertEquals(g.id(s[0]), 0);
+			assertEquals(g.id(s[5]), -1); //not reachable from the root
+			for(int i = 0; i < 5; i++) {
+				assertSame(g.node(g.id(s[i])), s[i]);
+			}
+			assertEquals(g.id(s[1]), 1); //breadth-first, in edge order
+			assertEquals(g.id(s[2]), 2);
+			assertEquals(g.nodes(new int[] {2, 0, 2}), java.util.Arrays.asList(s[2], s[0], s[2]));
+			assertEquals(g.nodes(new int[0]), new ArrayList<Stop>());
+
+			int c = g.id(s[2]);
+			assertEquals(g.end(c) - g.begin(c), 2);
+			assertEquals(g.target(g.begin(c)), g.id(s[1]));
+			assertEquals(g.weight(g.begin(c)), 2);
+
+			s[5].link(s[0], 1);
+			s[0].link(s[5], 1);
+			assertEquals(g.id(s[5]), -1); //a snapshot does not see later changes
+			assertEquals(CsrGraph.of(s[0]).nodeCount(), 6);
+		}
+
+		@Test
+		public void testSearches() {
+			Random r = new Random(71);
+			for(int trial = 0; trial < 40; trial++) {
+				Stop[] s = TestGraphs.stops(TestGraphs.random(r, 30, 9));
+				Stop root = s[r.nextInt(s.length)];
+				CsrGraph<Stop> g = CsrGraph.of(root);
+				for(int u = 0; u < g.nodeCount(); u++) {
+					assertEquals(g.nodes(GraphAlgorithms.dfs(g, u)), GraphAlgorithms.dfs(g.node(u)));
+				}
+				for(int u = 0; u < g.nodeCount(); u++) {
+					for(int v = 0; v < g.nodeCount(); v++) {
+						List<Stop> expected = GraphAlgorithms.shortestPath(g.node(u), g.node(v));
+						int[] path = GraphAlgorithms.shortestPath(g, u, v);
+						assertEquals(TestGraphs.length(g, path), GraphAlgorithms.Tests.length(expected), u + " to " + v);
+						if(path.length > 0) {
+							assertEquals(path[0], u);
+							assertEquals(path[path.length - 1], v);
+						}
+					}
+				}
+			}
+		}
+	}
+}
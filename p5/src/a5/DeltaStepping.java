@@ -0,0 +1,222 @@
+package a5;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** Single-source shortest paths by parallel delta-stepping.
+ *
+ * Nodes wait in buckets of width delta by tentative distance. Buckets are
+ * emptied in increasing order. While the current bucket is non-empty, its
+ * nodes are taken out together and their light edges (weight at most delta)
+ * are relaxed in parallel, which may refill the bucket. Then the heavy edges
+ * of every node that passed through the bucket are relaxed in parallel;
+ * those can only reach later buckets.
+ *
+ * Distances are lowered with compare-and-set, so concurrent relaxations of
+ * the same node are safe, and the result equals sequential Dijkstra's. A
+ * delta near the average edge weight is a good start: smaller deltas mean
+ * more, less parallel phases; larger ones mean more re-relaxed edges.
+ */
+public class DeltaStepping {
+	/** The distance reported for nodes the source cannot reach. */
+	public static final int UNREACHABLE = BatchShortestPaths.UNREACHABLE;
+
+	/** Frontiers smaller than this are relaxed on the calling thread. */
+	private static final int PARALLEL_THRESHOLD = 1024;
+
+	private final int delta;
+	private final ForkJoinPool pool;
+
+	/** Constructor creates an engine with the given bucket width.
+	 *
+	 * @param delta The bucket width; must be positive.
+	 * @param pool  Runs the parallel relaxations.
+	 * @throws IllegalArgumentException if delta is not positive.
+	 */
+	public DeltaStepping(int delta, ForkJoinPool pool) throws IllegalArgumentException {
+		if(delta <= 0) {
+			throw new IllegalArgumentException("delta must be positive: " + delta);
+		}
+		this.delta = delta;
+		this.pool = pool;
+	}
+
+	/**
+	 * Return the length of a minimal path from source to every node of g,
+	 * indexed by node id, with UNREACHABLE for nodes source cannot reach.
+	 */
+	public int[] distances(IntGraph g, int source) {
+		int n = g.nodeCount();
+		AtomicIntegerArray distance = new AtomicIntegerArray(n);
+		for(int u = 0; u < n; u++) {
+			distance.set(u, Integer.MAX_VALUE);
+		}
+		int[] queued = new int[n]; //last phase each node was taken out of a bucket in
+		int[] passed = new int[n]; //last bucket (+1) each node passed through
+		int phase = 0;
+		TreeMap<Integer, IntList> buckets = new TreeMap<Integer, IntList>();
+
+		distance.set(source, 0);
+		bucket(buckets, 0).add(source);
+		while(!buckets.isEmpty()) {
+			int i = buckets.firstKey();
+			IntList settled = new IntList(); //every node that passed through bucket i
+
+			IntList contents;
+			while((contents = buckets.remove(i)) != null) {
+				//drop nodes that have since moved to an earlier bucket, and repeats
+				phase++;
+				IntList frontier = new IntList();
+				for(int k = 0; k < contents.size; k++) {
+					int u = contents.items[k];
+					if(distance.get(u) / delta == i && queued[u] != phase) {
+						queued[u] = phase;
+						frontier.add(u);
+						if(passed[u] != i + 1) {
+							passed[u] = i + 1;
+							settled.add(u);
+						}
+					}
+				}
+				insert(buckets, distance, relax(g, distance, frontier, true));
+			}
+			insert(buckets, distance, relax(g, distance, settled, false));
+		}
+
+		int[] result = new int[n];
+		for(int u = 0; u < n; u++) {
+			int d = distance.get(u);
+			result[u] = (d == Integer.MAX_VALUE) ? UNREACHABLE : d;
+		}
+		return result;
+	}
+
+	/** Relaxes the light (or heavy) edges out of every node of frontier, in
+	 * parallel when the frontier is large, and returns the nodes whose
+	 * distance went down. */
+	private IntList relax(IntGraph g, AtomicIntegerArray distance, IntList frontier, boolean light) {
+		if(frontier.size < PARALLEL_THRESHOLD) {
+			IntList improved = new IntList();
+			relax(g, distance, frontier, 0, frontier.size, light, improved);
+			return improved;
+		}
+		int chunks = Math.min(pool.getParallelism() * 4, frontier.size / (PARALLEL_THRESHOLD / 4));
+		List<ForkJoinTask<IntList>> tasks = new ArrayList<ForkJoinTask<IntList>>(chunks);
+		for(int c = 0; c < chunks; c++) {
+			int from = (int) ((long) frontier.size * c / chunks);
+			int to = (int) ((long) frontier.size * (c + 1) / chunks);
+			tasks.add(ForkJoinTask.adapt(() -> {
+				IntList improved = new IntList();
+				relax(g, distance, frontier, from, to, light, improved);
+				return improved;
+			}));
+		}
+		IntList improved = new IntList();
+		for(ForkJoinTask<IntList> t : tasks) {
+			pool.execute(t);
+		}
+		for(ForkJoinTask<IntList> t : tasks) {
+			improved.addAll(t.join());
+		}
+		return improved;
+	}
+
+	/** Relaxes the light (or heavy) edges out of frontier[from..to), adding
+	 * every node whose distance went down to improved. */
+	private void relax(IntGraph g, AtomicIntegerArray distance, IntList frontier, int from, int to,
+			boolean light, IntList improved) {
+		for(int k = from; k < to; k++) {
+			int u = frontier.items[k];
+			int du = distance.get(u);
+			for(int e = g.begin(u); e < g.end(u); e++) {
+				int w = g.weight(e);
+				if((w <= delta) != light) {
+					continue;
+				}
+				int v = g.target(e);
+				int d = du + w;
+				int old = distance.get(v);
+				while(d < old) { //lower distance[v] to d unless another thread got lower
+					if(distance.compareAndSet(v, old, d)) {
+						improved.add(v);
+						break;
+					}
+					old = distance.get(v);
+				}
+			}
+		}
+	}
+
+	/** Puts every node of improved into the bucket for its current distance. */
+	private void insert(TreeMap<Integer, IntList> buckets, AtomicIntegerArray distance, IntList improved) {
+		for(int k = 0; k < improved.size; k++) {
+			int v = improved.items[k];
+			bucket(buckets, distance.get(v) / delta).add(v);
+		}
+	}
+
+	/** Returns bucket i, creating it if needed. */
+	private static IntList bucket(Map<Integer, IntList> buckets, int i) {
+		IntList b = buckets.get(i);
+		if(b == null) {
+			b = new IntList();
+			buckets.put(i, b);
+		}
+		return b;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for DeltaStepping against sequential Dijkstra. */
+	public static class Tests {
+
+		/** Asserts that delta-stepping from source agrees with
+		 * GraphAlgorithms.shortestPath on every step-th target. */
+		private static void assertDijkstra(IntGraph g, int source, int[] distances, int step) {
+			for(int t = 0; t < g.nodeCount(); t += step) {
+				assertEquals(distances[t], TestGraphs.distance(g, source, t), "to " + t);
+			}
+		}
+
+		@Test
+		public void testSmallGraphs() {
+			ForkJoinPool pool = new ForkJoinPool(4);
+			try {
+				assertThrows(IllegalArgumentException.class, () -> {new DeltaStepping(0, pool);});
+				Random r = new Random(17);
+				for(int trial = 0; trial < 40; trial++) {
+					IntGraph g = TestGraphs.random(r, 60, 20);
+					int source = r.nextInt(g.nodeCount());
+					for(int delta : new int[] {1, 3, 10, 50}) {
+						assertDijkstra(g, source, new DeltaStepping(delta, pool).distances(g, source), 1);
+					}
+				}
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		/** Frontiers above PARALLEL_THRESHOLD are relaxed on the pool. */
+		@Test
+		public void testParallel() {
+			ForkJoinPool pool = new ForkJoinPool(4);
+			try {
+				Random r = new Random(23);
+				IntGraph g = TestGraphs.random(r, 20000, 100000, 30);
+				for(int delta : new int[] {1, 8, 30, 1000}) {
+					int[] d = new DeltaStepping(delta, pool).distances(g, 0);
+					assertDijkstra(g, 0, d, 97);
+				}
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+}
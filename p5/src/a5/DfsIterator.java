@@ -0,0 +1,120 @@
+package a5;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import a5.PathCache.Tests.Stop;
+import graph.Edge;
+import graph.Node;
+
+/** Returns the nodes reachable from a start node in the order dfs(N) lists
+ * them, one at a time.
+ *
+ * A node's neighbours are pushed only when the iterator is asked for the
+ * node after it, so a consumer that stops early never expands the last node
+ * it saw. The worklist holds the unexpanded frontier; the visited set still
+ * grows with every node returned.
+ */
+class DfsIterator<N extends Node<N,E>, E extends Edge<N,E>> implements Iterator<N> {
+	private final ArrayDeque<N> worklist = new ArrayDeque<N>();
+	private final HashSet<N> visited = new HashSet<N>();
+	private N last; //returned but not yet expanded, or null
+	private N next; //the node next() will return, or null if not yet found
+
+	DfsIterator(N start) {
+		worklist.push(start);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(next != null) {
+			return true;
+		}
+		if(last != null) {
+			for(N neighbor : last.outgoing().keySet()) {
+				if(!visited.contains(neighbor)) {
+					worklist.push(neighbor);
+				}
+			}
+			last = null;
+		}
+		while(!worklist.isEmpty()) {
+			N n = worklist.pop();
+			if(visited.add(n)) {
+				next = n;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public N next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		last = next;
+		next = null;
+		return last;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for dfsIterator and dfsStream against dfs(N). */
+	public static class Tests {
+
+		/** Makes each stop add one to expanded[0] the first time its edges
+		 * are asked for. */
+		static void count(Stop[] stops, int[] expanded) {
+			for(Stop s : stops) {
+				s.onExpand = () -> expanded[0]++;
+			}
+		}
+
+		@Test
+		public void testOrder() {
+			Random r = new Random(103);
+			for(int trial = 0; trial < 40; trial++) {
+				Stop[] s = TestGraphs.stops(TestGraphs.random(r, 30, 9));
+				Stop start = s[r.nextInt(s.length)];
+				List<Stop> expected = GraphAlgorithms.dfs(start);
+				Iterator<Stop> it = GraphAlgorithms.dfsIterator(start);
+				for(Stop n : expected) {
+					assertTrue(it.hasNext());
+					assertTrue(it.hasNext());
+					assertSame(it.next(), n);
+				}
+				assertFalse(it.hasNext());
+				assertThrows(NoSuchElementException.class, () -> {it.next();});
+				assertEquals(GraphAlgorithms.dfsStream(start).collect(Collectors.toList()), expected);
+			}
+		}
+
+		/** findFirst on a large graph expands only the nodes before the
+		 * match, not the whole component. */
+		@Test
+		public void testLazy() {
+			IntGraph g = TestGraphs.grid(new Random(107), 100, 9);
+			List<Stop> order = GraphAlgorithms.dfs(TestGraphs.stops(g)[0]); //expands a copy
+			Stop[] s = TestGraphs.stops(g);
+			int[] expanded = {0};
+			for(int k : new int[] {0, 1, 5, 50}) {
+				Stop target = s[Integer.parseInt(order.get(k).toString())];
+				expanded[0] = 0;
+				count(s, expanded);
+				assertSame(GraphAlgorithms.dfsStream(s[0]).filter(n -> n == target).findFirst().get(), target);
+				assertEquals(expanded[0], k, "expanded before the " + k + "th node");
+			}
+			expanded[0] = 0;
+			count(s, expanded);
+			assertEquals(GraphAlgorithms.dfsStream(s[0]).limit(3).count(), 3);
+			assertEquals(expanded[0], 2);
+		}
+	}
+}
@@ -0,0 +1,450 @@
+package a5;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import a4.IntPriorityHeap;
+import graph.LabeledEdge;
+import graph.Node;
+
+/** A tree of minimal paths from one start node that is kept up to date as
+ * edges are added, removed and reweighted.
+ *
+ * The tree owns its copy of the edge weights (graph.Node has no way to
+ * report changes), and every update goes through setWeight or removeEdge.
+ * An update repairs only the part of the tree it affects:
+ * <ul>
+ * <li>a new or cheaper edge u->v that shortens the path to v runs Dijkstra
+ *     from v alone, and stops where distances no longer improve;</li>
+ * <li>a dearer or removed edge matters only if it is the tree edge into v.
+ *     Then the subtree under v is detached, each of its nodes is offered its
+ *     best entry from outside the subtree, and Dijkstra over the subtree
+ *     settles them again, calling changePriority as cheaper entries are
+ *     found. Nodes it cannot reach become unreachable.</li>
+ * </ul>
+ * In both cases the work is proportional to the affected region and its
+ * edges, not to the whole graph. Queries always reflect every update made
+ * so far. Weights must be nonnegative.
+ */
+public final class DynamicShortestPathTree<N> {
+	private final N start;
+	private final HashMap<N, HashMap<N, Integer>> out = new HashMap<N, HashMap<N, Integer>>(); //weight of u->v by u, v
+	private final HashMap<N, HashMap<N, Integer>> in = new HashMap<N, HashMap<N, Integer>>(); //weight of u->v by v, u
+	private final HashMap<N, GraphAlgorithms.DB<N>> info = new HashMap<N, GraphAlgorithms.DB<N>>(); //reachable nodes
+	private final HashMap<N, Set<N>> children = new HashMap<N, Set<N>>(); //inverse of the backpointers
+
+	/** Constructor creates a tree for a graph that has no edges yet.
+	 *
+	 * @param start The node the paths start from.
+	 */
+	public DynamicShortestPathTree(N start) {
+		this.start = start;
+		info.put(start, new GraphAlgorithms.DB<N>(0, null));
+	}
+
+	/**
+	 * Return a tree over a copy of every edge reachable from start, with the
+	 * weights given by the edge labels at the time of the call.
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	DynamicShortestPathTree<N> of(N start) {
+		DynamicShortestPathTree<N> t = new DynamicShortestPathTree<N>(start);
+		for(N u : GraphAlgorithms.dfs(start)) {
+			for(Map.Entry<N, ? extends E> edge : u.outgoing().entrySet()) {
+				t.putEdge(u, edge.getKey(), edge.getValue().label());
+			}
+		}
+		t.settle(Collections.singletonList(start));
+		return t;
+	}
+
+	/** Return the node the paths start from. */
+	public N start() {
+		return start;
+	}
+
+	/** Return the nodes reachable from start(), including start() itself. */
+	public Set<N> nodes() {
+		return Collections.unmodifiableSet(info.keySet());
+	}
+
+	/** Return true if there is a path from start() to n. */
+	public boolean reaches(N n) {
+		return info.containsKey(n);
+	}
+
+	/**
+	 * Return the length of a minimal path from start() to n.
+	 *
+	 * @throws NoSuchElementException if n is not reachable from start().
+	 */
+	public int distanceTo(N n) throws NoSuchElementException {
+		return get(n).distance;
+	}
+
+	/**
+	 * Return the node before n on the minimal path from start() to n, or null
+	 * if n is start().
+	 *
+	 * @throws NoSuchElementException if n is not reachable from start().
+	 */
+	public N parent(N n) throws NoSuchElementException {
+		return get(n).backpointer;
+	}
+
+	/** Return a minimal path from start() to n, or an empty list if n is not
+	 * reachable. */
+	public List<N> pathTo(N n) {
+		if(!info.containsKey(n)) {
+			return new ArrayList<N>();
+		}
+		return GraphAlgorithms.path(info, n);
+	}
+
+	/** Return the weight of the edge u->v, or null if there is none. */
+	public Integer weight(N u, N v) {
+		HashMap<N, Integer> edges = out.get(u);
+		return edges == null ? null : edges.get(v);
+	}
+
+	/** Return an immutable copy of the current tree. */
+	public ShortestPathTree<N> snapshot() {
+		HashMap<N, GraphAlgorithms.DB<N>> copy = new HashMap<N, GraphAlgorithms.DB<N>>();
+		for(Map.Entry<N, GraphAlgorithms.DB<N>> e : info.entrySet()) {
+			copy.put(e.getKey(), new GraphAlgorithms.DB<N>(e.getValue().distance, e.getValue().backpointer));
+		}
+		return new ShortestPathTree<N>(start, copy);
+	}
+
+	/**
+	 * Add the edge u->v with weight w, or change its weight to w if it
+	 * exists, and repair the tree.
+	 *
+	 * @throws IllegalArgumentException if w is negative.
+	 */
+	public void setWeight(N u, N v, int w) throws IllegalArgumentException {
+		if(w < 0) {
+			throw new IllegalArgumentException("negative weight: " + w);
+		}
+		Integer old = putEdge(u, v, w);
+		if(old == null || w < old) {
+			decreased(u, v, w);
+		} else if(w > old) {
+			increased(u, v);
+		}
+	}
+
+	/** Remove the edge u->v, if there is one, and repair the tree. */
+	public void removeEdge(N u, N v) {
+		HashMap<N, Integer> edges = out.get(u);
+		if(edges == null || edges.remove(v) == null) {
+			return;
+		}
+		in.get(v).remove(u);
+		increased(u, v);
+	}
+
+	/** Records the edge u->v with weight w and returns its old weight, or null. */
+	private Integer putEdge(N u, N v, int w) {
+		HashMap<N, Integer> edges = out.get(u);
+		if(edges == null) {
+			edges = new HashMap<N, Integer>();
+			out.put(u, edges);
+		}
+		HashMap<N, Integer> into = in.get(v);
+		if(into == null) {
+			into = new HashMap<N, Integer>();
+			in.put(v, into);
+		}
+		into.put(u, w);
+		return edges.put(v, w);
+	}
+
+	/** Repairs the tree after u->v was added or got cheaper, with weight w. */
+	private void decreased(N u, N v, int w) {
+		GraphAlgorithms.DB<N> from = info.get(u);
+		if(from == null) {
+			return; //u is unreachable, so the edge is useless
+		}
+		GraphAlgorithms.DB<N> to = info.get(v);
+		int d = from.distance + w;
+		if(to != null && d >= to.distance) {
+			return;
+		}
+		setParent(v, u, d);
+		settle(Collections.singletonList(v));
+	}
+
+	/** Repairs the tree after u->v got dearer or was removed. */
+	private void increased(N u, N v) {
+		GraphAlgorithms.DB<N> to = info.get(v);
+		if(to == null || to.backpointer == null || !to.backpointer.equals(u)) {
+			return; //not a tree edge, so no path used it
+		}
+
+		//detach the subtree under v; every other distance stays valid
+		ArrayList<N> subtree = new ArrayList<N>();
+		subtree.add(v);
+		setParent(v, null, 0);
+		for(int i = 0; i < subtree.size(); i++) {
+			Set<N> below = children.remove(subtree.get(i));
+			if(below != null) {
+				subtree.addAll(below);
+			}
+		}
+		for(N x : subtree) {
+			info.remove(x);
+		}
+
+		//offer each detached node its best entry from the rest of the tree
+		IntPriorityHeap<N> f = new IntPriorityHeap<N>();
+		HashMap<N, GraphAlgorithms.DB<N>> tentative = new HashMap<N, GraphAlgorithms.DB<N>>();
+		for(N x : subtree) {
+			HashMap<N, Integer> into = in.get(x);
+			if(into == null) {
+				continue;
+			}
+			GraphAlgorithms.DB<N> best = null;
+			for(Map.Entry<N, Integer> edge : into.entrySet()) {
+				GraphAlgorithms.DB<N> p = info.get(edge.getKey());
+				if(p != null && (best == null || p.distance + edge.getValue() < best.distance)) {
+					best = new GraphAlgorithms.DB<N>(p.distance + edge.getValue(), edge.getKey());
+				}
+			}
+			if(best != null) {
+				tentative.put(x, best);
+				f.add(x, best.distance);
+			}
+		}
+
+		//Dijkstra over the detached nodes only
+		while(f.size() != 0) {
+			N x = f.poll(); //progress: x is reattached with its final distance
+			GraphAlgorithms.DB<N> db = tentative.get(x);
+			setParent(x, db.backpointer, db.distance);
+			HashMap<N, Integer> edges = out.get(x);
+			if(edges == null) {
+				continue;
+			}
+			for(Map.Entry<N, Integer> edge : edges.entrySet()) {
+				N y = edge.getKey();
+				if(info.containsKey(y)) {
+					continue; //outside the subtree or already reattached
+				}
+				int d = db.distance + edge.getValue();
+				GraphAlgorithms.DB<N> yInfo = tentative.get(y);
+				if(yInfo == null) {
+					tentative.put(y, new GraphAlgorithms.DB<N>(d, x));
+					f.add(y, d);
+				} else if(d < yInfo.distance) {
+					yInfo.distance = d;
+					yInfo.backpointer = x;
+					f.changePriority(y, d);
+				}
+			}
+		}
+	}
+
+	/** Runs Dijkstra from the given nodes, whose entries in info are already
+	 * set, lowering distances below them until nothing improves. */
+	private void settle(List<N> sources) {
+		IntPriorityHeap<N> f = new IntPriorityHeap<N>();
+		for(N s : sources) {
+			f.add(s, info.get(s).distance);
+		}
+		while(f.size() != 0) {
+			N x = f.poll(); //progress: x's distance is final
+			int dx = info.get(x).distance;
+			HashMap<N, Integer> edges = out.get(x);
+			if(edges == null) {
+				continue;
+			}
+			for(Map.Entry<N, Integer> edge : edges.entrySet()) {
+				N y = edge.getKey();
+				int d = dx + edge.getValue();
+				GraphAlgorithms.DB<N> yInfo = info.get(y);
+				if(yInfo != null && d >= yInfo.distance) {
+					continue;
+				}
+				setParent(y, x, d);
+				if(f.contains(y)) {
+					f.changePriority(y, d);
+				} else {
+					f.add(y, d);
+				}
+			}
+		}
+	}
+
+	/** Makes p the parent of x at distance d, keeping children in step; a
+	 * null p just detaches x from its parent. */
+	private void setParent(N x, N p, int d) {
+		GraphAlgorithms.DB<N> db = info.get(x);
+		if(db == null) {
+			db = new GraphAlgorithms.DB<N>(d, p);
+			info.put(x, db);
+		} else {
+			if(db.backpointer != null) {
+				Set<N> siblings = children.get(db.backpointer);
+				siblings.remove(x);
+				if(siblings.isEmpty()) {
+					children.remove(db.backpointer);
+				}
+			}
+			db.distance = d;
+			db.backpointer = p;
+		}
+		if(p != null) {
+			Set<N> c = children.get(p);
+			if(c == null) {
+				c = new LinkedHashSet<N>();
+				children.put(p, c);
+			}
+			c.add(x);
+		}
+	}
+
+	/** Returns the entry for n.
+	 *
+	 * @throws NoSuchElementException if n is not reachable from start().
+	 */
+	private GraphAlgorithms.DB<N> get(N n) throws NoSuchElementException {
+		GraphAlgorithms.DB<N> db = info.get(n);
+		if(db == null) {
+			throw new NoSuchElementException();
+		}
+		return db;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for DynamicShortestPathTree against searches from scratch. */
+	public static class Tests {
+
+		/** Returns the distance from 0 to every node over the edges in w, where
+		 * w[u][v] is the weight of u->v or -1, by O(n^2) Dijkstra;
+		 * Integer.MAX_VALUE marks unreachable nodes. */
+		private static int[] recompute(int[][] w) {
+			int n = w.length;
+			int[] d = new int[n];
+			boolean[] done = new boolean[n];
+			java.util.Arrays.fill(d, Integer.MAX_VALUE);
+			d[0] = 0;
+			for(int round = 0; round < n; round++) {
+				int u = -1;
+				for(int v = 0; v < n; v++) {
+					if(!done[v] && d[v] != Integer.MAX_VALUE && (u < 0 || d[v] < d[u])) {
+						u = v;
+					}
+				}
+				if(u < 0) {
+					break;
+				}
+				done[u] = true;
+				for(int v = 0; v < n; v++) {
+					if(w[u][v] >= 0 && d[u] + w[u][v] < d[v]) {
+						d[v] = d[u] + w[u][v];
+					}
+				}
+			}
+			return d;
+		}
+
+		/** Asserts that t answers every query as a search over w would. */
+		private static void assertMatches(DynamicShortestPathTree<Integer> t, int[][] w) {
+			int[] d = recompute(w);
+			int reachable = 0;
+			for(int v = 0; v < w.length; v++) {
+				if(d[v] == Integer.MAX_VALUE) {
+					assertFalse(t.reaches(v), "reaches " + v);
+					assertTrue(t.pathTo(v).isEmpty());
+					final int x = v;
+					assertThrows(NoSuchElementException.class, () -> {t.distanceTo(x);});
+					continue;
+				}
+				reachable++;
+				assertTrue(t.reaches(v), "reaches " + v);
+				assertEquals(t.distanceTo(v), d[v], "distance to " + v);
+				List<Integer> path = t.pathTo(v);
+				assertEquals(path.get(0), (Integer) 0);
+				assertEquals(path.get(path.size() - 1), (Integer) v);
+				int length = 0;
+				for(int i = 1; i < path.size(); i++) {
+					int weight = w[path.get(i - 1)][path.get(i)];
+					assertTrue(weight >= 0, "path to " + v + " uses a missing edge");
+					length += weight;
+				}
+				assertEquals(length, d[v], "length of path to " + v);
+				assertEquals(t.parent(v), v == 0 ? null : path.get(path.size() - 2));
+			}
+			assertEquals(t.nodes().size(), reachable);
+		}
+
+		@Test
+		public void testRandomUpdates() {
+			for(int seed = 0; seed < 20; seed++) {
+				Random r = new Random(seed);
+				int n = 5 + r.nextInt(25);
+				int[][] w = new int[n][n];
+				for(int[] row : w) {
+					java.util.Arrays.fill(row, -1);
+				}
+				DynamicShortestPathTree<Integer> t = new DynamicShortestPathTree<Integer>(0);
+				assertThrows(IllegalArgumentException.class, () -> {t.setWeight(0, 1, -1);});
+				for(int step = 0; step < 300; step++) {
+					int u = r.nextInt(n);
+					int v = r.nextInt(n);
+					//grow the graph first, then mix in removals and increases
+					if(step > 3 * n && r.nextInt(3) == 0) {
+						t.removeEdge(u, v);
+						w[u][v] = -1;
+					} else {
+						int weight = r.nextInt(11);
+						t.setWeight(u, v, weight);
+						w[u][v] = weight;
+					}
+					assertEquals(t.weight(u, v), w[u][v] < 0 ? null : (Integer) w[u][v]);
+					assertMatches(t, w);
+				}
+			}
+		}
+
+		/** Raising a tree edge must detach and reattach the whole subtree under
+		 * it, including nodes that become unreachable. */
+		@Test
+		public void testSubtreeDetach() {
+			DynamicShortestPathTree<Integer> t = new DynamicShortestPathTree<Integer>(0);
+			int[][] w = new int[6][6];
+			for(int[] row : w) {
+				java.util.Arrays.fill(row, -1);
+			}
+			int[][] edges = {{0, 1, 1}, {1, 2, 1}, {2, 3, 1}, {1, 4, 1}, {0, 3, 10}, {4, 5, 0}};
+			for(int[] e : edges) {
+				t.setWeight(e[0], e[1], e[2]);
+				w[e[0]][e[1]] = e[2];
+			}
+			assertMatches(t, w);
+			assertEquals(t.distanceTo(3), 3);
+			t.setWeight(0, 1, 20); //3 now comes directly from 0; 1, 2, 4 and 5 move down
+			w[0][1] = 20;
+			assertMatches(t, w);
+			assertEquals(t.pathTo(3), java.util.Arrays.asList(0, 3));
+			t.removeEdge(0, 1); //1, 2, 4 and 5 become unreachable
+			w[0][1] = -1;
+			assertMatches(t, w);
+			assertFalse(t.reaches(5));
+			t.setWeight(3, 4, 2);
+			w[3][4] = 2;
+			assertMatches(t, w);
+			assertEquals(t.pathTo(5), java.util.Arrays.asList(0, 3, 4, 5));
+		}
+	}
+}
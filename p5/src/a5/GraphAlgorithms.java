@@ -1,16 +1,34 @@
 package a5;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
-import java.util.Stack;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
 
-import a4.Heap;
+import a4.DialQueue;
+import a4.IndexedIntHeap;
+import a4.IntPriorityHeap;
+import a4.IntPriorityQueue;
+import a4.PriorityQueue;
+import a4.PriorityQueues;
+import a4.RadixHeap;
+import a5.PathCache.Tests.Hop;
+import a5.PathCache.Tests.Stop;
 import graph.Edge;
 import graph.Node;
 import graph.LabeledEdge;
@@ -18,12 +36,17 @@ import graph.LabeledEdge;
 /** We've provided depth-first search as an example; you need to implement Dijkstra's algorithm.
  */
 public class GraphAlgorithms  {
+	/** The largest maxWeight for which shortestPath(start, end, maxWeight)
+	 * uses Dial's buckets; above it, walking the empty buckets between
+	 * distances costs more than a RadixHeap's redistribution. */
+	public static final int DIAL_LIMIT = 1 << 12;
+	
 	/** Return the Nodes reachable from start in depth-first-search order */
 	public static <N extends Node<N,E>, E extends Edge<N,E>>
 	List<N> dfs(N start) {
 		
-		Stack<N> worklist = new Stack<N>();
-		worklist.add(start);
+		ArrayDeque<N> worklist = new ArrayDeque<N>();
+		worklist.push(start);
 		
 		Set<N>   visited  = new HashSet<N>();
 		List<N>  result   = new ArrayList<N>();
@@ -32,17 +55,132 @@ public class GraphAlgorithms  {
 			//    - everything in visited has a path from start to it
 			//    - everything in worklist has a path from start to it
 			//      that only traverses visited nodes
-			//    - nothing in the worklist is visited
+			//    - a node can be in the worklist more than once, or after
+			//      it is visited; such entries are skipped when popped
 			N next = worklist.pop();
-			visited.add(next);
+			if (!visited.add(next))
+				continue;
 			result.add(next);
 			for (N neighbor : next.outgoing().keySet())
 				if (!visited.contains(neighbor))
-					worklist.add(neighbor);
+					worklist.push(neighbor);
 		}
 		return result;
 	}
 	
+	/**
+	 * Return an iterator over the Nodes reachable from start in the order
+	 * dfs(start) lists them. Nodes are discovered only as the iterator is
+	 * advanced, so stopping early skips the rest of the graph.
+	 */
+	public static <N extends Node<N,E>, E extends Edge<N,E>>
+	Iterator<N> dfsIterator(N start) {
+		return new DfsIterator<N,E>(start);
+	}
+	
+	/**
+	 * Return a sequential stream of the Nodes reachable from start in the
+	 * order dfs(start) lists them. Nodes are discovered only as the stream
+	 * pulls them, so short-circuiting operations such as findFirst, anyMatch
+	 * or limit stop the search.
+	 */
+	public static <N extends Node<N,E>, E extends Edge<N,E>>
+	Stream<N> dfsStream(N start) {
+		return stream(dfsIterator(start));
+	}
+	
+	/**
+	 * Return the ids of the nodes reachable from start in depth-first-search
+	 * order, visiting the neighbours of a node in the reverse of their edge
+	 * order, like dfs(N).
+	 * 
+	 * @param g     The graph to search, e.g. a CsrGraph or MappedGraph
+	 * @param start The id of the node to search from
+	 */
+	public static int[] dfs(IntGraph g, int start) {
+		int[] worklist = new int[g.edgeCount() + 1]; //each edge pushes at most once
+		boolean[] visited = new boolean[g.nodeCount()];
+		int[] result = new int[g.nodeCount()];
+		int top = 0;
+		int count = 0;
+		worklist[top++] = start;
+		while(top > 0) {
+			int next = worklist[--top];
+			if(visited[next]) {
+				continue;
+			}
+			visited[next] = true;
+			result[count++] = next;
+			for(int e = g.begin(next); e < g.end(next); e++) {
+				if(!visited[g.target(e)]) {
+					worklist[top++] = g.target(e);
+				}
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+	
+	/**
+	 * Return the ids of a minimal path from start to end, or an empty array if
+	 * end is not reachable. Like shortestPath(N, N), this returns as soon as
+	 * end is settled.
+	 * 
+	 * Distances and backpointers are kept in int arrays indexed by id and the
+	 * frontier is an IndexedIntHeap, so the search does no hashing and
+	 * allocates only those arrays.
+	 * 
+	 * @param g     The graph to search, e.g. a CsrGraph or MappedGraph
+	 * @param start The id of the node to search from
+	 * @param end   The id of the node to find
+	 */
+	public static int[] shortestPath(IntGraph g, int start, int end) {
+		int n = g.nodeCount();
+		int[] distance = new int[n];
+		int[] parent = new int[n];
+		boolean[] settled = new boolean[n];
+		Arrays.fill(distance, Integer.MAX_VALUE);
+		IndexedIntHeap f = new IndexedIntHeap(n);
+		
+		distance[start] = 0;
+		parent[start] = -1;
+		f.add(start, 0);
+		while(f.size() != 0) {
+			int from = f.poll();
+			settled[from] = true;
+			if(from == end) {
+				return path(parent, end);
+			}
+			for(int e = g.begin(from); e < g.end(from); e++) {
+				int to = g.target(e);
+				int d = distance[from] + g.weight(e);
+				if(settled[to] || d >= distance[to]) {
+					continue;
+				}
+				if(distance[to] == Integer.MAX_VALUE) {
+					f.add(to, d);
+				} else {
+					f.changePriority(to, d);
+				}
+				distance[to] = d;
+				parent[to] = from;
+			}
+		}
+		return new int[0];
+	}
+	
+	/** Return the ids on the path to end by following parent links to -1. */
+	static int[] path(int[] parent, int end) {
+		int length = 0;
+		for(int p = end; p != -1; p = parent[p]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for(int p = end; p != -1; p = parent[p]) {
+			path[--length] = p;
+		}
+		return path;
+	}
+	
 	/**
 	 * Return a minimal path from start to end.  This method should return as
 	 * soon as the shortest path to end is known; it should not continue to search
@@ -55,56 +193,393 @@ public class GraphAlgorithms  {
 	 */
 	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
 	List<N> shortestPath(N start, N end) {
+		return shortestPath(start, end, IntPriorityHeap::new);
+	}
+	
+	/**
+	 * Return a minimal path from start to end, like shortestPath(start, end),
+	 * for a graph whose edge weights are all in 0..maxWeight. Because
+	 * Dijkstra polls distances in increasing order, the frontier can then be
+	 * a monotone bucket queue instead of a comparison heap: a DialQueue when
+	 * maxWeight is at most DIAL_LIMIT, and a RadixHeap otherwise.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start     The node to search from
+	 * @param end       The node to find
+	 * @param maxWeight The largest weight of any edge
+	 * @throws IllegalArgumentException if maxWeight is negative, or if the
+	 *         search meets a negative weight or, with a DialQueue, a weight
+	 *         above maxWeight.
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	List<N> shortestPath(N start, N end, int maxWeight) throws IllegalArgumentException {
+		if(maxWeight < 0) {
+			throw new IllegalArgumentException("negative weight: " + maxWeight);
+		}
+		if(maxWeight <= DIAL_LIMIT) {
+			return shortestPath(start, end, () -> new DialQueue<N>(maxWeight));
+		}
+		return shortestPath(start, end, RadixHeap::new);
+	}
+	
+	/**
+	 * Return a minimal path from start to end, like shortestPath(start, end),
+	 * using a frontier queue obtained from the given factory (see
+	 * a4.PriorityQueues). This lets callers pick the queue implementation
+	 * that measures best for their graphs.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start    The node to search from
+	 * @param end      The node to find
+	 * @param frontier Creates the empty queue used as the frontier
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	List<N> shortestPath(N start, N end, Supplier<? extends PriorityQueue<N, Integer>> frontier) {
+		return shortestPath(start, end, frontier, null);
+	}
+	
+	/**
+	 * Return a minimal path from start to end, like shortestPath(start, end,
+	 * frontier), adding the work done to stats.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start    The node to search from
+	 * @param end      The node to find
+	 * @param frontier Creates the empty queue used as the frontier
+	 * @param stats    Counts the work and time of the search; may be null
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	List<N> shortestPath(N start, N end, Supplier<? extends PriorityQueue<N, Integer>> frontier, SearchStats stats) {
+		HashMap<N, DB<N>> info = search(start, end, frontier, stats, null);
+		if(info.containsKey(end)) {
+			return path(info, end);
+		}
+		return new ArrayList<N>();
+	}
+	
+	/**
+	 * Return a minimal path from start to end using A* search: the frontier is
+	 * ordered by distance from start plus heuristic's estimate of the distance
+	 * to end, so the search is pulled toward end instead of expanding in every
+	 * direction.
+	 * 
+	 * The heuristic must be consistent: h(end) == 0, and h(u) <= w + h(v) for
+	 * every edge u->v of weight w (straight-line distance on a geometric graph
+	 * is). With assertions enabled (-ea) the search checks this on every edge
+	 * it relaxes. zeroHeuristic() makes this exactly shortestPath(start, end).
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start     The node to search from
+	 * @param end       The node to find
+	 * @param heuristic A consistent lower bound on the distance to end
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	List<N> aStar(N start, N end, ToIntFunction<? super N> heuristic) {
+		return aStar(start, end, heuristic, null);
+	}
+	
+	/**
+	 * Return a minimal path from start to end using A* search, like
+	 * aStar(start, end, heuristic), adding the work done to stats.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start     The node to search from
+	 * @param end       The node to find
+	 * @param heuristic A consistent lower bound on the distance to end
+	 * @param stats     Counts the work and time of the search; may be null
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	List<N> aStar(N start, N end, ToIntFunction<? super N> heuristic, SearchStats stats) {
+		assert heuristic.applyAsInt(end) == 0 : "heuristic is not 0 at end";
+		HashMap<N, DB<N>> info = search(start, end, IntPriorityHeap::new, stats, heuristic);
+		if(info.containsKey(end)) {
+			return path(info, end);
+		}
+		return new ArrayList<N>();
+	}
+	
+	/** Return the heuristic that estimates 0 for every node, which turns A*
+	 * into Dijkstra's algorithm. */
+	public static <N> ToIntFunction<N> zeroHeuristic() {
+		return n -> 0;
+	}
+	
+	/**
+	 * Return a minimal path from start to end, searching forward from start
+	 * over outgoing edges and backward from end over the edges in reverse.
+	 * Point-to-point queries on large graphs usually settle far fewer nodes
+	 * this way than with shortestPath.
+	 * 
+	 * graph.Node only has outgoing edges, so the backward search needs a
+	 * ReverseGraph. Building one walks the whole graph, which costs more than
+	 * one search saves; build it once and reuse it for every query until the
+	 * graph changes.
+	 * 
+	 * The search alternates between the two frontiers, always expanding the
+	 * smaller one. Whenever an edge reaches a node the other side has
+	 * discovered, the path through that node is a candidate. The search stops
+	 * once the two smallest frontier distances add up to at least the best
+	 * candidate, since no path through an unsettled node can then be shorter.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start   The node to search from
+	 * @param end     The node to find
+	 * @param reverse The incoming edges of the graph; must cover every node
+	 *                reachable from start
+	 * @param stats   Counts the nodes settled and edges relaxed in both
+	 *                directions; may be null
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	List<N> bidirectionalShortestPath(N start, N end, ReverseGraph<N,E> reverse, SearchStats stats) {
+		HashMap<N, DB<N>> forward = new HashMap<N, DB<N>>();
+		HashMap<N, DB<N>> backward = new HashMap<N, DB<N>>(); //backpointers lead toward end
+		IntPriorityHeap<N> ff = new IntPriorityHeap<N>();
+		IntPriorityHeap<N> fb = new IntPriorityHeap<N>();
+		if(stats != null) {
+			stats.begin();
+		}
 		
-		ArrayList<N> inheap = new ArrayList<N>();	
-		HashMap<N, DB<N>> info = new HashMap<N, DB<N>>();
-		Heap<N, Integer> f = new Heap<N, Integer>(Comparator.naturalOrder());
+		ff.add(start, 0);
+		forward.put(start, new DB<N>(0, null));
+		fb.add(end, 0);
+		backward.put(end, new DB<N>(0, null));
 		
-		f.add(start, 0);
-		inheap.add(start);
-		DB<N> first = new DB<N>(0, null);
-		info.put(start, first);
-		N to = start;
+		int best = start.equals(end) ? 0 : Integer.MAX_VALUE; //length of the best path found so far
+		N meet = start.equals(end) ? start : null; //the node that path goes through
 		
-		while(f.size() != 0 && f.peek() != end) {
-			N from = f.poll();
-			if(inheap.contains(from)) {
-				inheap.remove(from);
-			}
+		while(ff.size() != 0 && fb.size() != 0
+				&& (long) ff.peekPriority() + fb.peekPriority() < best) {
+			boolean isForward = ff.size() <= fb.size();
+			IntPriorityHeap<N> f = isForward ? ff : fb;
+			HashMap<N, DB<N>> info = isForward ? forward : backward;
+			HashMap<N, DB<N>> other = isForward ? backward : forward;
 			
-			Map<N, ? extends E> fn_neighbors = from.outgoing();
-			Set<N> neighbor_nodes = fn_neighbors.keySet();
-			Iterator<N> iterator_nodes = neighbor_nodes.iterator();
+			N from = f.poll(); //progress: from becomes settled on this side
+			int fromDistance = info.get(from).distance;
+			if(stats != null) {
+				stats.settled++;
+			}
 			
-			while(iterator_nodes.hasNext()) {
-				to = iterator_nodes.next();
+			Map<N, ? extends E> edges = isForward ? from.outgoing() : reverse.incoming(from);
+			for(Map.Entry<N, ? extends E> edge : edges.entrySet()) {
+				N to = edge.getKey();
+				int distance = fromDistance + edge.getValue().label();
+				DB<N> toInfo = info.get(to);
+				if(stats != null) {
+					stats.relaxed++;
+				}
 				
-				if(!info.containsKey(to)) {
-					info.put(to, new DB<N>(fn_neighbors.get(to).label() + info.get(from).distance, from));
-					f.add(to, fn_neighbors.get(to).label() + info.get(from).distance);
-					inheap.add(to);
-					
-				} else if(fn_neighbors.get(to).label() + info.get(from).distance < info.get(to).distance && inheap.contains(to)) {
-					info.get(to).distance = fn_neighbors.get(to).label() + info.get(from).distance;
-					info.get(to).backpointer = from;
-					f.changePriority(to, fn_neighbors.get(to).label() + info.get(from).distance);
-					
+				if(toInfo == null) {
+					info.put(to, new DB<N>(distance, from));
+					f.add(to, distance);
+					if(stats != null) {
+						stats.frontier(ff.size() + fb.size());
+					}
+				} else if(distance < toInfo.distance && f.contains(to)) {
+					toInfo.distance = distance;
+					toInfo.backpointer = from;
+					f.changePriority(to, distance);
+				} else {
+					continue; //no better path to to on this side
+				}
+				
+				DB<N> otherInfo = other.get(to);
+				if(otherInfo != null && (long) distance + otherInfo.distance < best) {
+					best = distance + otherInfo.distance;
+					meet = to;
 				}
 			}
 		}
-		if(info.containsKey(end) && f.size() == 0) {
-			ArrayList<N> n = new ArrayList<N>();
-			N p = end;
-			while(p != null) {
-				n.add(0, p);
-				p = info.get(p).backpointer;
-			}
-			return n;
-		} else {
+		if(stats != null) {
+			stats.end();
+		}
+		
+		if(meet == null) {
 			return new ArrayList<N>();
 		}
+		List<N> n = path(forward, meet);
+		for(N p = backward.get(meet).backpointer; p != null; p = backward.get(p).backpointer) {
+			n.add(p);
+		}
+		return n;
+	}
+	
+	/**
+	 * Return the tree of minimal paths from start to every node reachable
+	 * from it. One call does the work of shortestPath(start, end) for every
+	 * end at once; the returned tree answers pathTo and distanceTo without
+	 * searching again.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start The node to search from
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	ShortestPathTree<N> shortestPathTree(N start) {
+		return shortestPathTree(start, IntPriorityHeap::new);
+	}
+	
+	/**
+	 * Return the tree of minimal paths from start, like shortestPathTree(start),
+	 * using a frontier queue obtained from the given factory.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start    The node to search from
+	 * @param frontier Creates the empty queue used as the frontier
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	ShortestPathTree<N> shortestPathTree(N start, Supplier<? extends PriorityQueue<N, Integer>> frontier) {
+		return new ShortestPathTree<N>(start, search(start, null, frontier, null, null));
+	}
+	
+	/**
+	 * Return an iterator over the Nodes reachable from start in the order
+	 * Dijkstra's algorithm settles them, that is by nondecreasing distance
+	 * from start. The search advances only as the iterator does.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start The node to search from
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	Iterator<N> settleOrder(N start) {
+		return new SettleIterator<N,E>(start);
+	}
+	
+	/**
+	 * Return a sequential stream of the Nodes reachable from start by
+	 * nondecreasing distance, like settleOrder(start). For example,
+	 * {@code settleStream(start).filter(p).findFirst()} finds a nearest node
+	 * satisfying p and stops there.
+	 * 
+	 * @param <N> The type of nodes in the graph
+	 * @param <E> The type of edges in the graph; the weights are given by e.label()
+	 * @param start The node to search from
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	Stream<N> settleStream(N start) {
+		return stream(settleOrder(start));
+	}
+	
+	/** Return a sequential, ordered stream of the distinct elements of it. */
+	private static <N> Stream<N> stream(Iterator<N> it) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it,
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+	
+	/**
+	 * Run Dijkstra's algorithm from start until end is settled, or until every
+	 * reachable node is settled if end is null or unreachable. The work done is
+	 * added to stats unless it is null.
+	 * 
+	 * If heuristic is not null, the frontier is ordered by distance plus
+	 * heuristic, which makes this A*; info still holds true distances.
+	 * 
+	 * @return the distance and backpointer of every node discovered; if end
+	 *         is in it, its entry is final
+	 */
+	private static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	HashMap<N, DB<N>> search(N start, N end, Supplier<? extends PriorityQueue<N, Integer>> frontier,
+			SearchStats stats, ToIntFunction<? super N> heuristic) {
+		
+		// every node is in one of three states:
+		//    - undiscovered: not in info
+		//    - frontier:     in info and in f; info holds the best distance found so far
+		//    - settled:      in info but no longer in f; info holds its final distance
+		HashMap<N, DB<N>> info = new HashMap<N, DB<N>>();
+		PriorityQueue<N, Integer> f = frontier.get();
+		if(stats != null) {
+			stats.begin();
+		}
 		
+		add(f, start, heuristic == null ? 0 : heuristic.applyAsInt(start));
+		info.put(start, new DB<N>(0, null));
 		
+		while(f.size() != 0) {
+			N from = f.poll(); //progress: from becomes settled
+			if(stats != null) {
+				stats.settled++;
+			}
+			if(from.equals(end)) {
+				break;
+			}
+			int fromDistance = info.get(from).distance;
+			
+			for(Map.Entry<N, ? extends E> edge : from.outgoing().entrySet()) {
+				N to = edge.getKey();
+				int distance = fromDistance + edge.getValue().label();
+				DB<N> toInfo = info.get(to);
+				if(stats != null) {
+					stats.relaxed++;
+				}
+				assert heuristic == null || consistent(heuristic, from, to, edge.getValue().label());
+				
+				if(toInfo == null) {
+					info.put(to, new DB<N>(distance, from));
+					add(f, to, heuristic == null ? distance : distance + heuristic.applyAsInt(to));
+					if(stats != null) {
+						stats.frontier(f.size());
+					}
+					
+				} else if(distance < toInfo.distance && f.contains(to)) {
+					toInfo.distance = distance;
+					toInfo.backpointer = from;
+					changePriority(f, to, heuristic == null ? distance : distance + heuristic.applyAsInt(to));
+				}
+			}
+		}
+		if(stats != null) {
+			stats.end();
+		}
+		return info;
+	}
+	
+	/** Return true if heuristic satisfies h(from) <= weight + h(to) on the
+	 * edge from->to; throws an AssertionError describing the edge otherwise. */
+	private static <N> boolean consistent(ToIntFunction<? super N> heuristic, N from, N to, int weight) {
+		int hFrom = heuristic.applyAsInt(from);
+		int hTo = heuristic.applyAsInt(to);
+		if(hFrom > weight + hTo) {
+			throw new AssertionError("inconsistent heuristic on edge " + from + " -> " + to
+					+ ": h(from)=" + hFrom + " > w=" + weight + " + h(to)=" + hTo);
+		}
+		return true;
+	}
+	
+	/** Return the path from the search's start to end by following the
+	 * backpointers in info. */
+	static <N> List<N> path(Map<N, DB<N>> info, N end) {
+		ArrayList<N> n = new ArrayList<N>();
+		for(N p = end; p != null; p = info.get(p).backpointer) {
+			n.add(p);
+		}
+		Collections.reverse(n);
+		return n;
+	}
+	
+	/** Adds n to f with priority d, without boxing d if f is an IntPriorityQueue. */
+	private static <N> void add(PriorityQueue<N, Integer> f, N n, int d) {
+		if(f instanceof IntPriorityQueue) {
+			((IntPriorityQueue<N>) f).add(n, d);
+		} else {
+			f.add(n, d);
+		}
+	}
+	
+	/** Changes the priority of n in f to d, without boxing d if f is an IntPriorityQueue. */
+	private static <N> void changePriority(PriorityQueue<N, Integer> f, N n, int d) {
+		if(f instanceof IntPriorityQueue) {
+			((IntPriorityQueue<N>) f).changePriority(n, d);
+		} else {
+			f.changePriority(n, d);
+		}
 	}
 	
 	static class DB<N> {
@@ -117,4 +592,210 @@ public class GraphAlgorithms  {
 		}
 	}
 	
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for the Node searches, on graphs of PathCache.Tests.Stop. */
+	public static class Tests {
+		
+		/** Returns the stops a..f: a reaches b through c more cheaply than
+		 * directly, d only through b, and f is reached from nothing. */
+		static Stop[] small() {
+			Stop[] s = new Stop[6];
+			for(int i = 0; i < s.length; i++) {
+				s[i] = new Stop(String.valueOf((char) ('a' + i)));
+			}
+			s[0].link(s[1], 4);
+			s[0].link(s[2], 1);
+			s[2].link(s[1], 2);
+			s[2].link(s[3], 6);
+			s[1].link(s[3], 1);
+			s[3].link(s[4], 0);
+			s[4].link(s[0], 3);
+			return s;
+		}
+		
+		/** The loop used to stop with end still in the queue, so every call
+		 * returned an empty list. */
+		@Test
+		public void testShortestPath() {
+			Stop[] s = small();
+			assertEquals(shortestPath(s[0], s[3]), Arrays.asList(s[0], s[2], s[1], s[3]));
+			assertEquals(shortestPath(s[0], s[4]), Arrays.asList(s[0], s[2], s[1], s[3], s[4]));
+			assertEquals(shortestPath(s[3], s[2]), Arrays.asList(s[3], s[4], s[0], s[2]));
+			assertEquals(shortestPath(s[0], s[0]), Arrays.asList(s[0]));
+			assertEquals(shortestPath(s[0], s[5]), new ArrayList<Stop>());
+			assertEquals(shortestPath(s[5], s[0]), new ArrayList<Stop>());
+		}
+		
+		/** Every frontier queue finds the same paths. */
+		@Test
+		public void testFrontiers() {
+			Stop[] s = small();
+			List<Supplier<PriorityQueue<Stop, Integer>>> frontiers = Arrays.asList(
+					() -> PriorityQueues.binaryHeap(Integer::compare),
+					() -> PriorityQueues.dAryHeap(4, Integer::compare),
+					() -> PriorityQueues.pairingHeap(Integer::compare),
+					PriorityQueues::intHeap,
+					() -> PriorityQueues.dialQueue(6),
+					PriorityQueues::radixHeap);
+			for(Supplier<PriorityQueue<Stop, Integer>> frontier : frontiers) {
+				assertEquals(shortestPath(s[0], s[3], frontier), Arrays.asList(s[0], s[2], s[1], s[3]));
+				assertEquals(shortestPath(s[3], s[2], frontier), Arrays.asList(s[3], s[4], s[0], s[2]));
+				assertEquals(shortestPath(s[0], s[5], frontier), new ArrayList<Stop>());
+			}
+		}
+		
+		/** Bucket queues find paths of the same lengths as a heap, on both
+		 * sides of DIAL_LIMIT. */
+		@Test
+		public void testMaxWeight() {
+			Random r = new Random(139);
+			for(int trial = 0; trial < 40; trial++) {
+				int maxWeight = trial % 2 == 0 ? 1 + r.nextInt(20) : DIAL_LIMIT + 1 + r.nextInt(1 << 20);
+				Stop[] s = TestGraphs.stops(TestGraphs.random(r, 30, maxWeight));
+				int source = r.nextInt(s.length);
+				for(Stop t : s) {
+					assertEquals(length(shortestPath(s[source], t, maxWeight)), length(shortestPath(s[source], t)));
+				}
+			}
+			assertThrows(IllegalArgumentException.class, () -> {shortestPath(small()[0], small()[3], -1);});
+		}
+		
+		/** A DialQueue rejects an edge heavier than maxWeight; above
+		 * DIAL_LIMIT the RadixHeap has no such bound. */
+		@Test
+		public void testMaxWeightExceeded() {
+			Stop[] s = small();
+			s[0].link(s[5], DIAL_LIMIT + 1); //relaxed after a's lighter edges, so the queue is not empty
+			assertThrows(IllegalArgumentException.class, () -> {shortestPath(s[0], s[5], DIAL_LIMIT);});
+			assertEquals(shortestPath(s[0], s[5], DIAL_LIMIT + 1), Arrays.asList(s[0], s[5]));
+		}
+		
+		/** Returns the length of path, or TestGraphs.UNREACHABLE if it is
+		 * empty; fails unless consecutive stops are linked. */
+		static int length(List<Stop> path) {
+			if(path.isEmpty()) {
+				return TestGraphs.UNREACHABLE;
+			}
+			int length = 0;
+			for(int i = 1; i < path.size(); i++) {
+				Hop hop = path.get(i - 1).out.get(path.get(i));
+				assertNotNull(hop, "no edge " + path.get(i - 1) + " -> " + path.get(i));
+				length += hop.weight;
+			}
+			return length;
+		}
+		
+		@Test
+		public void testBidirectionalSmall() {
+			Stop[] s = small();
+			ReverseGraph<Stop,Hop> reverse = ReverseGraph.of(s[0]);
+			assertEquals(bidirectionalShortestPath(s[0], s[3], reverse, null), Arrays.asList(s[0], s[2], s[1], s[3]));
+			assertEquals(bidirectionalShortestPath(s[3], s[2], reverse, null), Arrays.asList(s[3], s[4], s[0], s[2]));
+			assertEquals(bidirectionalShortestPath(s[1], s[1], reverse, null), Arrays.asList(s[1]));
+			assertEquals(bidirectionalShortestPath(s[0], s[5], reverse, null), new ArrayList<Stop>());
+			assertEquals(bidirectionalShortestPath(s[5], s[0], ReverseGraph.of(s[5]), null), new ArrayList<Stop>());
+		}
+		
+		/** Zero weights and ties give several minimal paths, so lengths are
+		 * compared rather than the paths themselves. */
+		@Test
+		public void testBidirectionalRandom() {
+			Random r = new Random(53);
+			for(int trial = 0; trial < 60; trial++) {
+				IntGraph g = TestGraphs.random(r, 30, trial % 3 == 0 ? 0 : 9);
+				Stop[] s = TestGraphs.stops(g);
+				int source = r.nextInt(s.length);
+				ReverseGraph<Stop,Hop> reverse = ReverseGraph.of(s[source]);
+				for(int t = 0; t < s.length; t++) {
+					List<Stop> path = bidirectionalShortestPath(s[source], s[t], reverse, null);
+					assertEquals(length(path), TestGraphs.distance(g, source, t), source + " to " + t);
+					if(!path.isEmpty()) {
+						assertSame(path.get(0), s[source]);
+						assertSame(path.get(path.size() - 1), s[t]);
+					}
+				}
+			}
+		}
+		
+		/** Corner to corner on a grid, one search settles nearly every node
+		 * while the two halves of a bidirectional one meet in the middle. */
+		@Test
+		public void testBidirectionalSettlesLess() {
+			IntGraph g = TestGraphs.grid(new Random(59), 30, 9);
+			Stop[] s = TestGraphs.stops(g);
+			Stop end = s[s.length - 1];
+			SearchStats one = new SearchStats();
+			SearchStats two = new SearchStats();
+			List<Stop> expected = shortestPath(s[0], end, IntPriorityHeap::new, one);
+			List<Stop> path = bidirectionalShortestPath(s[0], end, ReverseGraph.of(s[0]), two);
+			assertEquals(length(path), length(expected));
+			assertEquals(two.searches(), 1);
+			assertTrue(two.settled() > 0 && two.relaxed() > 0);
+			assertTrue(two.settled() < one.settled(), two.settled() + " settled, one-way " + one.settled());
+		}
+		
+		/** With the zero heuristic A* orders its frontier exactly as Dijkstra
+		 * does, so it finds the same paths with the same work. */
+		@Test
+		public void testAStarZeroHeuristic() {
+			Random r = new Random(61);
+			for(int trial = 0; trial < 40; trial++) {
+				Stop[] s = TestGraphs.stops(TestGraphs.random(r, 30, 9));
+				int source = r.nextInt(s.length);
+				for(Stop t : s) {
+					SearchStats dijkstra = new SearchStats();
+					SearchStats aStar = new SearchStats();
+					List<Stop> expected = shortestPath(s[source], t, IntPriorityHeap::new, dijkstra);
+					assertEquals(aStar(s[source], t, zeroHeuristic(), aStar), expected);
+					assertEquals(aStar.settled(), dijkstra.settled());
+					assertEquals(aStar.relaxed(), dijkstra.relaxed());
+				}
+			}
+		}
+		
+		/** The exact distance to the end is the most informed consistent
+		 * heuristic; nodes that cannot reach the end get one bound above
+		 * every distance, which keeps it consistent on their edges too. */
+		@Test
+		public void testAStarExactHeuristic() {
+			Random r = new Random(67);
+			for(int trial = 0; trial < 20; trial++) {
+				IntGraph g = TestGraphs.random(r, 30, 9);
+				Stop[] s = TestGraphs.stops(g);
+				int source = r.nextInt(s.length);
+				for(int t = 0; t < s.length; t++) {
+					HashMap<Stop, Integer> h = new HashMap<Stop, Integer>();
+					for(int v = 0; v < s.length; v++) {
+						int d = TestGraphs.distance(g, v, t);
+						h.put(s[v], d == TestGraphs.UNREACHABLE ? 1 << 20 : d);
+					}
+					SearchStats dijkstra = new SearchStats();
+					SearchStats aStar = new SearchStats();
+					List<Stop> path = aStar(s[source], s[t], h::get, aStar);
+					assertEquals(length(path), length(shortestPath(s[source], s[t], IntPriorityHeap::new, dijkstra)));
+					assertTrue(aStar.settled() <= dijkstra.settled());
+				}
+			}
+		}
+		
+		/** With -ea, an inconsistent heuristic fails on the edge it breaks;
+		 * without, the check costs nothing and the search still ends. */
+		@Test
+		public void testAStarInconsistentHeuristic() {
+			Stop[] s = small();
+			HashMap<Stop, Integer> h = new HashMap<Stop, Integer>();
+			for(Stop n : s) {
+				h.put(n, 0);
+			}
+			h.put(s[0], 4); //the true distance from a to d, so admissible, but more than 1 + h(c)
+			ToIntFunction<Stop> inconsistent = h::get;
+			if(GraphAlgorithms.class.desiredAssertionStatus()) {
+				AssertionError e = assertThrows(AssertionError.class, () -> {aStar(s[0], s[3], inconsistent);});
+				assertTrue(e.getMessage().contains("a -> c"), e.getMessage());
+				assertThrows(AssertionError.class, () -> {aStar(s[0], s[3], n -> 1);}); //h(end) != 0
+			} else {
+				assertFalse(aStar(s[0], s[3], inconsistent).isEmpty());
+			}
+		}
+	}
 }
@@ -0,0 +1,257 @@
+package a5;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import graph.LabeledEdge;
+import graph.Node;
+
+/** Writes graphs in the binary graph file format read by MappedGraph.
+ *
+ * A graph file is little-endian and laid out so that each section can be
+ * memory-mapped and read in place:
+ * <pre>
+ *   header   8 ints: MAGIC, VERSION, flags, nodeCount, edgeCount, 0, 0, 0
+ *   offsets  nodeCount+1 ints  (edges of u are offsets[u]..offsets[u+1]-1)
+ *   targets  edgeCount ints
+ *   weights  edgeCount ints
+ *   padding  to a multiple of 8 bytes
+ *   node ids nodeCount longs, only if flags has FLAG_NODE_IDS
+ * </pre>
+ * The optional node-id table maps each int id back to a caller-chosen long
+ * key, since the graph.Node objects themselves are not stored.
+ */
+public class GraphFile {
+	/** The first int of every graph file ("A5GR" in little-endian bytes). */
+	static final int MAGIC = 0x52473541;
+	/** The format version this code writes and reads. */
+	static final int VERSION = 1;
+	/** Set in the flags when the file has a node-id table. */
+	static final int FLAG_NODE_IDS = 1;
+	/** The size of the header in bytes. */
+	static final int HEADER_BYTES = 32;
+
+	private GraphFile() {
+	}
+
+	/**
+	 * Write everything reachable from root to file, numbering nodes as
+	 * CsrGraph.of(root) does.
+	 *
+	 * @param root    The node whose reachable graph is written
+	 * @param nodeIds Gives the key stored for each node in the node-id
+	 *                table; null to write no table
+	 * @param file    The file to create or replace
+	 */
+	public static <N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>>
+	void write(N root, ToLongFunction<? super N> nodeIds, Path file) throws IOException {
+		write(CsrGraph.of(root), nodeIds, file);
+	}
+
+	/**
+	 * Write a CSR snapshot to file.
+	 *
+	 * @param g       The graph to write
+	 * @param nodeIds Gives the key stored for each node in the node-id
+	 *                table; null to write no table
+	 * @param file    The file to create or replace
+	 */
+	public static <N> void write(CsrGraph<N> g, ToLongFunction<? super N> nodeIds, Path file) throws IOException {
+		long[] ids = null;
+		if(nodeIds != null) {
+			ids = new long[g.nodeCount()];
+			for(int u = 0; u < ids.length; u++) {
+				ids[u] = nodeIds.applyAsLong(g.node(u));
+			}
+		}
+		write(g, ids, file);
+	}
+
+	/**
+	 * Write any IntGraph to file. The edges are packed in node order, so the
+	 * offsets in the file need not match g.begin and g.end. The file is
+	 * replaced as BinaryFiles.write replaces files: atomically, and durably
+	 * once this returns.
+	 *
+	 * @param g       The graph to write
+	 * @param nodeIds The key to store for each node id in the node-id table;
+	 *                null to write no table
+	 * @param file    The file to create or replace
+	 * @throws IllegalArgumentException if nodeIds has the wrong length, or the
+	 *                                  edge ranges of g do not add up to
+	 *                                  g.edgeCount().
+	 */
+	public static void write(IntGraph g, long[] nodeIds, Path file) throws IOException {
+		int n = g.nodeCount();
+		int m = g.edgeCount();
+		if(nodeIds != null && nodeIds.length != n) {
+			throw new IllegalArgumentException("expected " + n + " node ids, got " + nodeIds.length);
+		}
+		long total = 0;
+		for(int u = 0; u < n; u++) {
+			total += g.end(u) - g.begin(u);
+		}
+		if(total != m) {
+			throw new IllegalArgumentException("edge ranges hold " + total + " edges, edgeCount is " + m);
+		}
+		BinaryFiles.write(file, out -> {
+			out.putInts(MAGIC, VERSION, nodeIds == null ? 0 : FLAG_NODE_IDS, n, m, 0, 0, 0);
+			int offset = 0; //where u's edges start once packed
+			for(int u = 0; u < n; u++) {
+				out.putInt(offset);
+				offset += g.end(u) - g.begin(u);
+			}
+			out.putInt(offset);
+			for(int u = 0; u < n; u++) {
+				for(int e = g.begin(u); e < g.end(u); e++) {
+					out.putInt(g.target(e));
+				}
+			}
+			for(int u = 0; u < n; u++) {
+				for(int e = g.begin(u); e < g.end(u); e++) {
+					out.putInt(g.weight(e));
+				}
+			}
+			if(nodeIds != null) {
+				if((weightsOffset(n, m) + 4L * m) % 8 != 0) {
+					out.putInt(0); //padding
+				}
+				for(long id : nodeIds) {
+					out.putLong(id);
+				}
+			}
+		});
+	}
+
+	/** Return the byte offset of the targets section. */
+	static long targetsOffset(int n) {
+		return HEADER_BYTES + 4L * (n + 1);
+	}
+
+	/** Return the byte offset of the weights section. */
+	static long weightsOffset(int n, int m) {
+		return targetsOffset(n) + 4L * m;
+	}
+
+	/** Return the byte offset of the node-id table, which is 8-byte aligned. */
+	static long idsOffset(int n, int m) {
+		long end = weightsOffset(n, m) + 4L * m;
+		return (end + 7) & ~7L;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for GraphFile and MappedGraph. */
+	public static class Tests {
+
+		/** Asserts that a and b have the same edges, in the same order, out of
+		 * every node. */
+		private static void assertSameEdges(IntGraph a, IntGraph b) {
+			assertEquals(a.nodeCount(), b.nodeCount());
+			assertEquals(a.edgeCount(), b.edgeCount());
+			for(int u = 0; u < a.nodeCount(); u++) {
+				assertEquals(a.end(u) - a.begin(u), b.end(u) - b.begin(u));
+				for(int i = 0; i < a.end(u) - a.begin(u); i++) {
+					assertEquals(a.target(a.begin(u) + i), b.target(b.begin(u) + i));
+					assertEquals(a.weight(a.begin(u) + i), b.weight(b.begin(u) + i));
+				}
+			}
+		}
+
+		@Test
+		public void testRoundTrip() throws IOException {
+			Path dir = Files.createTempDirectory("graph-file");
+			Path file = dir.resolve("g");
+			IntGraph g = TestGraphs.random(new Random(3), 50, 200, 9);
+			long[] ids = new long[50];
+			for(int u = 0; u < ids.length; u++) {
+				ids[u] = 1000L * u;
+			}
+			GraphFile.write(g, ids, file);
+			MappedGraph mapped = MappedGraph.open(file);
+			assertSameEdges(g, mapped);
+			assertTrue(mapped.hasNodeIds());
+			assertEquals(mapped.nodeId(7), 7000L);
+			Files.delete(file);
+			Files.delete(dir);
+		}
+
+		/** An IntGraph's edge ranges need not be packed from 0; the file must
+		 * be written packed anyway. */
+		@Test
+		public void testScatteredRoundTrip() throws IOException {
+			Path dir = Files.createTempDirectory("graph-file");
+			Path file = dir.resolve("g");
+			for(int seed = 0; seed < 10; seed++) {
+				IntGraph g = TestGraphs.random(new Random(seed), 40, 150, 20);
+				IntGraph scattered = TestGraphs.scattered(g);
+				assertEquals(scattered.begin(scattered.nodeCount() - 1), 2);
+				GraphFile.write(scattered, null, file);
+				MappedGraph mapped = MappedGraph.open(file);
+				assertSameEdges(scattered, mapped);
+				assertEquals(mapped.begin(0), 0);
+				assertEquals(mapped.end(39), 150);
+				for(int t = 0; t < 40; t++) {
+					assertArrayEquals(GraphAlgorithms.shortestPath(mapped, 0, t), GraphAlgorithms.shortestPath(g, 0, t));
+				}
+			}
+			Files.delete(file);
+			Files.delete(dir);
+		}
+
+		/** Returns g with weight(e) throwing, or edgeCount() off by one if miscount. */
+		private static IntGraph broken(IntGraph g, boolean miscount) {
+			return new IntGraph() {
+				@Override
+				public int nodeCount() {
+					return g.nodeCount();
+				}
+
+				@Override
+				public int edgeCount() {
+					return miscount ? g.edgeCount() + 1 : g.edgeCount();
+				}
+
+				@Override
+				public int begin(int u) {
+					return g.begin(u);
+				}
+
+				@Override
+				public int end(int u) {
+					return g.end(u);
+				}
+
+				@Override
+				public int target(int e) {
+					return g.target(e);
+				}
+
+				@Override
+				public int weight(int e) {
+					if(!miscount) {
+						throw new IllegalStateException("no weight for edge " + e);
+					}
+					return g.weight(e);
+				}
+			};
+		}
+
+		@Test
+		public void testFailedWrite() throws IOException {
+			Path dir = Files.createTempDirectory("graph-file");
+			Path file = dir.resolve("g");
+			IntGraph g = TestGraphs.random(new Random(5), 10, 30, 9);
+			assertThrows(IllegalStateException.class, () -> {GraphFile.write(broken(g, false), null, file);});
+			assertFalse(Files.exists(dir.resolve("g.tmp")));
+			assertThrows(IllegalArgumentException.class, () -> {GraphFile.write(broken(g, true), null, file);});
+			assertThrows(IllegalArgumentException.class, () -> {GraphFile.write(g, new long[3], file);});
+			assertFalse(Files.exists(file));
+			Files.delete(dir);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package a5;
+
+/** A read-only weighted graph whose nodes are numbered 0..nodeCount()-1.
+ *
+ * The edges out of node u are numbered begin(u)..end(u)-1, and edge e goes
+ * to node target(e) with weight weight(e). This is the shape of the
+ * compressed sparse row layout shared by CsrGraph (on the heap) and
+ * MappedGraph (memory-mapped from a file); the int-id searches in
+ * GraphAlgorithms run on either.
+ */
+public interface IntGraph {
+	/** Return the number of nodes. */
+	public int nodeCount();
+
+	/** Return the number of edges. */
+	public int edgeCount();
+
+	/** Return the first edge out of node u. */
+	public int begin(int u);
+
+	/** Return one past the last edge out of node u. */
+	public int end(int u);
+
+	/** Return the node edge e goes to. */
+	public int target(int e);
+
+	/** Return the weight of edge e. */
+	public int weight(int e);
+}
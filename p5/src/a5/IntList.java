@@ -0,0 +1,22 @@
+package a5;
+
+import java.util.Arrays;
+
+/** A growable list of ints, for the int-id algorithms in this package. */
+class IntList {
+	int[] items = new int[8];
+	int size;
+
+	void add(int i) {
+		if(size == items.length) {
+			items = Arrays.copyOf(items, size * 2);
+		}
+		items[size++] = i;
+	}
+
+	void addAll(IntList other) {
+		for(int k = 0; k < other.size; k++) {
+			add(other.items[k]);
+		}
+	}
+}
@@ -0,0 +1,522 @@
+package a5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import a4.IndexedIntHeap;
+
+/** Landmark distances for goal-directed A* search (ALT) over an IntGraph
+ * that has no coordinates.
+ *
+ * For a landmark L, the triangle inequality gives two lower bounds on the
+ * distance from v to t: d(L,t) - d(L,v) and d(v,L) - d(t,L). With the
+ * distances from and to each of k landmarks precomputed, the largest of
+ * these bounds is a consistent A* heuristic (on the nodes that can reach t,
+ * which are the only ones a path to t uses), and a query searches toward t
+ * instead of in every direction.
+ *
+ * Landmarks are chosen by farthest-point selection: the first is the node
+ * farthest from node 0, and each next one is the node farthest from its
+ * nearest landmark so far (nodes no landmark reaches come first). Choosing
+ * needs each landmark's forward Dijkstra before the next, so those run in
+ * turn; the Dijkstra to each landmark, over the reversed graph, is handed to
+ * the executor as soon as the landmark is chosen, so all of them run in
+ * parallel with the rest of the selection.
+ *
+ * The distances are kept in two int arrays of k entries per node, so the k
+ * bounds of a node are adjacent in memory; a graph of n nodes takes 8kn
+ * bytes, and save writes them to a file that load reads back for the same
+ * graph. As with ContractionHierarchy, queries may run on many threads at
+ * once.
+ */
+public final class Landmarks {
+	/** The distance reported when there is no path. */
+	public static final int UNREACHABLE = BatchShortestPaths.UNREACHABLE;
+
+	/** The first int of every landmark file ("A5LM" in little-endian bytes). */
+	static final int MAGIC = 0x4D4C3541;
+	/** The format version this code writes and reads. */
+	static final int VERSION = 1;
+	/** The size of the header in bytes. */
+	static final int HEADER_BYTES = 32;
+
+	private final IntGraph g;
+	private final int[] landmarks;
+	private final int[] from; //from[v*k + i] is the distance from landmark i to v, or UNREACHABLE
+	private final int[] to; //to[v*k + i] is the distance from v to landmark i, or UNREACHABLE
+	private final ConcurrentLinkedQueue<Query> queries = new ConcurrentLinkedQueue<Query>();
+
+	private Landmarks(IntGraph g, int[] landmarks, int[] from, int[] to) {
+		this.g = g;
+		this.landmarks = landmarks;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Return k landmarks for g with their distances, computed on executor.
+	 *
+	 * @param g        The graph; must not change while in use.
+	 * @param k        The number of landmarks; more give tighter bounds, at
+	 *                 8 bytes per node each.
+	 * @param executor Runs the Dijkstra searches to the landmarks.
+	 * @throws IllegalArgumentException if k is not in 1..g.nodeCount(), or k
+	 *                                  entries per node do not fit an array.
+	 * @throws InterruptedException if interrupted while waiting for the searches.
+	 */
+	public static Landmarks build(IntGraph g, int k, ExecutorService executor)
+			throws IllegalArgumentException, InterruptedException {
+		int n = g.nodeCount();
+		if(k < 1 || k > n) {
+			throw new IllegalArgumentException("landmark count " + k + " not in 1.." + n);
+		}
+		if((long) n * k > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException(k + " landmarks for " + n + " nodes do not fit an array");
+		}
+		int[] landmarks = new int[k];
+		int[] from = new int[n * k];
+		int[] to = new int[n * k];
+		IntGraph reverse = reverse(g);
+		List<Future<?>> searches = new ArrayList<Future<?>>(k);
+
+		int[] nearest = distances(g, 0); //from node 0 at first, then from the nearest landmark
+		for(int i = 0; i < k; i++) {
+			int l = farthest(nearest, i == 0);
+			landmarks[i] = l;
+			final int column = i;
+			searches.add(executor.submit(() -> scatter(distances(reverse, l), to, column, k)));
+
+			int[] d = distances(g, l);
+			scatter(d, from, i, k);
+			if(i == 0) {
+				nearest = d;
+				continue;
+			}
+			for(int v = 0; v < n; v++) {
+				if(d[v] != UNREACHABLE && (nearest[v] == UNREACHABLE || d[v] < nearest[v])) {
+					nearest[v] = d[v];
+				}
+			}
+		}
+		for(Future<?> f : searches) {
+			try {
+				f.get();
+			} catch(ExecutionException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if(cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
+		return new Landmarks(g, landmarks, from, to);
+	}
+
+	/** Return the number of nodes. */
+	public int nodeCount() {
+		return g.nodeCount();
+	}
+
+	/** Return the landmark node ids, in the order they were chosen. */
+	public int[] landmarks() {
+		return landmarks.clone();
+	}
+
+	/** Return the largest landmark lower bound on the distance from v to t. */
+	public int lowerBound(int v, int t) {
+		int k = landmarks.length;
+		return bound(v, from, to, t * k, t * k);
+	}
+
+	/** Return the length of a minimal path from s to t, or UNREACHABLE. */
+	public int distance(int s, int t) {
+		Query q = borrow();
+		try {
+			return q.search(s, t);
+		} finally {
+			queries.add(q);
+		}
+	}
+
+	/** Return the node ids of a minimal path from s to t, or an empty array
+	 * if there is none. */
+	public int[] shortestPath(int s, int t) {
+		Query q = borrow();
+		try {
+			if(q.search(s, t) == UNREACHABLE) {
+				return new int[0];
+			}
+			return GraphAlgorithms.path(q.parent, t);
+		} finally {
+			queries.add(q);
+		}
+	}
+
+	/**
+	 * Write the landmarks and their distances to file, replacing it
+	 * atomically and durably as BinaryFiles.write does.
+	 */
+	public void save(Path file) throws IOException {
+		BinaryFiles.write(file, out -> {
+			out.putInts(MAGIC, VERSION, g.nodeCount(), landmarks.length, 0, 0, 0, 0);
+			for(int[] a : new int[][] {landmarks, from, to}) {
+				out.putInts(a);
+			}
+		});
+	}
+
+	/**
+	 * Read landmarks written by save for the graph g.
+	 *
+	 * @throws IOException if the file cannot be read, is not a landmark file,
+	 *                     has an unsupported version, a header that build
+	 *                     could not have written, or landmarks that are not
+	 *                     nodes, is truncated or was built for a graph with a
+	 *                     different node count.
+	 */
+	public static Landmarks load(Path file, IntGraph g) throws IOException {
+		try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			IntBuffer ints = BinaryFiles.map(ch, file, MAGIC, VERSION, HEADER_BYTES, "landmark");
+			int n = ints.get(2);
+			int k = ints.get(3);
+			if(n < 1 || k < 1 || k > n || (long) n * k > Integer.MAX_VALUE - 8) {
+				throw new IOException(file + ": bad landmark file header: " + k + " landmarks for " + n + " nodes");
+			}
+			if(n != g.nodeCount()) {
+				throw new IOException(file + ": built for " + n + " nodes, graph has " + g.nodeCount());
+			}
+			long expected = HEADER_BYTES + 4L * (k + 2L * n * k);
+			if(ch.size() < expected) {
+				throw new IOException(file + ": truncated landmark file");
+			}
+			ints.position(HEADER_BYTES / 4);
+			int[] landmarks = BinaryFiles.read(ints, k);
+			for(int l : landmarks) {
+				if(l < 0 || l >= n) {
+					throw new IOException(file + ": landmark " + l + " is not a node");
+				}
+			}
+			return new Landmarks(g, landmarks, BinaryFiles.read(ints, n * k), BinaryFiles.read(ints, n * k));
+		}
+	}
+
+	/** Returns the bound on the distance from v to the target whose landmark
+	 * distances start at fromRow in targetFrom and toRow in targetTo. */
+	private int bound(int v, int[] targetFrom, int[] targetTo, int fromRow, int toRow) {
+		int k = landmarks.length;
+		int row = v * k;
+		int best = 0;
+		for(int i = 0; i < k; i++) {
+			int lv = from[row + i];
+			int lt = targetFrom[fromRow + i];
+			if(lv != UNREACHABLE && lt != UNREACHABLE && lt - lv > best) {
+				best = lt - lv;
+			}
+			int vl = to[row + i];
+			int tl = targetTo[toRow + i];
+			if(vl != UNREACHABLE && tl != UNREACHABLE && vl - tl > best) {
+				best = vl - tl;
+			}
+		}
+		return best;
+	}
+
+	/** Returns the node with the largest distance in nearest, treating
+	 * UNREACHABLE as farther than anything unless reachedOnly is set. */
+	private static int farthest(int[] nearest, boolean reachedOnly) {
+		int best = 0;
+		long bestDistance = -1;
+		for(int v = 0; v < nearest.length; v++) {
+			long d = nearest[v] == UNREACHABLE ? (reachedOnly ? -1 : Long.MAX_VALUE) : nearest[v];
+			if(d > bestDistance) {
+				best = v;
+				bestDistance = d;
+			}
+		}
+		return best;
+	}
+
+	/** Copies d into column i of the k-column array a. */
+	private static void scatter(int[] d, int[] a, int i, int k) {
+		for(int v = 0; v < d.length; v++) {
+			a[v * k + i] = d[v];
+		}
+	}
+
+	/** Returns the distance from source to every node of g, or UNREACHABLE. */
+	private static int[] distances(IntGraph g, int source) {
+		int n = g.nodeCount();
+		int[] distance = new int[n];
+		Arrays.fill(distance, UNREACHABLE);
+		boolean[] settled = new boolean[n];
+		IndexedIntHeap f = new IndexedIntHeap(n);
+		distance[source] = 0;
+		f.add(source, 0);
+		while(f.size() != 0) {
+			int from = f.poll(); //progress: from becomes settled
+			settled[from] = true;
+			for(int e = g.begin(from); e < g.end(from); e++) {
+				int to = g.target(e);
+				int d = distance[from] + g.weight(e);
+				if(settled[to] || (distance[to] != UNREACHABLE && d >= distance[to])) {
+					continue;
+				}
+				if(distance[to] == UNREACHABLE) {
+					f.add(to, d);
+				} else {
+					f.changePriority(to, d);
+				}
+				distance[to] = d;
+			}
+		}
+		return distance;
+	}
+
+	/** Returns g with every edge reversed, packed in CSR layout. */
+	private static IntGraph reverse(IntGraph g) {
+		int n = g.nodeCount();
+		int[] offsets = new int[n + 1];
+		for(int u = 0; u < n; u++) {
+			for(int e = g.begin(u); e < g.end(u); e++) {
+				offsets[g.target(e) + 1]++;
+			}
+		}
+		for(int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] next = Arrays.copyOf(offsets, n); //next free edge slot of each node
+		int[] targets = new int[offsets[n]];
+		int[] weights = new int[offsets[n]];
+		for(int u = 0; u < n; u++) {
+			for(int e = g.begin(u); e < g.end(u); e++) {
+				int slot = next[g.target(e)]++;
+				targets[slot] = u;
+				weights[slot] = g.weight(e);
+			}
+		}
+		return new Reversed(offsets, targets, weights);
+	}
+
+	/** The reversed graph reverse() packs: the edges into u of the original
+	 * are offsets[u]..offsets[u+1]-1. */
+	private static final class Reversed implements IntGraph {
+		private final int[] offsets;
+		private final int[] targets;
+		private final int[] weights;
+
+		Reversed(int[] offsets, int[] targets, int[] weights) {
+			this.offsets = offsets;
+			this.targets = targets;
+			this.weights = weights;
+		}
+
+		@Override
+		public int nodeCount() {
+			return offsets.length - 1;
+		}
+
+		@Override
+		public int edgeCount() {
+			return targets.length;
+		}
+
+		@Override
+		public int begin(int u) {
+			return offsets[u];
+		}
+
+		@Override
+		public int end(int u) {
+			return offsets[u + 1];
+		}
+
+		@Override
+		public int target(int e) {
+			return targets[e];
+		}
+
+		@Override
+		public int weight(int e) {
+			return weights[e];
+		}
+	}
+
+	/** Returns a free Query, creating one if none is free. */
+	private Query borrow() {
+		Query q = queries.poll();
+		return q != null ? q : new Query(g.nodeCount(), landmarks.length);
+	}
+
+	/** The reusable state of one A* search, stamped like
+	 * BatchShortestPaths.Scratch instead of cleared. */
+	private class Query {
+		private final int[] distance;
+		private final int[] parent;
+		private final int[] stamp; //query number that last reached each node
+		private final int[] targetFrom; //the target's landmark distances, copied out
+		private final int[] targetTo;
+		private final IndexedIntHeap f;
+		private int query;
+
+		Query(int n, int k) {
+			distance = new int[n];
+			parent = new int[n];
+			stamp = new int[n];
+			targetFrom = new int[k];
+			targetTo = new int[k];
+			f = new IndexedIntHeap(n);
+		}
+
+		/** Runs A* from s until t is settled; returns its distance or UNREACHABLE. */
+		int search(int s, int t) {
+			query++;
+			f.clear();
+			int k = landmarks.length;
+			System.arraycopy(from, t * k, targetFrom, 0, k);
+			System.arraycopy(to, t * k, targetTo, 0, k);
+
+			stamp[s] = query;
+			distance[s] = 0;
+			parent[s] = -1;
+			f.add(s, bound(s, targetFrom, targetTo, 0, 0));
+			while(f.size() != 0) {
+				int u = f.poll(); //progress: u becomes settled
+				if(u == t) {
+					return distance[t];
+				}
+				for(int e = g.begin(u); e < g.end(u); e++) {
+					int v = g.target(e);
+					int d = distance[u] + g.weight(e);
+					if(stamp[v] != query) {
+						stamp[v] = query;
+						distance[v] = d;
+						parent[v] = u;
+						f.add(v, d + bound(v, targetFrom, targetTo, 0, 0));
+					} else if(d < distance[v] && f.contains(v)) {
+						distance[v] = d;
+						parent[v] = u;
+						f.changePriority(v, d + bound(v, targetFrom, targetTo, 0, 0));
+					}
+				}
+			}
+			return UNREACHABLE;
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for Landmarks against GraphAlgorithms.shortestPath. */
+	public static class Tests {
+
+		/** Asserts that the queries of l match shortestPath on every pair of
+		 * g, and that its bounds are admissible, and consistent on every edge
+		 * into a node that can reach the target (a node that cannot may lack a
+		 * term; it never lies on a path to the target). */
+		private static void assertAllPairs(Landmarks l, IntGraph g) {
+			TestGraphs.assertAllPairs(g, l::distance, l::shortestPath);
+			int n = g.nodeCount();
+			int[] expected = new int[n];
+			for(int t = 0; t < n; t++) {
+				assertEquals(l.lowerBound(t, t), 0);
+				for(int s = 0; s < n; s++) {
+					expected[s] = TestGraphs.distance(g, s, t);
+					assertTrue(expected[s] == UNREACHABLE || l.lowerBound(s, t) <= expected[s],
+							"bound " + s + " to " + t + " too high");
+				}
+				for(int u = 0; u < n; u++) {
+					for(int e = g.begin(u); e < g.end(u); e++) {
+						int v = g.target(e);
+						assertTrue(expected[v] == UNREACHABLE || l.lowerBound(u, t) <= g.weight(e) + l.lowerBound(v, t),
+								"bound to " + t + " not consistent on " + u + "->" + v);
+					}
+				}
+			}
+		}
+
+		@Test
+		public void testQueries() throws InterruptedException {
+			ExecutorService executor = Executors.newFixedThreadPool(3);
+			try {
+				IntGraph tiny = TestGraphs.random(new Random(1), 3, 3, 5);
+				assertThrows(IllegalArgumentException.class, () -> {Landmarks.build(tiny, 0, executor);});
+				assertThrows(IllegalArgumentException.class, () -> {Landmarks.build(tiny, 4, executor);});
+				Random r = new Random(41);
+				for(int trial = 0; trial < 40; trial++) {
+					IntGraph g = TestGraphs.random(r, 50, 20);
+					int n = g.nodeCount();
+					int k = 1 + r.nextInt(Math.min(n, 4));
+					Landmarks l = Landmarks.build(g, k, executor);
+					assertEquals(l.landmarks().length, k);
+					assertAllPairs(l, g);
+					IntGraph scattered = TestGraphs.scattered(g);
+					assertAllPairs(Landmarks.build(scattered, k, executor), scattered);
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		/** Overwrites the int at index i of file, little-endian. */
+		private static void poke(Path file, int i, int value) throws IOException {
+			try(FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				ByteBuffer buf = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+				buf.flip();
+				ch.write(buf, 4L * i);
+			}
+		}
+
+		@Test
+		public void testSaveLoad() throws IOException, InterruptedException {
+			ExecutorService executor = Executors.newFixedThreadPool(3);
+			try {
+				IntGraph g = TestGraphs.random(new Random(43), 40, 120, 20);
+				Landmarks l = Landmarks.build(g, 3, executor);
+				Path dir = Files.createTempDirectory("landmarks");
+				Path file = dir.resolve("l");
+				l.save(file);
+				Landmarks loaded = Landmarks.load(file, g);
+				assertArrayEquals(loaded.landmarks(), l.landmarks());
+				for(int v = 0; v < 40; v++) {
+					for(int t = 0; t < 40; t++) {
+						assertEquals(loaded.lowerBound(v, t), l.lowerBound(v, t));
+					}
+				}
+				assertAllPairs(loaded, g);
+				assertThrows(IOException.class, () -> {Landmarks.load(file, TestGraphs.random(new Random(1), 39, 10, 5));});
+
+				byte[] saved = Files.readAllBytes(file);
+				int[][] headers = {{2, -1}, {3, 0}, {3, 41}, {3, 1 << 27}, {8, 40}};
+				for(int[] h : headers) {
+					Files.write(file, saved);
+					poke(file, h[0], h[1]); //n at 2, k at 3, the first landmark at 8
+					assertThrows(IOException.class, () -> {Landmarks.load(file, g);}, "int " + h[0] + " = " + h[1]);
+				}
+				Files.write(file, Arrays.copyOf(saved, saved.length - 4));
+				assertThrows(IOException.class, () -> {Landmarks.load(file, g);});
+				Files.delete(file);
+				Files.delete(dir);
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+}
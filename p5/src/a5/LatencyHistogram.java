@@ -0,0 +1,177 @@
+package a5;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A histogram of nonnegative long values, such as latencies in
+ * nanoseconds, with bounded relative error.
+ *
+ * As in HdrHistogram, values are counted in buckets whose width grows with
+ * the value: each power of two is split into 16 equal buckets, so a reported
+ * percentile is at most 1/16 (about 6%) above the true one, and any long
+ * fits in under a thousand counters. Recording is one array increment and
+ * never allocates. A histogram is thread-safe; readers running at the same
+ * time as recorders see a recent but not necessarily consistent view.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BITS = 4;
+	private static final int SUB = 1 << SUB_BITS; //buckets per power of two
+
+	private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/** Count one occurrence of value; negative values count as 0. */
+	public void record(long value) {
+		if(value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(index(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long m = max.get();
+		while(value > m && !max.compareAndSet(m, value)) {
+			m = max.get();
+		}
+	}
+
+	/** Return the number of values recorded. */
+	public long count() {
+		return count.get();
+	}
+
+	/** Return the largest value recorded, or 0 if there are none. */
+	public long max() {
+		return max.get();
+	}
+
+	/** Return the mean of the values recorded, or 0 if there are none. */
+	public double mean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Return a value that at least p percent of the recorded values are no
+	 * larger than, overestimating by at most 1/16; 0 if there are none.
+	 *
+	 * @throws IllegalArgumentException if p is not in [0, 100].
+	 */
+	public long percentile(double p) throws IllegalArgumentException {
+		if(!(p >= 0 && p <= 100)) {
+			throw new IllegalArgumentException("percentile out of range: " + p);
+		}
+		long n = count.get();
+		if(n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(p / 100 * n));
+		long seen = 0;
+		for(int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if(seen >= rank) {
+				return Math.min(highest(i), max.get());
+			}
+		}
+		return max.get(); //recorders raced ahead of count
+	}
+
+	/** Remove every recorded value. */
+	public void reset() {
+		for(int i = 0; i < counts.length(); i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count() + " mean=" + (long) mean() + " p50=" + percentile(50)
+				+ " p99=" + percentile(99) + " max=" + max();
+	}
+
+	/** Returns the bucket that counts value. */
+	private static int index(long value) {
+		if(value < SUB) {
+			return (int) value;
+		}
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS - 1; //value >> shift is in [SUB, 2*SUB)
+		return shift * SUB + (int) (value >> shift);
+	}
+
+	/** Returns the largest value counted by bucket i. */
+	private static long highest(int i) {
+		if(i < SUB) {
+			return i;
+		}
+		int shift = i / SUB - 1;
+		long top = i % SUB + SUB;
+		return ((top + 1) << shift) - 1;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for the bucket math and percentiles of LatencyHistogram. */
+	public static class Tests {
+
+		/** The buckets tile the longs: each starts one past the end of the
+		 * one before, and the last ends at Long.MAX_VALUE. */
+		@Test
+		public void testBuckets() {
+			int last = index(Long.MAX_VALUE);
+			assertEquals(highest(last), Long.MAX_VALUE);
+			assertTrue(last < (64 - SUB_BITS + 1) * SUB);
+			for(int i = 0; i < last; i++) {
+				assertEquals(index(highest(i)), i, "bucket " + i);
+				assertEquals(index(highest(i) + 1), i + 1, "bucket " + i);
+			}
+			for(long v = 0; v <= SUB; v++) {
+				assertEquals(highest(index(v)), v); //small values are exact
+			}
+			Random r = new Random(127);
+			for(int k = 0; k < 100000; k++) {
+				long v = (r.nextLong() >>> 1) >> r.nextInt(63); //nonnegative, of every magnitude
+				long top = highest(index(v));
+				assertTrue(top >= v && top - v <= v / SUB, v + " counted up to " + top);
+			}
+		}
+
+		@Test
+		public void testPercentiles() {
+			LatencyHistogram h = new LatencyHistogram();
+			assertEquals(h.percentile(50), 0);
+			assertThrows(IllegalArgumentException.class, () -> {h.percentile(-1);});
+			assertThrows(IllegalArgumentException.class, () -> {h.percentile(100.5);});
+			assertThrows(IllegalArgumentException.class, () -> {h.percentile(Double.NaN);});
+
+			Random r = new Random(131);
+			long[] values = new long[10000];
+			for(int i = 0; i < values.length; i++) {
+				values[i] = (long) Math.exp(r.nextDouble() * 30); //spread over many powers of two
+				h.record(values[i]);
+			}
+			Arrays.sort(values);
+			assertEquals(h.count(), values.length);
+			assertEquals(h.max(), values[values.length - 1]);
+			assertEquals(h.percentile(100), h.max());
+			for(double p : new double[] {0, 1, 25, 50, 90, 99, 99.9}) {
+				long exact = values[(int) Math.max(0, Math.ceil(p / 100 * values.length) - 1)];
+				long reported = h.percentile(p);
+				assertTrue(reported >= exact && reported - exact <= exact / SUB, "p" + p + ": " + reported + " for " + exact);
+			}
+
+			h.reset();
+			h.record(-5);
+			h.record(Long.MAX_VALUE);
+			assertEquals(h.percentile(50), 0); //negative values count as 0
+			assertEquals(h.percentile(100), Long.MAX_VALUE);
+			assertEquals(h.count(), 2);
+		}
+	}
+}
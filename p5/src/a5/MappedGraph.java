@@ -0,0 +1,130 @@
+package a5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** A graph read in place from a memory-mapped graph file (see GraphFile).
+ *
+ * Opening a file only reads its header and maps its sections, so it takes
+ * about the same time for any size of graph, and the graph lives in the
+ * page cache instead of the Java heap. Each section is mapped separately,
+ * so every section (not the whole file) must be under 2GB: up to about 500
+ * million edges.
+ */
+public final class MappedGraph implements IntGraph {
+	private final int nodeCount;
+	private final int edgeCount;
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final IntBuffer weights;
+	private final LongBuffer nodeIds; //null if the file has no node-id table
+
+	private MappedGraph(int nodeCount, int edgeCount, IntBuffer offsets, IntBuffer targets,
+			IntBuffer weights, LongBuffer nodeIds) {
+		this.nodeCount = nodeCount;
+		this.edgeCount = edgeCount;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.nodeIds = nodeIds;
+	}
+
+	/**
+	 * Map the graph file at file. The mapping stays valid after this returns;
+	 * it is released when the MappedGraph is garbage collected.
+	 *
+	 * @throws IOException if the file cannot be read, is not a graph file, has
+	 *                     an unsupported version or is truncated.
+	 */
+	public static MappedGraph open(Path file) throws IOException {
+		try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			if(ch.size() < GraphFile.HEADER_BYTES) {
+				throw new IOException(file + ": too short for a graph file");
+			}
+			ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, GraphFile.HEADER_BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if(header.getInt(0) != GraphFile.MAGIC) {
+				throw new IOException(file + ": not a graph file");
+			}
+			if(header.getInt(4) != GraphFile.VERSION) {
+				throw new IOException(file + ": unsupported graph file version " + header.getInt(4));
+			}
+			boolean hasIds = (header.getInt(8) & GraphFile.FLAG_NODE_IDS) != 0;
+			int n = header.getInt(12);
+			int m = header.getInt(16);
+			long expected = hasIds ? GraphFile.idsOffset(n, m) + 8L * n : GraphFile.weightsOffset(n, m) + 4L * m;
+			if(n < 0 || m < 0 || ch.size() < expected) {
+				throw new IOException(file + ": truncated graph file");
+			}
+
+			IntBuffer offsets = map(ch, GraphFile.HEADER_BYTES, 4L * (n + 1)).asIntBuffer();
+			IntBuffer targets = map(ch, GraphFile.targetsOffset(n), 4L * m).asIntBuffer();
+			IntBuffer weights = map(ch, GraphFile.weightsOffset(n, m), 4L * m).asIntBuffer();
+			LongBuffer ids = hasIds ? map(ch, GraphFile.idsOffset(n, m), 8L * n).asLongBuffer() : null;
+			return new MappedGraph(n, m, offsets, targets, weights, ids);
+		}
+	}
+
+	/** Maps size bytes of ch starting at position, read-only and little-endian. */
+	private static ByteBuffer map(FileChannel ch, long position, long size) throws IOException {
+		return ch.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	@Override
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public int begin(int u) {
+		return offsets.get(u);
+	}
+
+	@Override
+	public int end(int u) {
+		return offsets.get(u + 1);
+	}
+
+	@Override
+	public int target(int e) {
+		return targets.get(e);
+	}
+
+	@Override
+	public int weight(int e) {
+		return weights.get(e);
+	}
+
+	/** Return true if the file has a node-id table. */
+	public boolean hasNodeIds() {
+		return nodeIds != null;
+	}
+
+	/**
+	 * Return the key the node-id table stores for node u.
+	 *
+	 * @throws IllegalStateException if the file has no node-id table.
+	 */
+	public long nodeId(int u) throws IllegalStateException {
+		if(nodeIds == null) {
+			throw new IllegalStateException("graph file has no node-id table");
+		}
+		return nodeIds.get(u);
+	}
+
+	@Override
+	public String toString() {
+		return "MappedGraph[nodes=" + nodeCount + ", edges=" + edgeCount + "]";
+	}
+}
@@ -0,0 +1,281 @@
+package a5;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import graph.LabeledEdge;
+import graph.Node;
+
+/** A least-recently-used cache of GraphAlgorithms.shortestPath results keyed
+ * by (start, end).
+ *
+ * The cache is bounded both by its number of entries and by the total number
+ * of nodes in the cached paths, which is what dominates its memory use. When
+ * either bound is exceeded the least recently used entries are evicted.
+ *
+ * The cache cannot see changes to the graph: call invalidateAll() after any
+ * change, since a changed edge can make any cached path stale (or create a
+ * shorter path that avoids every cached one).
+ *
+ * All methods are thread-safe. Searches run outside the cache's lock, so a
+ * miss does not block hits on other pairs; two threads missing on the same
+ * pair may both search. A search's result is cached only if no invalidation
+ * of any kind happened while it ran, since it may have read the graph from
+ * before the change.
+ */
+public class PathCache<N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>> {
+	private final int maxEntries;
+	private final long maxNodes;
+	private final LinkedHashMap<Key<N>, List<N>> entries =
+			new LinkedHashMap<Key<N>, List<N>>(16, 0.75f, true); //access order, eldest first
+	private long nodes; //total size of the cached paths
+	private long generation; //incremented by every invalidation, so stale searches are not cached
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/** Constructor creates an empty cache.
+	 *
+	 * @param maxEntries The most (start, end) pairs to keep; must be positive.
+	 * @param maxNodes   The most nodes to keep over all cached paths (each
+	 *                   entry counts as at least one); must be positive.
+	 * @throws IllegalArgumentException if a bound is not positive.
+	 */
+	public PathCache(int maxEntries, long maxNodes) throws IllegalArgumentException {
+		if(maxEntries <= 0 || maxNodes <= 0) {
+			throw new IllegalArgumentException("bounds must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Return a minimal path from start to end, as GraphAlgorithms.shortestPath
+	 * would, searching only if the pair is not cached. The returned list is
+	 * shared with the cache and cannot be modified.
+	 */
+	public List<N> shortestPath(N start, N end) {
+		Key<N> key = new Key<N>(start, end);
+		long searchedAt;
+		synchronized(this) {
+			List<N> path = entries.get(key);
+			if(path != null) {
+				hits++;
+				return path;
+			}
+			misses++;
+			searchedAt = generation;
+		}
+
+		List<N> path = Collections.unmodifiableList(GraphAlgorithms.shortestPath(start, end));
+
+		synchronized(this) {
+			if(searchedAt == generation) {
+				List<N> old = entries.put(key, path);
+				if(old != null) {
+					nodes -= weight(old);
+				}
+				nodes += weight(path);
+				evict();
+			}
+		}
+		return path;
+	}
+
+	/** Remove the cached path from start to end, if any. Searches already
+	 * running when this is called do not cache their results. */
+	public synchronized void invalidate(N start, N end) {
+		List<N> old = entries.remove(new Key<N>(start, end));
+		if(old != null) {
+			nodes -= weight(old);
+		}
+		generation++;
+	}
+
+	/** Remove every cached path. Call this whenever the graph changes. */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		nodes = 0;
+		generation++;
+	}
+
+	/** Return the number of cached (start, end) pairs. */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/** Return the total number of nodes in the cached paths. */
+	public synchronized long nodes() {
+		return nodes;
+	}
+
+	/** Return the number of lookups answered from the cache. */
+	public synchronized long hits() {
+		return hits;
+	}
+
+	/** Return the number of lookups that had to search. */
+	public synchronized long misses() {
+		return misses;
+	}
+
+	/** Return the number of entries evicted to respect the bounds. */
+	public synchronized long evictions() {
+		return evictions;
+	}
+
+	/** Evicts least recently used entries until both bounds hold. */
+	private void evict() {
+		Iterator<Map.Entry<Key<N>, List<N>>> it = entries.entrySet().iterator();
+		while((entries.size() > maxEntries || nodes > maxNodes) && it.hasNext()) {
+			nodes -= weight(it.next().getValue());
+			it.remove();
+			evictions++;
+		}
+	}
+
+	/** Returns how much a cached path counts against maxNodes. */
+	private static long weight(List<?> path) {
+		return Math.max(path.size(), 1);
+	}
+
+	/** A (start, end) pair. */
+	private static final class Key<N> {
+		final N start;
+		final N end;
+
+		Key(N start, N end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key)) {
+				return false;
+			}
+			Key<?> k = (Key<?>) o;
+			return start.equals(k.start) && end.equals(k.end);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * start.hashCode() + end.hashCode();
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for PathCache. */
+	public static class Tests {
+
+		/** A node whose outgoing() runs a hook the first time the search
+		 * expands it, to act in the middle of a search. */
+		static class Stop implements Node<Stop,Hop> {
+			final String name;
+			final Map<Stop,Hop> out = new LinkedHashMap<Stop,Hop>();
+			Runnable onExpand;
+
+			Stop(String name) {
+				this.name = name;
+			}
+
+			void link(Stop to, int weight) {
+				out.put(to, new Hop(this, to, weight));
+			}
+
+			@Override
+			public Map<Stop,? extends Hop> outgoing() {
+				Runnable r = onExpand;
+				onExpand = null;
+				if(r != null) {
+					r.run();
+				}
+				return out;
+			}
+
+			@Override
+			public String toString() {
+				return name;
+			}
+		}
+
+		static class Hop implements LabeledEdge<Stop,Hop,Integer> {
+			final Stop source;
+			final Stop target;
+			final Integer weight;
+
+			Hop(Stop source, Stop target, int weight) {
+				this.source = source;
+				this.target = target;
+				this.weight = weight;
+			}
+
+			@Override
+			public Stop source() {
+				return source;
+			}
+
+			@Override
+			public Stop target() {
+				return target;
+			}
+
+			@Override
+			public Integer label() {
+				return weight;
+			}
+		}
+
+		@Test
+		public void testHitsAndEviction() {
+			Stop a = new Stop("a");
+			Stop b = new Stop("b");
+			Stop c = new Stop("c");
+			a.link(b, 1);
+			b.link(c, 1);
+			PathCache<Stop,Hop> cache = new PathCache<Stop,Hop>(2, 100);
+			assertThrows(IllegalArgumentException.class, () -> {new PathCache<Stop,Hop>(0, 1);});
+			assertEquals(cache.shortestPath(a, c), java.util.Arrays.asList(a, b, c));
+			assertSame(cache.shortestPath(a, c), cache.shortestPath(a, c));
+			assertEquals(cache.hits(), 2);
+			assertEquals(cache.misses(), 1);
+			cache.shortestPath(b, c);
+			cache.shortestPath(a, b);
+			assertEquals(cache.size(), 2);
+			assertEquals(cache.evictions(), 1);
+			assertEquals(cache.nodes(), 4);
+			cache.invalidate(a, b);
+			assertEquals(cache.size(), 1);
+			cache.invalidateAll();
+			assertEquals(cache.size(), 0);
+			assertEquals(cache.nodes(), 0);
+		}
+
+		/** A miss whose search overlaps invalidate(start, end) must not put its
+		 * possibly stale path back afterwards. */
+		@Test
+		public void testInvalidateDuringSearch() {
+			Stop a = new Stop("a");
+			Stop b = new Stop("b");
+			Stop c = new Stop("c");
+			a.link(b, 1);
+			b.link(c, 1);
+			a.link(c, 5);
+			PathCache<Stop,Hop> cache = new PathCache<Stop,Hop>(10, 100);
+			b.onExpand = () -> {
+				a.out.remove(b); //the graph changes while the search is at b
+				cache.invalidate(a, c);
+			};
+			assertEquals(cache.shortestPath(a, c), java.util.Arrays.asList(a, b, c));
+			assertEquals(cache.size(), 0);
+			assertEquals(cache.shortestPath(a, c), java.util.Arrays.asList(a, c));
+			assertEquals(cache.size(), 1);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package a5;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import graph.Edge;
+import graph.Node;
+
+/** The incoming edges of a graph, which graph.Node only exposes in the
+ * outgoing direction.
+ *
+ * A reverse graph is built by walking everything reachable from a root, so
+ * it covers exactly the part of the graph a search from that root can
+ * touch. It is a snapshot: build a new one after the graph changes.
+ */
+public class ReverseGraph<N extends Node<N,E>, E extends Edge<N,E>> {
+	private final HashMap<N, Map<N, E>> incoming = new HashMap<N, Map<N, E>>();
+
+	private ReverseGraph() {
+	}
+
+	/** Return the reverse of the part of the graph reachable from root. */
+	public static <N extends Node<N,E>, E extends Edge<N,E>>
+	ReverseGraph<N,E> of(N root) {
+		ReverseGraph<N,E> r = new ReverseGraph<N,E>();
+		ArrayDeque<N> worklist = new ArrayDeque<N>();
+		r.incoming.put(root, new HashMap<N, E>());
+		worklist.push(root);
+		while(!worklist.isEmpty()) {
+			N n = worklist.pop();
+			for(Map.Entry<N, ? extends E> edge : n.outgoing().entrySet()) {
+				N to = edge.getKey();
+				Map<N, E> in = r.incoming.get(to);
+				if(in == null) {
+					in = new HashMap<N, E>();
+					r.incoming.put(to, in);
+					worklist.push(to);
+				}
+				in.put(n, edge.getValue());
+			}
+		}
+		for(Map.Entry<N, Map<N, E>> in : r.incoming.entrySet()) {
+			in.setValue(Collections.unmodifiableMap(in.getValue()));
+		}
+		return r;
+	}
+
+	/** Return true if n is in the part of the graph this reverse covers. */
+	public boolean covers(N n) {
+		return incoming.containsKey(n);
+	}
+
+	/** Return the edges into n, keyed by their source; empty if there are
+	 * none or n is not covered. */
+	public Map<N, E> incoming(N n) {
+		Map<N, E> in = incoming.get(n);
+		return in == null ? Collections.<N, E>emptyMap() : in;
+	}
+}
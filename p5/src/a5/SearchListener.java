@@ -0,0 +1,19 @@
+package a5;
+
+/** Receives the numbers of every search counted by a SearchStats it is
+ * added to, for example to export them to a metrics system.
+ *
+ * Listeners run on the searching thread right after each search, so they
+ * should be quick.
+ */
+public interface SearchListener {
+	/**
+	 * Called when a search finishes.
+	 *
+	 * @param settled      The nodes this search settled
+	 * @param relaxed      The edges this search examined
+	 * @param peakFrontier The most nodes its frontier held at once
+	 * @param nanos        How long it took, in nanoseconds
+	 */
+	void searchFinished(long settled, long relaxed, int peakFrontier, long nanos);
+}
@@ -0,0 +1,238 @@
+package a5;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import a4.IntPriorityHeap;
+import a5.PathCache.Tests.Stop;
+
+/** Counters describing the work done by one or more graph searches.
+ *
+ * Pass an instance to a GraphAlgorithms search to have it counted; the same
+ * instance can be passed to several searches to accumulate their totals.
+ * Besides the work counters it keeps the largest frontier seen, a latency
+ * histogram, and a list of SearchListeners told about each search.
+ *
+ * Searches given a null SearchStats do none of this, so instrumentation
+ * costs nothing unless it is asked for. Counting is not synchronized: use
+ * one instance per searching thread. Other threads, such as a JMX client
+ * after register(), may read slightly stale totals.
+ */
+public class SearchStats implements SearchStatsMXBean {
+	long settled;
+	long relaxed;
+	private long searches;
+	private int peakFrontier;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final CopyOnWriteArrayList<SearchListener> listeners = new CopyOnWriteArrayList<SearchListener>();
+
+	//the search in progress
+	private long startNanos;
+	private long startSettled;
+	private long startRelaxed;
+	private int searchPeak;
+
+	/** Return the number of nodes removed from a frontier with their final
+	 * distance. A bidirectional search counts both directions. */
+	public long settled() {
+		return settled;
+	}
+
+	/** Return the number of edges examined from settled nodes. */
+	public long relaxed() {
+		return relaxed;
+	}
+
+	/** Return the number of searches counted. */
+	public long searches() {
+		return searches;
+	}
+
+	/** Return the most nodes any counted search held in its frontier at
+	 * once; a bidirectional search counts both frontiers. */
+	public int peakFrontier() {
+		return peakFrontier;
+	}
+
+	/** Return the histogram of search times in nanoseconds. */
+	public LatencyHistogram latency() {
+		return latency;
+	}
+
+	/** Have l told about every search counted from now on. */
+	public void addListener(SearchListener l) {
+		listeners.add(l);
+	}
+
+	/** Stop telling l about searches. */
+	public void removeListener(SearchListener l) {
+		listeners.remove(l);
+	}
+
+	/** Set every counter back to zero. */
+	@Override
+	public void reset() {
+		settled = 0;
+		relaxed = 0;
+		searches = 0;
+		peakFrontier = 0;
+		latency.reset();
+	}
+
+	/**
+	 * Register this with the platform MBean server under name, e.g.
+	 * "a5:type=SearchStats,name=routing", and return the name.
+	 *
+	 * @throws JMException if name is malformed or already registered.
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName on = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+		return on;
+	}
+
+	/** Marks the start of a search. */
+	void begin() {
+		startNanos = System.nanoTime();
+		startSettled = settled;
+		startRelaxed = relaxed;
+		searchPeak = 0;
+	}
+
+	/** Notes that the search in progress has size nodes in its frontier. */
+	void frontier(int size) {
+		if(size > searchPeak) {
+			searchPeak = size;
+		}
+	}
+
+	/** Marks the end of the search in progress and tells the listeners. */
+	void end() {
+		long nanos = System.nanoTime() - startNanos;
+		searches++;
+		latency.record(nanos);
+		if(searchPeak > peakFrontier) {
+			peakFrontier = searchPeak;
+		}
+		for(SearchListener l : listeners) {
+			l.searchFinished(settled - startSettled, relaxed - startRelaxed, searchPeak, nanos);
+		}
+	}
+
+	@Override
+	public long getSearches() {
+		return searches;
+	}
+
+	@Override
+	public long getSettled() {
+		return settled;
+	}
+
+	@Override
+	public long getRelaxed() {
+		return relaxed;
+	}
+
+	@Override
+	public int getPeakFrontier() {
+		return peakFrontier;
+	}
+
+	@Override
+	public double getMeanMicros() {
+		return latency.mean() / 1000;
+	}
+
+	@Override
+	public double getP50Micros() {
+		return latency.percentile(50) / 1000.0;
+	}
+
+	@Override
+	public double getP99Micros() {
+		return latency.percentile(99) / 1000.0;
+	}
+
+	@Override
+	public double getMaxMicros() {
+		return latency.max() / 1000.0;
+	}
+
+	@Override
+	public String toString() {
+		return "settled=" + settled + " relaxed=" + relaxed;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for SearchStats and the listeners it tells about searches. */
+	public static class Tests {
+
+		/** Two searches counted by one SearchStats report to its listeners
+		 * what each counts on its own, while the totals add up. */
+		@Test
+		public void testPerSearchDeltas() {
+			Stop[] s = TestGraphs.stops(TestGraphs.grid(new Random(137), 12, 9));
+			SearchStats first = new SearchStats();
+			SearchStats second = new SearchStats();
+			GraphAlgorithms.shortestPath(s[0], s[143], IntPriorityHeap::new, first);
+			GraphAlgorithms.shortestPath(s[5], s[60], IntPriorityHeap::new, second);
+
+			SearchStats both = new SearchStats();
+			ArrayList<long[]> heard = new ArrayList<long[]>();
+			SearchListener l = (settled, relaxed, peak, nanos) -> heard.add(new long[] {settled, relaxed, peak, nanos});
+			both.addListener(l);
+			GraphAlgorithms.shortestPath(s[0], s[143], IntPriorityHeap::new, both);
+			GraphAlgorithms.shortestPath(s[5], s[60], IntPriorityHeap::new, both);
+			assertEquals(heard.size(), 2);
+			SearchStats[] alone = {first, second};
+			for(int i = 0; i < 2; i++) {
+				assertEquals(heard.get(i)[0], alone[i].settled());
+				assertEquals(heard.get(i)[1], alone[i].relaxed());
+				assertEquals(heard.get(i)[2], alone[i].peakFrontier());
+				assertTrue(heard.get(i)[3] >= 0);
+			}
+			assertEquals(both.searches(), 2);
+			assertEquals(both.settled(), first.settled() + second.settled());
+			assertEquals(both.relaxed(), first.relaxed() + second.relaxed());
+			assertEquals(both.peakFrontier(), Math.max(first.peakFrontier(), second.peakFrontier()));
+			assertEquals(both.latency().count(), 2);
+
+			both.removeListener(l);
+			GraphAlgorithms.shortestPath(s[0], s[1], IntPriorityHeap::new, both);
+			assertEquals(heard.size(), 2);
+			assertEquals(both.searches(), 3);
+			both.reset();
+			assertEquals(both.searches(), 0);
+			assertEquals(both.settled(), 0);
+			assertEquals(both.relaxed(), 0);
+			assertEquals(both.peakFrontier(), 0);
+			assertEquals(both.latency().count(), 0);
+		}
+
+		/** Every listener hears every search, in the order they were added. */
+		@Test
+		public void testListeners() {
+			SearchStats stats = new SearchStats();
+			StringBuilder heard = new StringBuilder();
+			stats.addListener((settled, relaxed, peak, nanos) -> heard.append("a" + settled));
+			stats.addListener((settled, relaxed, peak, nanos) -> heard.append("b" + settled));
+			stats.begin();
+			stats.settled += 3;
+			stats.frontier(4);
+			stats.frontier(2);
+			stats.end();
+			stats.begin();
+			stats.end();
+			assertEquals(heard.toString(), "a3b3a0b0");
+			assertEquals(stats.peakFrontier(), 4);
+		}
+	}
+}
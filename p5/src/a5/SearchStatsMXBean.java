@@ -0,0 +1,23 @@
+package a5;
+
+/** The management interface of SearchStats, for monitoring it over JMX.
+ * Times are in microseconds. */
+public interface SearchStatsMXBean {
+	long getSearches();
+
+	long getSettled();
+
+	long getRelaxed();
+
+	int getPeakFrontier();
+
+	double getMeanMicros();
+
+	double getP50Micros();
+
+	double getP99Micros();
+
+	double getMaxMicros();
+
+	void reset();
+}
@@ -0,0 +1,119 @@
+package a5;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import a4.IntPriorityHeap;
+import a5.PathCache.Tests.Stop;
+import graph.LabeledEdge;
+import graph.Node;
+
+/** Returns the nodes reachable from a start node in the order Dijkstra's
+ * algorithm settles them, so by nondecreasing distance from start.
+ *
+ * The edges out of a node are relaxed only when the iterator is asked for
+ * the node after it, so a consumer that stops at the first match does no
+ * more work than a search that stops there.
+ */
+class SettleIterator<N extends Node<N,E>, E extends LabeledEdge<N,E,Integer>> implements Iterator<N> {
+	private final IntPriorityHeap<N> f = new IntPriorityHeap<N>();
+	private final HashMap<N, Integer> distance = new HashMap<N, Integer>(); //frontier and settled nodes
+	private N last; //settled but its edges not yet relaxed, or null
+	private int lastDistance;
+
+	SettleIterator(N start) {
+		f.add(start, 0);
+		distance.put(start, 0);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(last != null) {
+			for(Map.Entry<N, ? extends E> edge : last.outgoing().entrySet()) {
+				N to = edge.getKey();
+				int d = lastDistance + edge.getValue().label();
+				Integer old = distance.get(to);
+				if(old == null) {
+					distance.put(to, d);
+					f.add(to, d);
+				} else if(d < old && f.contains(to)) {
+					distance.put(to, d);
+					f.changePriority(to, d);
+				}
+			}
+			last = null;
+		}
+		return f.size() != 0;
+	}
+
+	@Override
+	public N next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		lastDistance = f.peekPriority();
+		last = f.poll(); //progress: last becomes settled
+		return last;
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for settleOrder and settleStream against shortestPathTree. */
+	public static class Tests {
+
+		@Test
+		public void testOrder() {
+			Random r = new Random(109);
+			for(int trial = 0; trial < 40; trial++) {
+				Stop[] s = TestGraphs.stops(TestGraphs.random(r, 30, 9));
+				Stop start = s[r.nextInt(s.length)];
+				ShortestPathTree<Stop> tree = GraphAlgorithms.shortestPathTree(start);
+				Iterator<Stop> it = GraphAlgorithms.settleOrder(start);
+				java.util.HashSet<Stop> seen = new java.util.HashSet<Stop>();
+				int last = 0;
+				while(it.hasNext()) {
+					Stop n = it.next();
+					assertTrue(seen.add(n), n + " twice");
+					int d = tree.distanceTo(n);
+					assertTrue(d >= last, n + " at " + d + " after " + last);
+					last = d;
+				}
+				assertEquals(seen, tree.nodes());
+				assertThrows(NoSuchElementException.class, () -> {it.next();});
+				assertSame(GraphAlgorithms.settleStream(start).findFirst().get(), start);
+				assertEquals(GraphAlgorithms.settleStream(start).count(), tree.nodes().size());
+			}
+		}
+
+		/** findFirst on a large graph relaxes the edges of only the nodes
+		 * settled before the match: every node closer than it, and perhaps
+		 * some at the same distance. */
+		@Test
+		public void testLazy() {
+			IntGraph g = TestGraphs.grid(new Random(113), 100, 9);
+			Stop[] copy = TestGraphs.stops(g);
+			ShortestPathTree<Stop> tree = GraphAlgorithms.shortestPathTree(copy[0]);
+			Stop[] s = TestGraphs.stops(g);
+			int[] expanded = {0};
+			for(int target : new int[] {0, 1, 101, 505}) {
+				int d = tree.distanceTo(copy[target]);
+				int closer = 0;
+				int notFarther = 0;
+				for(Stop n : copy) {
+					closer += tree.distanceTo(n) < d ? 1 : 0;
+					notFarther += tree.distanceTo(n) <= d ? 1 : 0;
+				}
+				expanded[0] = 0;
+				DfsIterator.Tests.count(s, expanded);
+				assertSame(GraphAlgorithms.settleStream(s[0]).filter(n -> n == s[target]).findFirst().get(), s[target]);
+				assertTrue(expanded[0] >= closer && expanded[0] < notFarther,
+						expanded[0] + " expanded, " + closer + " closer than " + target);
+				assertTrue(expanded[0] < g.nodeCount() / 4);
+			}
+		}
+	}
+}
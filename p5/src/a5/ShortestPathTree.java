@@ -0,0 +1,166 @@
+package a5;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import a5.PathCache.Tests.Stop;
+
+/** The result of a single-source shortest-path search: the distance from the
+ * start to every reachable node and the backpointers that form the tree of
+ * minimal paths.
+ *
+ * A tree is immutable once built; queries read the stored search results and
+ * never search the graph again. Obtain one from GraphAlgorithms.shortestPathTree.
+ */
+public final class ShortestPathTree<N> {
+	private final N start;
+	private final Map<N, GraphAlgorithms.DB<N>> info; //never modified after construction
+
+	/** Constructor wraps the completed search results in info.
+	 *
+	 * @param start The node the search started from.
+	 * @param info  The final distance and backpointer of every reachable node;
+	 *              the tree takes ownership of it.
+	 */
+	ShortestPathTree(N start, Map<N, GraphAlgorithms.DB<N>> info) {
+		this.start = start;
+		this.info = info;
+	}
+
+	/** Return the node the paths start from. */
+	public N start() {
+		return start;
+	}
+
+	/** Return the nodes reachable from start(), including start() itself. */
+	public Set<N> nodes() {
+		return Collections.unmodifiableSet(info.keySet());
+	}
+
+	/** Return true if there is a path from start() to n. */
+	public boolean reaches(N n) {
+		return info.containsKey(n);
+	}
+
+	/**
+	 * Return the length of a minimal path from start() to n.
+	 *
+	 * @throws NoSuchElementException if n is not reachable from start().
+	 */
+	public int distanceTo(N n) throws NoSuchElementException {
+		GraphAlgorithms.DB<N> db = info.get(n);
+		if(db == null) {
+			throw new NoSuchElementException();
+		}
+		return db.distance;
+	}
+
+	/**
+	 * Return the node before n on the minimal path from start() to n, or null
+	 * if n is start().
+	 *
+	 * @throws NoSuchElementException if n is not reachable from start().
+	 */
+	public N parent(N n) throws NoSuchElementException {
+		GraphAlgorithms.DB<N> db = info.get(n);
+		if(db == null) {
+			throw new NoSuchElementException();
+		}
+		return db.backpointer;
+	}
+
+	/**
+	 * Return a minimal path from start() to n, or an empty list if n is not
+	 * reachable, as GraphAlgorithms.shortestPath(start(), n) would.
+	 */
+	public List<N> pathTo(N n) {
+		if(!info.containsKey(n)) {
+			return new ArrayList<N>();
+		}
+		return GraphAlgorithms.path(info, n);
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for ShortestPathTree against GraphAlgorithms.shortestPath. */
+	public static class Tests {
+
+		@Test
+		public void testSmall() {
+			Stop[] s = GraphAlgorithms.Tests.small();
+			ShortestPathTree<Stop> tree = GraphAlgorithms.shortestPathTree(s[0]);
+			assertSame(tree.start(), s[0]);
+			assertEquals(tree.nodes(), new java.util.HashSet<Stop>(java.util.Arrays.asList(s[0], s[1], s[2], s[3], s[4])));
+			assertEquals(tree.distanceTo(s[0]), 0);
+			assertEquals(tree.distanceTo(s[1]), 3);
+			assertEquals(tree.distanceTo(s[3]), 4);
+			assertEquals(tree.distanceTo(s[4]), 4);
+			assertNull(tree.parent(s[0]));
+			assertSame(tree.parent(s[1]), s[2]);
+			assertSame(tree.parent(s[3]), s[1]);
+			assertEquals(tree.pathTo(s[4]), java.util.Arrays.asList(s[0], s[2], s[1], s[3], s[4]));
+			assertEquals(tree.pathTo(s[0]), java.util.Arrays.asList(s[0]));
+
+			assertFalse(tree.reaches(s[5]));
+			assertEquals(tree.pathTo(s[5]), new ArrayList<Stop>());
+			assertThrows(NoSuchElementException.class, () -> {tree.distanceTo(s[5]);});
+			assertThrows(NoSuchElementException.class, () -> {tree.parent(s[5]);});
+		}
+
+		/** Neither the returned views nor later changes to the graph alter
+		 * the tree. */
+		@Test
+		public void testImmutable() {
+			Stop[] s = GraphAlgorithms.Tests.small();
+			ShortestPathTree<Stop> tree = GraphAlgorithms.shortestPathTree(s[0]);
+			assertThrows(UnsupportedOperationException.class, () -> {tree.nodes().remove(s[1]);});
+			assertThrows(UnsupportedOperationException.class, () -> {tree.nodes().add(s[5]);});
+			tree.pathTo(s[3]).clear();
+			assertEquals(tree.pathTo(s[3]), java.util.Arrays.asList(s[0], s[2], s[1], s[3]));
+
+			s[0].link(s[3], 1);
+			s[0].link(s[5], 1);
+			assertEquals(tree.distanceTo(s[3]), 4);
+			assertFalse(tree.reaches(s[5]));
+			assertEquals(GraphAlgorithms.shortestPathTree(s[0]).distanceTo(s[3]), 1);
+		}
+
+		@Test
+		public void testRandomGraphs() {
+			Random r = new Random(47);
+			for(int trial = 0; trial < 30; trial++) {
+				IntGraph g = TestGraphs.random(r, 40, 9);
+				Stop[] s = TestGraphs.stops(g);
+				int source = r.nextInt(s.length);
+				ShortestPathTree<Stop> tree = GraphAlgorithms.shortestPathTree(s[source]);
+				for(int t = 0; t < s.length; t++) {
+					int expected = TestGraphs.distance(g, source, t);
+					assertEquals(tree.reaches(s[t]), expected != TestGraphs.UNREACHABLE, source + " to " + t);
+					if(expected == TestGraphs.UNREACHABLE) {
+						assertTrue(tree.pathTo(s[t]).isEmpty());
+						continue;
+					}
+					assertEquals(tree.distanceTo(s[t]), expected, source + " to " + t);
+					if(t != source) {
+						Stop parent = tree.parent(s[t]);
+						assertEquals(tree.distanceTo(parent) + parent.out.get(s[t]).weight, expected);
+					}
+					List<Stop> path = tree.pathTo(s[t]);
+					assertSame(path.get(0), s[source]);
+					assertSame(path.get(path.size() - 1), s[t]);
+					int length = 0;
+					for(int i = 1; i < path.size(); i++) {
+						length += path.get(i - 1).out.get(path.get(i)).weight;
+					}
+					assertEquals(length, expected);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package a5;
+
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+import static org.junit.jupiter.api.Assertions.*;
+
+import a5.PathCache.Tests.Stop;
+
+/** Graphs and checks shared by the Tests classes of this package; nothing
+ * outside the tests uses it.
+ *
+ * The graphs are IntGraphs over plain arrays whose edge ranges need not be
+ * packed, start at 0 or come in node order, so any layout an IntGraph may
+ * have can be built directly. The checks hold a search under test to
+ * GraphAlgorithms.shortestPath, the sequential Dijkstra everything else is
+ * measured against.
+ */
+final class TestGraphs {
+	public static final int UNREACHABLE = BatchShortestPaths.UNREACHABLE;
+
+	private TestGraphs() {
+	}
+
+	/** A path query under test, e.g. h::path; returns the nodes of a
+	 * shortest path from s to t, or an empty array if t is unreachable. */
+	interface PathQuery {
+		public int[] path(int s, int t);
+	}
+
+	/** Returns the packed graph whose edges out of u are offsets[u]..offsets[u+1]-1. */
+	static IntGraph packed(int[] offsets, int[] targets, int[] weights) {
+		int n = offsets.length - 1;
+		int[] begin = new int[n];
+		int[] end = new int[n];
+		for(int u = 0; u < n; u++) {
+			begin[u] = offsets[u];
+			end[u] = offsets[u + 1];
+		}
+		return new ArrayGraph(begin, end, targets, weights);
+	}
+
+	/**
+	 * Returns a graph of n nodes and m edges between uniformly random nodes,
+	 * with weights uniform in 0..maxWeight. It may have self-loops, parallel
+	 * edges and nodes nothing reaches.
+	 */
+	static IntGraph random(Random r, int n, int m, int maxWeight) {
+		int[] from = new int[m];
+		int[] offsets = new int[n + 1];
+		for(int e = 0; e < m; e++) {
+			from[e] = r.nextInt(n);
+			offsets[from[e] + 1]++;
+		}
+		for(int u = 0; u < n; u++) {
+			offsets[u + 1] += offsets[u];
+		}
+		int[] next = offsets.clone();
+		int[] targets = new int[m];
+		int[] weights = new int[m];
+		for(int e = 0; e < m; e++) {
+			int slot = next[from[e]]++;
+			targets[slot] = r.nextInt(n);
+			weights[slot] = r.nextInt(maxWeight + 1);
+		}
+		return packed(offsets, targets, weights);
+	}
+
+	/**
+	 * Returns a random graph of 1..maxNodes nodes and up to four edges per
+	 * node, weighted in 0..maxWeight: zero weights, parallel edges,
+	 * self-loops and, when sparse, unreachable pairs.
+	 */
+	static IntGraph random(Random r, int maxNodes, int maxWeight) {
+		int n = 1 + r.nextInt(maxNodes);
+		return random(r, n, r.nextInt(4 * n + 1), maxWeight);
+	}
+
+	/** Returns a side x side grid with edges both ways between neighbours,
+	 * each direction weighted independently in 0..maxWeight. */
+	static IntGraph grid(Random r, int side, int maxWeight) {
+		int n = side * side;
+		int[] offsets = new int[n + 1];
+		int[] targets = new int[4 * n];
+		int[] weights = new int[4 * n];
+		int m = 0;
+		for(int u = 0; u < n; u++) {
+			offsets[u] = m;
+			int x = u % side;
+			int y = u / side;
+			for(int[] d : new int[][] {{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+				if(x + d[0] >= 0 && x + d[0] < side && y + d[1] >= 0 && y + d[1] < side) {
+					targets[m] = u + d[0] + d[1] * side;
+					weights[m] = r.nextInt(maxWeight + 1);
+					m++;
+				}
+			}
+		}
+		offsets[n] = m;
+		return packed(offsets, targets, weights);
+	}
+
+	/**
+	 * Returns a copy of g with the same edges out of every node, laid out
+	 * the way a CSR graph is not: the ranges start at 2, come in reverse node
+	 * order and have a gap after each.
+	 */
+	static IntGraph scattered(IntGraph g) {
+		int n = g.nodeCount();
+		int[] begin = new int[n];
+		int[] end = new int[n];
+		int[] targets = new int[2 + g.edgeCount() + n];
+		int[] weights = new int[targets.length];
+		int slot = 2;
+		for(int u = n - 1; u >= 0; u--) {
+			begin[u] = slot;
+			for(int e = g.begin(u); e < g.end(u); e++) {
+				targets[slot] = g.target(e);
+				weights[slot] = g.weight(e);
+				slot++;
+			}
+			end[u] = slot;
+			slot++; //the gap
+		}
+		return new ArrayGraph(begin, end, targets, weights);
+	}
+
+	/** Returns g as a graph of Stops, stop u for node u, keeping the
+	 * cheapest of any parallel edges. Stop u is named after u. */
+	static Stop[] stops(IntGraph g) {
+		Stop[] stops = new Stop[g.nodeCount()];
+		for(int u = 0; u < stops.length; u++) {
+			stops[u] = new Stop(String.valueOf(u));
+		}
+		for(int u = 0; u < stops.length; u++) {
+			for(int e = g.begin(u); e < g.end(u); e++) {
+				Stop to = stops[g.target(e)];
+				if(!stops[u].out.containsKey(to) || stops[u].out.get(to).weight > g.weight(e)) {
+					stops[u].link(to, g.weight(e));
+				}
+			}
+		}
+		return stops;
+	}
+
+	/** Returns the length of path in g, taking the cheapest of any parallel
+	 * edges, or UNREACHABLE if path is empty. */
+	static int length(IntGraph g, int[] path) {
+		if(path.length == 0) {
+			return UNREACHABLE;
+		}
+		int length = 0;
+		for(int i = 1; i < path.length; i++) {
+			int best = Integer.MAX_VALUE;
+			for(int e = g.begin(path[i - 1]); e < g.end(path[i - 1]); e++) {
+				if(g.target(e) == path[i] && g.weight(e) < best) {
+					best = g.weight(e);
+				}
+			}
+			length += best;
+		}
+		return length;
+	}
+
+	/** Returns the distance from s to t in g by GraphAlgorithms.shortestPath,
+	 * or UNREACHABLE. */
+	static int distance(IntGraph g, int s, int t) {
+		return length(g, GraphAlgorithms.shortestPath(g, s, t));
+	}
+
+	/** Asserts that distance and path answer every pair of g like
+	 * GraphAlgorithms.shortestPath does: the same distance, and a path from s
+	 * to t of that length, or an empty one if t is unreachable. */
+	static void assertAllPairs(IntGraph g, IntBinaryOperator distance, PathQuery path) {
+		for(int s = 0; s < g.nodeCount(); s++) {
+			for(int t = 0; t < g.nodeCount(); t++) {
+				int expected = distance(g, s, t);
+				assertEquals(distance.applyAsInt(s, t), expected, s + " to " + t);
+				int[] p = path.path(s, t);
+				if(expected == UNREACHABLE) {
+					assertEquals(p.length, 0, s + " to " + t);
+					continue;
+				}
+				assertEquals(p[0], s);
+				assertEquals(p[p.length - 1], t);
+				assertEquals(length(g, p), expected, "path " + s + " to " + t);
+			}
+		}
+	}
+
+	/** An IntGraph whose edges out of u are the slots begin[u]..end[u]-1 of
+	 * targets and weights; the arrays are used as they are, not copied. */
+	private static final class ArrayGraph implements IntGraph {
+		private final int[] begin;
+		private final int[] end;
+		private final int[] targets;
+		private final int[] weights;
+		private final int edgeCount;
+
+		ArrayGraph(int[] begin, int[] end, int[] targets, int[] weights) {
+			this.begin = begin;
+			this.end = end;
+			this.targets = targets;
+			this.weights = weights;
+			int count = 0;
+			for(int u = 0; u < begin.length; u++) {
+				count += end[u] - begin[u];
+			}
+			edgeCount = count;
+		}
+
+		@Override
+		public int nodeCount() {
+			return begin.length;
+		}
+
+		@Override
+		public int edgeCount() {
+			return edgeCount;
+		}
+
+		@Override
+		public int begin(int u) {
+			return begin[u];
+		}
+
+		@Override
+		public int end(int u) {
+			return end[u];
+		}
+
+		@Override
+		public int target(int e) {
+			return targets[e];
+		}
+
+		@Override
+		public int weight(int e) {
+			return weights[e];
+		}
+	}
+}
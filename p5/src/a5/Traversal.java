@@ -0,0 +1,350 @@
+package a5;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/** A reusable context for depth- and breadth-first traversals of an IntGraph.
+ *
+ * A Traversal owns all the memory a traversal needs: an int stack of
+ * (node, next edge) frames for DFS, an int queue for BFS, and a visited
+ * array. Instead of being cleared, the visited array is stamped with the
+ * number of the current traversal, so starting a traversal costs O(1) and,
+ * once the arrays have grown to the graph, nothing is allocated at all.
+ * Nodes are reported to a Visitor as they are reached instead of being
+ * collected into a list.
+ *
+ * Every node is pushed at most once, so the stack and queue never hold
+ * more than nodeCount() entries. A Traversal is not thread-safe; give each
+ * thread its own.
+ */
+public final class Traversal {
+	/** Receives the nodes of a traversal as they are reached. */
+	public interface Visitor {
+		/**
+		 * Called once for every node reached, start first, with its depth:
+		 * the number of edges on the path the traversal took to it. Return
+		 * false to stop the traversal.
+		 */
+		boolean visit(int node, int depth);
+	}
+
+	private int[] stamp = new int[0]; //traversal number that last visited each node
+	private int epoch;
+	private int[] nodes = new int[0]; //the DFS stack or the BFS queue
+	private int[] cursors = new int[0]; //next edge to try from each DFS stack frame
+
+	/** Constructor creates a context sized for graphs of up to capacity nodes;
+	 * it grows if given a larger graph.
+	 */
+	public Traversal(int capacity) {
+		ensureCapacity(capacity);
+	}
+
+	/**
+	 * Visit the nodes reachable from start in depth-first preorder, following
+	 * the edges of each node in order. Return the number of nodes visited.
+	 */
+	public int dfs(IntGraph g, int start, Visitor v) {
+		return dfs(g, start, Integer.MAX_VALUE, v);
+	}
+
+	/**
+	 * Visit the nodes reachable from start in depth-first preorder without
+	 * following paths longer than maxDepth edges. Because each node is
+	 * entered only once, by the first path found to it, a node within
+	 * maxDepth edges of start can be missed if that first path was longer;
+	 * use bfs for an exact k-hop neighbourhood. Return the number of nodes
+	 * visited.
+	 *
+	 * @throws IllegalArgumentException if maxDepth is negative.
+	 */
+	public int dfs(IntGraph g, int start, int maxDepth, Visitor v) throws IllegalArgumentException {
+		begin(g, maxDepth);
+		stamp[start] = epoch;
+		int count = 1;
+		if(!v.visit(start, 0)) {
+			return count;
+		}
+		int top = 0; //the frames are nodes[0..top] and cursors[0..top]
+		nodes[0] = start;
+		cursors[0] = g.begin(start);
+		while(top >= 0) {
+			int u = nodes[top];
+			int e = cursors[top];
+			if(e == g.end(u) || top == maxDepth) {
+				top--; //u is finished
+				continue;
+			}
+			cursors[top] = e + 1;
+			int w = g.target(e);
+			if(stamp[w] != epoch) {
+				stamp[w] = epoch;
+				count++;
+				if(!v.visit(w, top + 1)) {
+					return count;
+				}
+				top++;
+				nodes[top] = w;
+				cursors[top] = g.begin(w);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Visit the nodes reachable from start in breadth-first order, so in
+	 * order of depth. Return the number of nodes visited.
+	 */
+	public int bfs(IntGraph g, int start, Visitor v) {
+		return bfs(g, start, Integer.MAX_VALUE, v);
+	}
+
+	/**
+	 * Visit the nodes within maxDepth edges of start in breadth-first order.
+	 * Return the number of nodes visited.
+	 *
+	 * @throws IllegalArgumentException if maxDepth is negative.
+	 */
+	public int bfs(IntGraph g, int start, int maxDepth, Visitor v) throws IllegalArgumentException {
+		begin(g, maxDepth);
+		stamp[start] = epoch;
+		nodes[0] = start;
+		int head = 0;
+		int tail = 1;
+		int depth = 0;
+		int levelEnd = 1; //nodes[head..levelEnd) are at depth, the rest at depth+1
+		while(head < tail) {
+			if(head == levelEnd) {
+				depth++;
+				levelEnd = tail;
+			}
+			int u = nodes[head++];
+			if(!v.visit(u, depth)) {
+				return head;
+			}
+			if(depth == maxDepth) {
+				continue;
+			}
+			for(int e = g.begin(u); e < g.end(u); e++) {
+				int w = g.target(e);
+				if(stamp[w] != epoch) {
+					stamp[w] = epoch;
+					nodes[tail++] = w;
+				}
+			}
+		}
+		return head;
+	}
+
+	/** Return true if there is a path from start to target. Stops as soon as
+	 * target is reached. */
+	public boolean reaches(IntGraph g, int start, int target) {
+		dfs(g, start, (node, depth) -> node != target);
+		return stamp[target] == epoch;
+	}
+
+	/** Return true if the last traversal reached node (or, for bfs, queued
+	 * it before stopping). */
+	public boolean visited(int node) {
+		return epoch != 0 && node < stamp.length && stamp[node] == epoch;
+	}
+
+	/** Starts a new traversal of g: grows the arrays if needed and moves to a
+	 * fresh stamp. */
+	private void begin(IntGraph g, int maxDepth) {
+		if(maxDepth < 0) {
+			throw new IllegalArgumentException("negative depth: " + maxDepth);
+		}
+		ensureCapacity(g.nodeCount());
+		epoch++;
+		if(epoch == 0) { //wrapped: old stamps could match again
+			Arrays.fill(stamp, 0);
+			epoch = 1;
+		}
+	}
+
+	/** Makes the arrays hold at least n nodes. */
+	private void ensureCapacity(int n) {
+		if(stamp.length < n) {
+			stamp = Arrays.copyOf(stamp, n); //keep stamps, or visited() would lie
+			nodes = new int[n];
+			cursors = new int[n];
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////
+	/** Tests for Traversal against plain recursive and queue-based
+	 * traversals. */
+	public static class Tests {
+
+		/** Returns the visits recorded in nodes and depths as {node, depth}
+		 * pairs. */
+		static int[][] visits(IntList nodes, IntList depths) {
+			int[][] result = new int[nodes.size][];
+			for(int i = 0; i < nodes.size; i++) {
+				result[i] = new int[] {nodes.items[i], depths.items[i]};
+			}
+			return result;
+		}
+
+		/** Appends to nodes and depths the visits of a recursive depth-first
+		 * traversal from u that follows edges in order and goes no deeper
+		 * than maxDepth. */
+		static void dfs(IntGraph g, int u, int depth, int maxDepth, boolean[] seen, IntList nodes, IntList depths) {
+			seen[u] = true;
+			nodes.add(u);
+			depths.add(depth);
+			if(depth == maxDepth) {
+				return;
+			}
+			for(int e = g.begin(u); e < g.end(u); e++) {
+				if(!seen[g.target(e)]) {
+					dfs(g, g.target(e), depth + 1, maxDepth, seen, nodes, depths);
+				}
+			}
+		}
+
+		/** Returns the number of edges on a shortest path from start to each
+		 * node, or -1 for nodes start does not reach. */
+		static int[] hops(IntGraph g, int start) {
+			int[] hops = new int[g.nodeCount()];
+			Arrays.fill(hops, -1);
+			hops[start] = 0;
+			ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+			queue.add(start);
+			while(!queue.isEmpty()) {
+				int u = queue.poll();
+				for(int e = g.begin(u); e < g.end(u); e++) {
+					if(hops[g.target(e)] == -1) {
+						hops[g.target(e)] = hops[u] + 1;
+						queue.add(g.target(e));
+					}
+				}
+			}
+			return hops;
+		}
+
+		/** Checks t's traversals of g from start, with and without a depth
+		 * bound, against the references above. */
+		static void assertTraversals(Traversal t, IntGraph g, int start, int maxDepth) {
+			int n = g.nodeCount();
+			int[] hops = hops(g, start);
+			for(int bound : new int[] {Integer.MAX_VALUE, maxDepth}) {
+				IntList nodes = new IntList();
+				IntList depths = new IntList();
+				dfs(g, start, 0, bound, new boolean[n], nodes, depths);
+				IntList visitedNodes = new IntList();
+				IntList visitedDepths = new IntList();
+				int count = t.dfs(g, start, bound, (u, d) -> {visitedNodes.add(u); visitedDepths.add(d); return true;});
+				assertEquals(count, nodes.size);
+				assertArrayEquals(visits(visitedNodes, visitedDepths), visits(nodes, depths));
+				for(int u = 0; u < n; u++) {
+					assertEquals(t.visited(u), contains(nodes, u), "visited " + u);
+				}
+
+				IntList bfsNodes = new IntList();
+				int[] last = {0};
+				count = t.bfs(g, start, bound, (u, d) -> {
+					assertEquals(d, hops[u], "depth of " + u);
+					assertTrue(d >= last[0], "out of order at " + u);
+					last[0] = d;
+					bfsNodes.add(u);
+					return true;
+				});
+				assertEquals(count, bfsNodes.size);
+				int within = 0;
+				for(int u = 0; u < n; u++) {
+					if(hops[u] != -1 && hops[u] <= bound) {
+						within++;
+						assertTrue(contains(bfsNodes, u), u + " is " + hops[u] + " hops away");
+					}
+				}
+				assertEquals(count, within);
+			}
+		}
+
+		/** Returns true if list holds x. */
+		static boolean contains(IntList list, int x) {
+			for(int i = 0; i < list.size; i++) {
+				if(list.items[i] == x) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Test
+		public void testRandomGraphs() {
+			Random r = new Random(83);
+			Traversal t = new Traversal(0);
+			for(int trial = 0; trial < 60; trial++) {
+				IntGraph g = TestGraphs.random(r, 40, 9);
+				int start = r.nextInt(g.nodeCount());
+				assertTraversals(t, g, start, r.nextInt(4));
+				assertTraversals(t, TestGraphs.scattered(g), start, 0);
+				for(int target = 0; target < g.nodeCount(); target++) {
+					assertEquals(t.reaches(g, start, target), hops(g, start)[target] != -1, start + " to " + target);
+				}
+			}
+			assertThrows(IllegalArgumentException.class, () -> {t.dfs(TestGraphs.random(r, 5, 9), 0, -1, (u, d) -> true);});
+			assertThrows(IllegalArgumentException.class, () -> {t.bfs(TestGraphs.random(r, 5, 9), 0, -1, (u, d) -> true);});
+		}
+
+		/** A visitor that returns false stops the traversal at once, and the
+		 * count includes the node it stopped at. */
+		@Test
+		public void testStopEarly() {
+			IntGraph g = TestGraphs.grid(new Random(89), 6, 9);
+			Traversal t = new Traversal(g.nodeCount());
+			for(int stop = 1; stop <= g.nodeCount(); stop++) {
+				int[] seen = {0};
+				final int k = stop;
+				assertEquals(t.dfs(g, 0, (u, d) -> ++seen[0] < k), k);
+				assertEquals(seen[0], k);
+				seen[0] = 0;
+				assertEquals(t.bfs(g, 0, (u, d) -> ++seen[0] < k), k);
+				assertEquals(seen[0], k);
+			}
+			assertTrue(t.reaches(g, 0, 0));
+			assertEquals(t.dfs(g, 0, 0, (u, d) -> true), 1);
+			assertEquals(t.bfs(g, 0, 1, (u, d) -> true), 3); //a corner has two neighbours
+		}
+
+		/** When the epoch wraps, stamps left over from old traversals must
+		 * not count as visited. */
+		@Test
+		public void testEpochWraparound() {
+			IntGraph g = TestGraphs.grid(new Random(97), 5, 9);
+			Traversal t = new Traversal(g.nodeCount());
+			assertEquals(t.dfs(g, 0, (u, d) -> true), 25); //stamps every node with epoch 1
+			t.epoch = -1; //the next traversal wraps to 0, then to 1 again
+			assertEquals(t.dfs(g, 0, (u, d) -> true), 25);
+			assertEquals(t.epoch, 1);
+			t.epoch = Integer.MAX_VALUE;
+			assertEquals(t.bfs(g, 0, (u, d) -> true), 25);
+			assertTrue(t.visited(24));
+		}
+
+		/** One context serves graphs of any size, growing as needed, and
+		 * visited() answers for the last graph only. */
+		@Test
+		public void testResize() {
+			Random r = new Random(101);
+			IntGraph small = TestGraphs.grid(r, 3, 9);
+			IntGraph large = TestGraphs.grid(r, 20, 9);
+			Traversal t = new Traversal(0);
+			assertFalse(t.visited(0));
+			assertEquals(t.bfs(small, 0, (u, d) -> true), 9);
+			assertFalse(t.visited(50));
+			assertEquals(t.dfs(large, 399, (u, d) -> true), 400);
+			assertTrue(t.visited(50));
+			assertEquals(t.dfs(small, 8, (u, d) -> true), 9);
+			assertFalse(t.visited(50));
+			assertTraversals(t, large, 210, 3);
+			assertTraversals(t, small, 4, 1);
+		}
+	}
+}